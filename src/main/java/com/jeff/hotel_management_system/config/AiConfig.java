@@ -0,0 +1,24 @@
+package com.jeff.hotel_management_system.config;
+
+import com.jeff.hotel_management_system.utils.StubChatModel;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+
+@Configuration
+public class AiConfig {
+
+    // Replaces the OpenAI model with a local one, e.g. for tests, load tests and local development
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "hotel.recommendations.stub-model.enabled", havingValue = "true")
+    public ChatModel stubChatModel(@Value("${hotel.recommendations.stub-model.token-delay-ms:20}") long tokenDelayMs) {
+
+        return new StubChatModel(Duration.ofMillis(tokenDelayMs));
+    }
+}
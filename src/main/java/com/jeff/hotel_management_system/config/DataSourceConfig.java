@@ -0,0 +1,67 @@
+package com.jeff.hotel_management_system.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class DataSourceConfig {
+
+    // Primary from spring.datasource.*, plus one pool per replica URL sharing its credentials.
+    // Without replicas every transaction goes to the primary. The pools publish hikaricp.* metrics
+    // tagged pool=primary, replica-0, ...
+    @Bean
+    public ReplicaRouter replicaRouter(
+            DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            StringRedisTemplate redisTemplate,
+            @Value("${hotel.datasource.replica-urls:}") List<String> replicaUrls,
+            @Value("${hotel.datasource.replica-max-lag-ms:1000}") long maxLagMs,
+            @Value("${hotel.datasource.read-your-writes-ms:5000}") long readYourWritesMs,
+            @Value("${hotel.datasource.replica-lag-query}") String lagQuery) {
+
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        instrument(primary, "primary", metrics);
+
+        List<String> urls = replicaUrls.stream().filter(url -> !url.isBlank()).toList();
+        List<DataSource> replicas = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(urls.get(i).trim())
+                    .username(properties.determineUsername())
+                    .password(properties.determinePassword())
+                    .build();
+            instrument(replica, "replica-" + i, metrics);
+            replicas.add(replica);
+        }
+        return new ReplicaRouter(primary, replicas, maxLagMs, readYourWritesMs, lagQuery, redisTemplate);
+    }
+
+    // The connection is fetched at the first statement, once @Transactional(readOnly = true) is in effect
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRouter replicaRouter) {
+        return new LazyConnectionDataSourceProxy(replicaRouter.dataSource());
+    }
+
+    // the pools are not beans, so the auto-configured pool metrics do not see them
+    private static void instrument(HikariDataSource pool, String name, MicrometerMetricsTrackerFactory metrics) {
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory(metrics);
+    }
+}
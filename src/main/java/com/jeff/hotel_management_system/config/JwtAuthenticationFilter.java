@@ -1,12 +1,16 @@
 package com.jeff.hotel_management_system.config;
 
 import com.jeff.hotel_management_system.utils.JwtUtils;
+import io.jsonwebtoken.Claims;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -16,6 +20,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -25,10 +30,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private UserDetailsService userDetailsService;
 
+    private ObservationRegistry observationRegistry;
+
     //Constructor
-    public JwtAuthenticationFilter(JwtUtils jwtTokenProvider, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtils jwtTokenProvider, UserDetailsService userDetailsService,
+                                   ObservationRegistry observationRegistry) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.userDetailsService = userDetailsService;
+        this.observationRegistry = observationRegistry;
     }
 
 
@@ -42,25 +51,57 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Get JWT token from HTTP request
         String token = getTokenFromRequest(request);
 
-        // Validate Token
-        if(StringUtils.hasText(token) && jwtTokenProvider.validateToken(token)){
-            // get username from token
-            String username = jwtTokenProvider.getUsername(token);
+        // Authentication is a child span of the request, the chain below runs outside of it
+        Observation observation = Observation.createNotStarted("hotel.jwt.authenticate", observationRegistry)
+                .contextualName("jwt authenticate")
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            authenticate(request, token);
+            observation.lowCardinalityKeyValue("outcome",
+                    SecurityContextHolder.getContext().getAuthentication() != null ? "authenticated" : "anonymous");
+        } catch (RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
 
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        filterChain.doFilter(request, response);
+    }
 
-            UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                    userDetails,
-                    null,
-                    userDetails.getAuthorities()
-            );
+    private void authenticate(HttpServletRequest request, String token) {
+        // Validate Token, the token is parsed once and the claims are shared with JwtInterceptor
+        Claims claims = StringUtils.hasText(token) ? jwtTokenProvider.verify(token) : null;
+        if(claims != null){
+            request.setAttribute(JwtUtils.VERIFIED_CLAIMS_ATTRIBUTE, claims);
+
+            // get username from token
+            String username = claims.getSubject();
+
+            UsernamePasswordAuthenticationToken authenticationToken;
+            String role = claims.get(JwtUtils.ROLE_CLAIM, String.class);
+            if (role != null) {
+                // the role is part of the verified token, no need to look the user up
+                authenticationToken = new UsernamePasswordAuthenticationToken(
+                        username,
+                        null,
+                        List.of(new SimpleGrantedAuthority(role))
+                );
+            } else {
+                // tokens issued before the role claim was added
+                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+
+                authenticationToken = new UsernamePasswordAuthenticationToken(
+                        userDetails,
+                        null,
+                        userDetails.getAuthorities()
+                );
+            }
 
             authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
             SecurityContextHolder.getContext().setAuthentication(authenticationToken);
         }
-
-        filterChain.doFilter(request, response);
     }
 
     // Extract the token
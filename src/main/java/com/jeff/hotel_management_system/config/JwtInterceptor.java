@@ -2,6 +2,9 @@ package com.jeff.hotel_management_system.config;
 
 import com.jeff.hotel_management_system.utils.JwtUtils;
 import com.jeff.hotel_management_system.utils.TokenWhitelistRedisCacheClient;
+import io.jsonwebtoken.Claims;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -15,10 +18,14 @@ public class JwtInterceptor implements HandlerInterceptor {
 
     private final JwtUtils jwtUtils;
 
+    private final ObservationRegistry observationRegistry;
 
-    public JwtInterceptor(TokenWhitelistRedisCacheClient redisCacheClient, JwtUtils jwtUtils) {
+
+    public JwtInterceptor(TokenWhitelistRedisCacheClient redisCacheClient, JwtUtils jwtUtils,
+                          ObservationRegistry observationRegistry) {
         this.redisCacheClient = redisCacheClient;
         this.jwtUtils = jwtUtils;
+        this.observationRegistry = observationRegistry;
     }
 
     @Override
@@ -34,15 +41,21 @@ public class JwtInterceptor implements HandlerInterceptor {
         // Extract the JWT token
         String token = authorizationHeader.substring(7);
 
-        // Validate the JWT and extract the userId claim
-        if (!jwtUtils.validateToken(token)) {
+        // Reuse the claims verified by JwtAuthenticationFilter, or validate the JWT here
+        Claims claims = request.getAttribute(JwtUtils.VERIFIED_CLAIMS_ATTRIBUTE) instanceof Claims verified
+                ? verified
+                : jwtUtils.verify(token);
+        if (claims == null) {
             throw new BadCredentialsException("Invalid or expired token");
         }
 
-        String emailId = jwtUtils.getUsername(token);
+        String emailId = claims.getSubject();
 
-        // Check if the token is whitelisted in Redis
-        if (!redisCacheClient.isTokenWhitelisted(emailId, token)) {
+        // Check if the token is whitelisted in Redis, a Redis call shows up as a child span of this one
+        boolean whitelisted = Observation.createNotStarted("hotel.jwt.whitelist-check", observationRegistry)
+                .contextualName("jwt whitelist-check")
+                .observe(() -> redisCacheClient.isTokenWhitelisted(emailId, token));
+        if (!whitelisted) {
             throw new BadCredentialsException("Token is not whitelisted or has been revoked");
         }
 
@@ -0,0 +1,23 @@
+package com.jeff.hotel_management_system.config;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A transaction for reads that must see every committed change, such as the snapshots the
+ * in-memory indexes are built from.
+ *
+ * It is deliberately not read-only: ReplicaRouter sends read-only transactions to the replicas,
+ * which may lag behind, and everything else to the primary.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Transactional
+public @interface PrimaryRead {
+}
@@ -0,0 +1,69 @@
+package com.jeff.hotel_management_system.config;
+
+import com.jeff.hotel_management_system.service.AvailabilityIndex;
+import com.jeff.hotel_management_system.service.BookingIntervalIndex;
+import com.jeff.hotel_management_system.service.BulkImportService;
+import com.jeff.hotel_management_system.service.OccupancyAnalytics;
+import com.jeff.hotel_management_system.service.RoomCache;
+import com.jeff.hotel_management_system.service.RoomHoldService;
+import com.jeff.hotel_management_system.service.RoomService;
+import com.jeff.hotel_management_system.utils.TokenWhitelistRedisCacheClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+public class RedisConfig {
+
+    // Drops near-cached whitelist entries when any node changes or revokes a token,
+    // mirrors room holds taken or released on any node and reloads rooms, their rates and embeddings
+    // when they change on any node, and applies bookings made or removed on other nodes to the indexes
+    // and the occupancy rollups, and reloads them all after a bulk import of bookings
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            TokenWhitelistRedisCacheClient tokenWhitelistRedisCacheClient,
+            RoomHoldService roomHoldService,
+            RoomService roomService,
+            BookingIntervalIndex bookingIntervalIndex,
+            AvailabilityIndex availabilityIndex,
+            OccupancyAnalytics occupancyAnalytics,
+            BulkImportService bulkImportService) {
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> tokenWhitelistRedisCacheClient.evictLocal(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(TokenWhitelistRedisCacheClient.INVALIDATION_CHANNEL));
+        container.addMessageListener(
+                (message, pattern) -> roomHoldService.onHoldEvent(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(RoomHoldService.HOLD_CHANNEL));
+        container.addMessageListener(
+                (message, pattern) -> roomService.onRoomInvalidated(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(RoomCache.INVALIDATION_CHANNEL));
+        container.addMessageListener(
+                (message, pattern) -> bookingIntervalIndex.onChangeEvent(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(BookingIntervalIndex.CHANGE_CHANNEL));
+        container.addMessageListener(
+                (message, pattern) -> availabilityIndex.onChangeEvent(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(BookingIntervalIndex.CHANGE_CHANNEL));
+        container.addMessageListener(
+                (message, pattern) -> occupancyAnalytics.onChangeEvent(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(OccupancyAnalytics.CHANGE_CHANNEL));
+        container.addMessageListener(
+                (message, pattern) -> bulkImportService.onBookingsImported(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(BulkImportService.BOOKINGS_IMPORTED_CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,186 @@
+package com.jeff.hotel_management_system.config;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sends read-only transactions to the read replicas and everything else to the primary.
+ *
+ * A replica only serves reads while its last measured replication lag is within maxLagMs; when
+ * none qualifies, or the replica cannot be reached, reads fall back to the primary. After a booking
+ * changes, its client and the user who made the change read from the primary for the next
+ * readYourWritesMs, so they see it even before the replicas have it. The pins are kept in Redis,
+ * expiring after readYourWritesMs (or maxLagMs if longer), so they hold on every node; when Redis
+ * cannot be reached, reads of signed-in users go to the primary. Reads that must never lag, such as
+ * the rebuilds of the in-memory indexes, run in a @PrimaryRead transaction.
+ */
+public class ReplicaRouter {
+
+    public static final String WRITES_KEY_PREFIX = "read_your_writes:";
+
+    private final DataSource primary;
+
+    private final List<DataSource> replicas;
+
+    private final long maxLagMs;
+
+    private final long readYourWritesMs;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final String lagQuery;
+
+    // last measured lag of each replica, Long.MAX_VALUE until the first probe or while unreachable
+    private final AtomicLongArray lagMs;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    // writes made through this node, which need no round trip to Redis
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    private final DataSource dataSource = new RoutingDataSource();
+
+    public ReplicaRouter(DataSource primary, List<DataSource> replicas, long maxLagMs, long readYourWritesMs,
+                         String lagQuery, StringRedisTemplate redisTemplate) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.maxLagMs = maxLagMs;
+        this.readYourWritesMs = Math.max(readYourWritesMs, maxLagMs);
+        this.lagQuery = lagQuery;
+        this.redisTemplate = redisTemplate;
+        this.lagMs = new AtomicLongArray(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            lagMs.set(i, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * The routing data source. Must be wrapped in a LazyConnectionDataSourceProxy so the target is
+     * only chosen at the first statement, once the transaction's read-only flag is known.
+     */
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Pins the reads of the given user, and of the current user if different, to the primary for a while.
+     * The given user matters when the write happens outside of their own request, e.g. a booking created
+     * from a Stripe webhook.
+     */
+    public void recordWrite(String username) {
+        long now = System.currentTimeMillis();
+        if (username != null) {
+            pin(username, now);
+        }
+        String currentUsername = currentUsername();
+        if (currentUsername != null && !currentUsername.equals(username)) {
+            pin(currentUsername, now);
+        }
+    }
+
+    DataSource select(boolean readOnly) {
+        if (!readOnly || replicas.isEmpty()) {
+            return primary;
+        }
+        String username = currentUsername();
+        if (username != null && pinned(username)) {
+            return primary;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int replica = (start + i) % replicas.size();
+            if (lagMs.get(replica) <= maxLagMs) {
+                return replicas.get(replica);
+            }
+        }
+        return primary;
+    }
+
+    /**
+     * Measures the replication lag of every replica and forgets writes older than the stickiness window.
+     */
+    @Scheduled(fixedDelayString = "${hotel.datasource.replica-probe-interval-ms:1000}")
+    public void probe() {
+        for (int i = 0; i < replicas.size(); i++) {
+            lagMs.set(i, measureLag(replicas.get(i)));
+        }
+        long expired = System.currentTimeMillis() - readYourWritesMs;
+        lastWrites.values().removeIf(lastWrite -> lastWrite < expired);
+    }
+
+    private void pin(String username, long now) {
+        lastWrites.put(username, now);
+        try {
+            redisTemplate.opsForValue().set(WRITES_KEY_PREFIX + username, String.valueOf(now),
+                    Duration.ofMillis(readYourWritesMs));
+        } catch (RuntimeException e) {
+            // the other nodes send this user to the primary anyway while they cannot reach Redis
+        }
+    }
+
+    private boolean pinned(String username) {
+        Long lastWrite = lastWrites.get(username);
+        if (lastWrite != null && System.currentTimeMillis() - lastWrite < readYourWritesMs) {
+            return true;
+        }
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(WRITES_KEY_PREFIX + username));
+        } catch (RuntimeException e) {
+            // cannot tell whether the user wrote through another node, the primary is always up to date
+            return true;
+        }
+    }
+
+    private long measureLag(DataSource replica) {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(lagQuery)) {
+            if (!result.next()) {
+                return Long.MAX_VALUE;
+            }
+            long lag = result.getLong(1);
+            // null when the server is not replaying WAL, i.e. a stand-alone stand-in for a replica
+            return result.wasNull() ? 0 : lag;
+        } catch (SQLException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    private class RoutingDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return target().getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return target().getConnection(username, password);
+        }
+
+        private DataSource target() {
+            return select(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+        }
+    }
+}
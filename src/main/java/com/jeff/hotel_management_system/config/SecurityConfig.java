@@ -46,13 +46,17 @@ public class SecurityConfig {
                     authorize.requestMatchers("/swagger-ui/**").permitAll();
                     authorize.requestMatchers("/v3/api-docs/**").permitAll();
                     authorize.requestMatchers(HttpMethod.OPTIONS, "/**").permitAll();
+                    authorize.requestMatchers("/actuator/health").permitAll();
 
                     // Role-based access control
                     authorize.requestMatchers("/api/clients/**").hasAnyRole("ADMIN");
                     authorize.requestMatchers("/api/rooms/**").hasRole("ADMIN");
+                    authorize.requestMatchers("/api/pricing-rules/**").hasRole("ADMIN");
                     authorize.requestMatchers("/api/bookings/**").hasAnyRole("ADMIN", "CLIENT");
                     authorize.requestMatchers("/api/occupies/**").hasRole("ADMIN");
+                    authorize.requestMatchers("/api/analytics/**").hasRole("ADMIN");
                     authorize.requestMatchers("/api/account/**").hasAnyRole("ADMIN", "CLIENT");
+                    authorize.requestMatchers("/actuator/**").hasRole("ADMIN");
 
                     // All other requests require authentication
                     authorize.anyRequest().authenticated();
@@ -0,0 +1,67 @@
+package com.jeff.hotel_management_system.controller;
+
+import com.jeff.hotel_management_system.dto.OccupancyReportDto;
+import com.jeff.hotel_management_system.service.OccupancyAnalytics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/analytics")
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Analytics API", description = "Occupancy and revenue reports (Admin only)")
+public class AnalyticsController {
+
+    @Autowired
+    private OccupancyAnalytics occupancyAnalytics;
+
+    @GetMapping("/occupancy")
+    @Operation(
+            summary = "Get occupancy and revenue",
+            description = "Booked room-nights, revenue and occupancy of the nights in [from, to), per day or per month, " +
+                    "for the whole hotel or per room type or floor. Served from in-memory rollups. Requires ADMIN role.",
+            security = @SecurityRequirement(name = "bearerAuth"),
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Report computed successfully",
+                            content = @Content(schema = @Schema(implementation = OccupancyReportDto.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid range, grouping or bucket"
+                    ),
+                    @ApiResponse(
+                            responseCode = "403",
+                            description = "Forbidden - Access denied"
+                    )
+            }
+    )
+    public ResponseEntity<OccupancyReportDto> getOccupancy(
+            @Parameter(description = "First night of the report (format: yyyy-MM-dd)", required = true, example = "2024-01-01")
+            @RequestParam LocalDate from,
+
+            @Parameter(description = "Day after the last night of the report (format: yyyy-MM-dd)", required = true, example = "2025-01-01")
+            @RequestParam LocalDate to,
+
+            @Parameter(description = "all, roomType or floor", example = "roomType")
+            @RequestParam(defaultValue = OccupancyAnalytics.GROUP_ALL) String groupBy,
+
+            @Parameter(description = "day or month", example = "month")
+            @RequestParam(defaultValue = OccupancyAnalytics.BUCKET_DAY) String bucket
+    ) {
+        // an invalid range, grouping or bucket is answered with 400 and the reason by GlobalExceptionHandler
+        return ResponseEntity.ok(occupancyAnalytics.report(from, to, groupBy, bucket));
+    }
+}
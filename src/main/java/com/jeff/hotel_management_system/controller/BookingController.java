@@ -1,24 +1,41 @@
 package com.jeff.hotel_management_system.controller;
 
+import com.jeff.hotel_management_system.dto.BookingConflictDto;
 import com.jeff.hotel_management_system.dto.BookingDto;
+import com.jeff.hotel_management_system.dto.BookingPageDto;
+import com.jeff.hotel_management_system.dto.BookingSummaryDto;
 import com.jeff.hotel_management_system.dto.CheckoutRequest;
 import com.jeff.hotel_management_system.dto.CheckoutResponse;
+import com.jeff.hotel_management_system.dto.GroupBookingRequest;
+import com.jeff.hotel_management_system.dto.ImportResultDto;
 import com.jeff.hotel_management_system.entity.Booking;
 import com.jeff.hotel_management_system.entity.BookingId;
 import com.jeff.hotel_management_system.utils.AuthUtils;
 import com.jeff.hotel_management_system.service.BookingService;
+import com.jeff.hotel_management_system.service.BulkImportService;
 import com.jeff.hotel_management_system.service.PricingService;
+import com.jeff.hotel_management_system.service.RoomHoldService;
 import com.jeff.hotel_management_system.service.StripeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stripe.exception.StripeException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -43,17 +60,31 @@ public class BookingController {
     @Autowired
     private PricingService pricingService;
 
+    @Autowired
+    private RoomHoldService roomHoldService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private static final String CSV = "text/csv";
+
     @GetMapping("/all")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(
             summary = "Get all bookings (Admin only)",
-            description = "Retrieves a list of all bookings. Requires ADMIN role.",
+            description = "Retrieves one page of bookings ordered by start date and room number. "
+                    + "Pass the nextStartDate and nextRoomNr of a page to get the page after it. Requires ADMIN role.",
             security = @SecurityRequirement(name = "bearerAuth"),
             responses = {
                     @ApiResponse(
                             responseCode = "200",
-                            description = "List of all bookings retrieved successfully",
-                            content = @Content(schema = @Schema(implementation = BookingDto.class))
+                            description = "Page of bookings retrieved successfully",
+                            content = @Content(schema = @Schema(implementation = BookingPageDto.class))
                     ),
                     @ApiResponse(
                             responseCode = "403",
@@ -61,8 +92,49 @@ public class BookingController {
                     )
             }
     )
-    public List<BookingDto> getAllBookings() {
-        return bookingService.getAllBookings();
+    public BookingPageDto getAllBookings(
+            @Parameter(description = "Start date of the last booking of the previous page (format: yyyy-MM-dd)", example = "2023-12-01")
+            @RequestParam(required = false) LocalDate afterStartDate,
+
+            @Parameter(description = "Room number of the last booking of the previous page", example = "101")
+            @RequestParam(required = false) String afterRoomNr,
+
+            @Parameter(description = "Page size, at most 1000", example = "100")
+            @RequestParam(defaultValue = "100") int size
+    ) {
+        return bookingService.getBookingsPage(afterStartDate, afterRoomNr, size);
+    }
+
+    @GetMapping(value = "/all/stream", produces = NDJSON)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Stream all bookings (Admin only)",
+            description = "Streams every booking as newline-delimited JSON, ordered by start date and room number. Requires ADMIN role.",
+            security = @SecurityRequirement(name = "bearerAuth"),
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Bookings streamed successfully",
+                            content = @Content(mediaType = NDJSON, schema = @Schema(implementation = BookingSummaryDto.class))
+                    )
+            }
+    )
+    public ResponseEntity<StreamingResponseBody> streamAllBookings() {
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            bookingService.forEachBooking(booking -> {
+                try {
+                    writer.write(objectMapper.writeValueAsString(booking));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
     }
 
     @GetMapping("/{startDate}/{roomNr}")
@@ -106,18 +178,8 @@ public class BookingController {
             }
     )
     public ResponseEntity<?> getClientBookings() {
-        List<Booking> bookings = bookingService.findByClientEmail(AuthUtils.getAuthenticatedEmail());
-        List<BookingDto> bookingDTOs = bookings.stream()
-                .map(booking -> new BookingDto(
-                        booking.getPrice(),
-                        booking.getId().getStartDate(),
-                        booking.getEndDate(),
-                        booking.getId().getRoomNr(),
-                        booking.getClient().getEmail(),
-                        booking.getRoom()
-                ))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(bookingDTOs);
+        List<BookingDto> bookings = bookingService.findByClientEmail(AuthUtils.getAuthenticatedEmail());
+        return ResponseEntity.ok(bookings);
     }
 
     @PostMapping
@@ -141,20 +203,133 @@ public class BookingController {
             )
             @RequestBody Booking booking
     ) throws StripeException {
+        String roomNr = booking.getId().getRoomNr();
+        LocalDate startDate = booking.getId().getStartDate();
+        bookingService.validateStay(startDate, booking.getEndDate());
+
         // Calculate the price
-        Long price = pricingService.calculatePrice(booking.getId().getRoomNr(), booking.getId().getStartDate(), booking.getEndDate());
+        Long price = pricingService.calculatePrice(roomNr, startDate, booking.getEndDate());
+
+        // Hold the nights until the payment completes, fails with 409 if someone else got them first
+        String holdId = roomHoldService.hold(roomNr, startDate, booking.getEndDate());
 
         // Create Stripe Checkout session
         CheckoutRequest checkoutRequest = new CheckoutRequest();
         checkoutRequest.setAmount(price * 100); // Stripe expects amounts in cents
         checkoutRequest.setSuccessUrl("http://localhost:3000/success"); // Frontend success URL
         checkoutRequest.setCancelUrl("http://localhost:3000/cancel");   // Frontend cancel URL
+        checkoutRequest.setHoldId(holdId);
+
+        CheckoutResponse checkoutResponse;
+        try {
+            checkoutResponse = stripeService.createCheckoutSession(roomNr, startDate, booking.getEndDate(), checkoutRequest);
+        } catch (RuntimeException | StripeException e) {
+            roomHoldService.release(roomNr, startDate, booking.getEndDate(), holdId);
+            throw e;
+        }
+        if (checkoutResponse.getCheckoutId() == null) {
+            // no session was created, nobody is going to pay for the hold
+            roomHoldService.release(roomNr, startDate, booking.getEndDate(), holdId);
+        }
+
+        return ResponseEntity.ok(checkoutResponse);
+    }
+
+    @PostMapping("/group")
+    @Operation(
+            summary = "Create a group booking",
+            description = "Holds several rooms for the same stay and initiates a single Stripe Checkout session "
+                    + "with one line item per room. Either every room is booked once paid, or none is.",
+            security = @SecurityRequirement(name = "bearerAuth"),
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Rooms held and Stripe Checkout session initiated successfully",
+                            content = @Content(schema = @Schema(implementation = CheckoutResponse.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "409",
+                            description = "One of the rooms is already booked or held for the selected dates"
+                    )
+            }
+    )
+    public ResponseEntity<?> createGroupBooking(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Rooms and stay to book",
+                    required = true,
+                    content = @Content(schema = @Schema(implementation = GroupBookingRequest.class))
+            )
+            @RequestBody GroupBookingRequest request
+    ) throws StripeException {
+        List<String> roomNrs = request.getRoomNrs();
+        LocalDate startDate = request.getStartDate();
+        LocalDate endDate = request.getEndDate();
+        bookingService.validateGroup(roomNrs);
+        bookingService.validateStay(startDate, endDate);
+
+        // Calculate the price of every room
+        long[] prices = new long[roomNrs.size()];
+        long total = 0;
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = pricingService.calculatePrice(roomNrs.get(i), startDate, endDate);
+            total += prices[i];
+        }
+
+        // Hold all rooms until the payment completes, fails with 409 if any of them is taken
+        String holdId = roomHoldService.hold(roomNrs, startDate, endDate);
+
+        CheckoutRequest checkoutRequest = new CheckoutRequest();
+        checkoutRequest.setAmount(total * 100); // Stripe expects amounts in cents
+        checkoutRequest.setSuccessUrl("http://localhost:3000/success"); // Frontend success URL
+        checkoutRequest.setCancelUrl("http://localhost:3000/cancel");   // Frontend cancel URL
+        checkoutRequest.setHoldId(holdId);
 
-        CheckoutResponse checkoutResponse = stripeService.createCheckoutSession(booking.getId().getRoomNr(), booking.getId().getStartDate(), booking.getEndDate(), checkoutRequest);
+        CheckoutResponse checkoutResponse;
+        try {
+            checkoutResponse = stripeService.createGroupCheckoutSession(roomNrs, prices, startDate, endDate, checkoutRequest);
+        } catch (RuntimeException | StripeException e) {
+            roomHoldService.release(roomNrs, startDate, endDate, holdId);
+            throw e;
+        }
+        if (checkoutResponse.getCheckoutId() == null) {
+            // no session was created, nobody is going to pay for the hold
+            roomHoldService.release(roomNrs, startDate, endDate, holdId);
+        }
 
         return ResponseEntity.ok(checkoutResponse);
     }
 
+    @PostMapping("/admin/group")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Create a group booking (Admin only)",
+            description = "Books several rooms for the same stay in one transaction, or none of them if any is taken. Requires ADMIN role.",
+            security = @SecurityRequirement(name = "bearerAuth"),
+            responses = {
+                    @ApiResponse(
+                            responseCode = "201",
+                            description = "Bookings created successfully",
+                            content = @Content(schema = @Schema(implementation = String.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "409",
+                            description = "One of the rooms is already booked for the selected dates"
+                    )
+            }
+    )
+    public ResponseEntity<?> createGroupBookingAdmin(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Client, rooms and stay to book",
+                    required = true,
+                    content = @Content(schema = @Schema(implementation = GroupBookingRequest.class))
+            )
+            @RequestBody GroupBookingRequest request
+    ) {
+        List<Booking> bookings = bookingService.createGroupBookingAdmin(request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(bookings.size() + " bookings successfully created");
+    }
+
     @PostMapping("/admin")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(
@@ -182,6 +357,62 @@ public class BookingController {
                 .body("Booking successfully created with ID: " + newBooking.getId().hashCode());
     }
 
+    @PostMapping(value = "/admin/import", consumes = {CSV, NDJSON})
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Import bookings in bulk (Admin only)",
+            description = "Creates the bookings of a CSV file with a header row, or of newline-delimited JSON as produced by " +
+                    "/all/stream. Rows are checked against existing bookings and each other; nothing is imported if any row " +
+                    "is invalid. Bookings without a price are priced like new ones. Requires ADMIN role.",
+            security = @SecurityRequirement(name = "bearerAuth"),
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Bookings imported successfully",
+                            content = @Content(schema = @Schema(implementation = ImportResultDto.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Some rows are invalid, the first errors are listed"
+                    )
+            }
+    )
+    public ResponseEntity<ImportResultDto> importBookings(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body
+    ) {
+        return ResponseEntity.ok(bulkImportService.importBookings(body, BulkImportService.Format.of(contentType)));
+    }
+
+    @PostMapping("/admin/conflicts")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Find conflicting bookings (Admin only)",
+            description = "For each room and date range, returns the existing bookings overlapping it. Requires ADMIN role.",
+            security = @SecurityRequirement(name = "bearerAuth"),
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Conflicts resolved successfully",
+                            content = @Content(schema = @Schema(implementation = BookingConflictDto.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "A range is missing a date, is empty or starts in an archived month"
+                    )
+            }
+    )
+    public List<BookingConflictDto> findConflicts(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Room numbers and date ranges to check",
+                    required = true,
+                    content = @Content(schema = @Schema(implementation = BookingConflictDto.class))
+            )
+            @RequestBody List<BookingConflictDto> requests
+    ) {
+        return bookingService.findConflicts(requests);
+    }
+
     @PutMapping("/admin")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(
@@ -1,6 +1,9 @@
 package com.jeff.hotel_management_system.controller;
 
+import com.jeff.hotel_management_system.dto.PriceQuoteDto;
+import com.jeff.hotel_management_system.dto.PriceQuoteRequest;
 import com.jeff.hotel_management_system.dto.RoomDto;
+import com.jeff.hotel_management_system.service.PricingService;
 import com.jeff.hotel_management_system.service.RoomService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -24,6 +27,9 @@ public class MainController {
     @Autowired
     private RoomService roomService;
 
+    @Autowired
+    private PricingService pricingService;
+
     @GetMapping("/available-rooms")
     @Operation(
             summary = "Get available rooms",
@@ -61,4 +67,28 @@ public class MainController {
         List<RoomDto> availableRooms = roomService.availableRooms(startDate, endDate, minOccupancy);
         return ResponseEntity.ok(availableRooms);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/quotes")
+    @Operation(
+            summary = "Quote prices in bulk",
+            description = "Prices every given room for every given date range in one call",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Price quotes calculated successfully",
+                            content = @Content(schema = @Schema(implementation = PriceQuoteDto.class))
+                    )
+            }
+    )
+    public ResponseEntity<?> quotePrices(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Room numbers and date ranges to quote",
+                    required = true,
+                    content = @Content(schema = @Schema(implementation = PriceQuoteRequest.class))
+            )
+            @RequestBody PriceQuoteRequest quoteRequest
+    ) {
+        List<PriceQuoteDto> quotes = pricingService.quote(quoteRequest.getRoomNrs(), quoteRequest.getRanges());
+        return ResponseEntity.ok(quotes);
+    }
+}
@@ -14,7 +14,6 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -48,9 +47,7 @@ public class OccupiesController {
             }
     )
     public List<OccupiesDto> getAllOccupies() {
-        return occupiesService.getAllOccupies().stream()
-                .map(occupiesMapper::toDTO)
-                .collect(Collectors.toList());
+        return occupiesService.getAllOccupies();
     }
 
     @GetMapping("/{clientEmail}/{startDate}/{roomNr}")
@@ -0,0 +1,144 @@
+package com.jeff.hotel_management_system.controller;
+
+import com.jeff.hotel_management_system.entity.PricingRule;
+import com.jeff.hotel_management_system.service.PricingRuleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/pricing-rules")
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Pricing Rule API", description = "Operations for managing dynamic pricing rules (Admin only)")
+public class PricingRuleController {
+
+    @Autowired
+    private PricingRuleService pricingRuleService;
+
+    @GetMapping
+    @Operation(
+            summary = "Get all pricing rules",
+            description = "Retrieve a list of all pricing rules, active or not",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "List of pricing rules retrieved successfully",
+                            content = @Content(schema = @Schema(implementation = PricingRule.class))
+                    )
+            }
+    )
+    public ResponseEntity<List<PricingRule>> getAllRules() {
+        return ResponseEntity.ok(pricingRuleService.getAllRules());
+    }
+
+    @GetMapping("/{id}")
+    @Operation(
+            summary = "Get pricing rule by id",
+            description = "Retrieve a pricing rule by its id",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Pricing rule found",
+                            content = @Content(schema = @Schema(implementation = PricingRule.class))
+                    )
+            }
+    )
+    public ResponseEntity<PricingRule> getRuleById(
+            @Parameter(description = "Id of the pricing rule to retrieve", required = true, example = "1")
+            @PathVariable Long id
+    ) {
+        return pricingRuleService.getRuleById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping
+    @Operation(
+            summary = "Create a new pricing rule",
+            description = "Create a pricing rule, prices are recompiled once it is saved",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "201",
+                            description = "Pricing rule created successfully",
+                            content = @Content(schema = @Schema(implementation = PricingRule.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Missing rule type, unknown weekday, empty date range or multiplier not above 0"
+                    )
+            }
+    )
+    public ResponseEntity<PricingRule> createRule(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Pricing rule to create",
+                    required = true,
+                    content = @Content(schema = @Schema(implementation = PricingRule.class))
+            )
+            @RequestBody PricingRule rule
+    ) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(pricingRuleService.createRule(rule));
+    }
+
+    @PutMapping("/{id}")
+    @Operation(
+            summary = "Update a pricing rule",
+            description = "Update an existing pricing rule by its id",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Pricing rule updated successfully",
+                            content = @Content(schema = @Schema(implementation = PricingRule.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Missing rule type, unknown weekday, empty date range or multiplier not above 0"
+                    )
+            }
+    )
+    public ResponseEntity<?> updateRule(
+            @Parameter(description = "Id of the pricing rule to update", required = true, example = "1")
+            @PathVariable Long id,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Updated pricing rule",
+                    required = true,
+                    content = @Content(schema = @Schema(implementation = PricingRule.class))
+            )
+            @RequestBody PricingRule updatedRule
+    ) {
+        return pricingRuleService.updateRule(id, updatedRule)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(
+            summary = "Delete a pricing rule",
+            description = "Delete a pricing rule by its id",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Pricing rule deleted successfully"
+                    )
+            }
+    )
+    public ResponseEntity<String> deleteRule(
+            @Parameter(description = "Id of the pricing rule to delete", required = true, example = "1")
+            @PathVariable Long id
+    ) {
+        boolean deleted = pricingRuleService.deleteRule(id);
+        return deleted ? ResponseEntity.ok("Pricing rule deleted successfully") : ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body("Pricing rule not found");
+    }
+}
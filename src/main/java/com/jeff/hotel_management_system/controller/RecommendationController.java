@@ -3,12 +3,17 @@ package com.jeff.hotel_management_system.controller;
 import com.jeff.hotel_management_system.service.RecommendationService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 import java.time.LocalDate;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -48,4 +53,34 @@ public class RecommendationController {
         LocalDate end = LocalDate.parse(endDate);
         return ResponseEntity.ok(recommendationService.recommendRooms(start, end, minOccupancy, preferences));
     }
-}
\ No newline at end of file
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "Stream a room recommendation",
+            description = "Same as the recommendation endpoint, but streams the answer as server-sent events while "
+                    + "the model generates it. Each 'token' event carries the next chunk of text, a final 'done' event "
+                    + "marks the end of the answer.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Room recommendation streamed successfully"),
+            }
+    )
+    public Flux<ServerSentEvent<String>> streamRecommendation(
+            @Parameter(description = "Start date of the booking (format: yyyy-MM-dd)", required = true, example = "2023-10-01")
+            @RequestParam String startDate,
+
+            @Parameter(description = "End date of the booking (format: yyyy-MM-dd)", required = true, example = "2023-10-05")
+            @RequestParam String endDate,
+
+            @Parameter(description = "Minimum occupancy required for the room", required = true, example = "2")
+            @RequestParam int minOccupancy,
+
+            @Parameter(description = "Client preferences for the room (e.g., 'quiet', 'near elevator')", required = true, example = "quiet, near elevator")
+            @RequestParam String preferences
+    ) {
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate end = LocalDate.parse(endDate);
+        return recommendationService.streamRecommendations(start, end, minOccupancy, preferences)
+                .map(token -> ServerSentEvent.builder(token).event("token").build())
+                .concatWith(Mono.just(ServerSentEvent.builder("").event("done").build()));
+    }
+}
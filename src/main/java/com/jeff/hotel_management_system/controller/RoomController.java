@@ -1,14 +1,19 @@
 package com.jeff.hotel_management_system.controller;
 
+import com.jeff.hotel_management_system.dto.ImportResultDto;
 import com.jeff.hotel_management_system.dto.RoomResponseDto;
 import com.jeff.hotel_management_system.entity.Room;
+import com.jeff.hotel_management_system.service.BulkImportService;
 import com.jeff.hotel_management_system.service.RoomService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.List;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -27,6 +32,9 @@ public class RoomController {
     @Autowired
     private RoomService roomService;
 
+    @Autowired
+    private BulkImportService bulkImportService;
+
     @GetMapping
     @Operation(
             summary = "Get all rooms",
@@ -89,6 +97,30 @@ public class RoomController {
                 .body(roomService.createRoom(room));
     }
 
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @Operation(
+            summary = "Import rooms in bulk",
+            description = "Creates or updates the rooms of a CSV file with a header row, or of newline-delimited JSON, " +
+                    "with the fields of a room. Nothing is imported if any row is invalid.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Rooms imported successfully",
+                            content = @Content(schema = @Schema(implementation = ImportResultDto.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Some rows are invalid, the first errors are listed"
+                    )
+            }
+    )
+    public ResponseEntity<ImportResultDto> importRooms(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body
+    ) {
+        return ResponseEntity.ok(bulkImportService.importRooms(body, BulkImportService.Format.of(contentType)));
+    }
+
     @PutMapping("/{roomnr}")
     @Operation(
             summary = "Update a room",
@@ -1,9 +1,7 @@
 package com.jeff.hotel_management_system.controller;
 
-import com.jeff.hotel_management_system.entity.Booking;
-import com.jeff.hotel_management_system.entity.BookingId;
-import com.jeff.hotel_management_system.service.BookingService;
 import com.jeff.hotel_management_system.service.StripeService;
+import com.jeff.hotel_management_system.service.StripeWebhookInbox;
 import com.stripe.exception.SignatureVerificationException;
 import com.stripe.exception.StripeException;
 import com.stripe.model.Event;
@@ -15,7 +13,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -33,7 +30,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class StripeController {
 
     @Autowired
-    private BookingService bookingService;
+    private StripeWebhookInbox stripeWebhookInbox;
 
     @Autowired
     private StripeService stripeService;
@@ -44,11 +41,11 @@ public class StripeController {
     @PostMapping("/webhook")
     @Operation(
             summary = "Handle Stripe webhook events",
-            description = "Processes Stripe webhook events, such as successful payments",
+            description = "Verifies and stores Stripe webhook events, such as successful payments, for asynchronous processing",
             responses = {
                     @ApiResponse(
                             responseCode = "200",
-                            description = "Webhook processed successfully",
+                            description = "Webhook received, or already received before",
                             content = @Content(schema = @Schema(implementation = String.class))
                     )
             }
@@ -77,29 +74,11 @@ public class StripeController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid signature");
         }
 
-        if ("checkout.session.completed".equals(event.getType())) {
-            Session session = (Session) event.getDataObjectDeserializer().getObject().orElse(null);
-
-            if (session != null) {
-                // Retrieve booking information from session metadata
-                String roomNr = session.getMetadata().get("roomNr");
-                String startDate = session.getMetadata().get("startDate");
-                String endDate = session.getMetadata().get("endDate");
-                String emailUser = session.getMetadata().get("emailUser");
-                Long price = Long.valueOf(session.getAmountTotal()) / 100; // Convert cents to dollars
-
-                // Create booking object
-                Booking booking = new Booking();
-                booking.setId(new BookingId(LocalDate.parse(startDate), roomNr));
-                booking.setPrice(price);
-                booking.setEndDate(LocalDate.parse(endDate));
-
-                // Save the booking in the database
-                bookingService.createBooking(booking, emailUser, roomNr);
-            }
-        }
+        // Acknowledge as soon as the event is stored, bookings are created by the inbox workers.
+        // A redelivered event is already in the inbox and is acknowledged again without side effects.
+        stripeWebhookInbox.append(event, payload);
 
-        return ResponseEntity.ok("Webhook processed");
+        return ResponseEntity.ok("Webhook received");
     }
 
     @GetMapping("/get-session")
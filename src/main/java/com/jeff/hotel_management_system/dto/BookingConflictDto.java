@@ -0,0 +1,20 @@
+package com.jeff.hotel_management_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingConflictDto {
+    private String roomNr;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private List<DateRange> conflicts; // filled in by the server, existing stays overlapping the range
+}
@@ -0,0 +1,21 @@
+package com.jeff.hotel_management_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingPageDto {
+    private List<BookingSummaryDto> bookings;
+
+    // Cursor of the next page, both null on the last page
+    private LocalDate nextStartDate;
+    private String nextRoomNr;
+}
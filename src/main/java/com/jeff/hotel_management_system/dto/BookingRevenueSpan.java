@@ -0,0 +1,9 @@
+package com.jeff.hotel_management_system.dto;
+
+/**
+ * Projection of the booked nights of a room, [startDate, endDate), and what was paid for them.
+ */
+public interface BookingRevenueSpan extends BookingSpan {
+
+    Long getPrice();
+}
@@ -0,0 +1,15 @@
+package com.jeff.hotel_management_system.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Projection of the booked nights of a room, [startDate, endDate).
+ */
+public interface BookingSpan {
+
+    String getRoomNr();
+
+    LocalDate getStartDate();
+
+    LocalDate getEndDate();
+}
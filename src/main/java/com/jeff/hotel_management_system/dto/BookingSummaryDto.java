@@ -0,0 +1,21 @@
+package com.jeff.hotel_management_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+// Flat booking row for listings, without the embedded Room and Client entities
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingSummaryDto {
+    private Long price;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String roomNr;
+    private String clientEmail;
+}
@@ -13,4 +13,5 @@ public class CheckoutRequest {
     private String successUrl;
     private String cancelUrl;
     private Long amount;
+    private String holdId; // room hold released once the session is paid or expires
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.jeff.hotel_management_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DateRange {
+    private LocalDate startDate; // inclusive
+    private LocalDate endDate; // exclusive, the checkout day
+}
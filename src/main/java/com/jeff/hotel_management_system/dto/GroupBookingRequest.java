@@ -0,0 +1,20 @@
+package com.jeff.hotel_management_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupBookingRequest {
+    private List<String> roomNrs; // every room is booked for the same stay
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String clientEmail; // admin bookings only, clients always book for themselves
+}
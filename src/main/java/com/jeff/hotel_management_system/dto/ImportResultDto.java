@@ -0,0 +1,18 @@
+package com.jeff.hotel_management_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResultDto {
+    private long imported;
+    private long rejected;
+    private List<String> errors; // the first rejected rows, as "line n: reason"
+}
@@ -0,0 +1,19 @@
+package com.jeff.hotel_management_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccupancyPointDto {
+    private LocalDate date; // first day of the bucket
+    private long roomNights;
+    private long revenue;
+    private double occupancy; // booked share of the room-nights in the bucket, 0 to 1
+}
@@ -0,0 +1,21 @@
+package com.jeff.hotel_management_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccupancyReportDto {
+    private LocalDate from;
+    private LocalDate to; // exclusive
+    private String groupBy;
+    private String bucket;
+    private List<OccupancySeriesDto> series;
+}
@@ -0,0 +1,21 @@
+package com.jeff.hotel_management_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccupancySeriesDto {
+    private String key; // "all", a room type or a floor number
+    private int rooms;
+    private long roomNights;
+    private long revenue;
+    private double occupancy;
+    private List<OccupancyPointDto> points;
+}
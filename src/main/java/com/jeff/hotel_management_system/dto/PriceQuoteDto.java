@@ -0,0 +1,19 @@
+package com.jeff.hotel_management_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceQuoteDto {
+    private String roomNr;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Long price;
+}
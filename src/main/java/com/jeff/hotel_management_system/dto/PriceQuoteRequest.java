@@ -0,0 +1,17 @@
+package com.jeff.hotel_management_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceQuoteRequest {
+    private List<String> roomNrs;
+    private List<DateRange> ranges; // every room is quoted for every range
+}
@@ -16,6 +16,9 @@ import java.time.LocalDate;
 @Table(name = "Booking")
 public class Booking {
 
+    // enforced by the booking_max_stay check, lets overlap queries bound start_date from below
+    public static final int MAX_STAY_NIGHTS = 365;
+
     // composite primary key
     @EmbeddedId
     private BookingId id;
@@ -23,11 +26,12 @@ public class Booking {
     @Column(nullable = false, scale = 2, precision = 10)
     private Long price;
 
-    @ManyToOne
+    // lazy, listings use the projections in BookingRepository
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "client_email", nullable = false)
     private Client client;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "room_nr", insertable = false, updatable = false, nullable = false)
     private Room room;
 
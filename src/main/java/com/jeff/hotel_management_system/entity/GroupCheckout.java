@@ -0,0 +1,52 @@
+package com.jeff.hotel_management_system.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+// Rooms and prices of a group checkout session, whose metadata only carries the id
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "GroupCheckout")
+public class GroupCheckout {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "client_email", nullable = false)
+    private String clientEmail;
+
+    @Column(name = "room_nrs", nullable = false, columnDefinition = "text")
+    private String roomNrs; // comma separated, e.g. 101,102
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String prices; // comma separated, in the order of roomNrs
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public List<String> roomNrList() {
+        return List.of(roomNrs.split(","));
+    }
+
+    public long[] priceArray() {
+        return Arrays.stream(prices.split(",")).mapToLong(Long::parseLong).toArray();
+    }
+}
@@ -18,11 +18,12 @@ public class Occupies {
     @EmbeddedId
     private OccupiesId id;
 
-    @ManyToOne
+    // lazy, listings use the projection in OccupiesRepository
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "client_email", nullable = false, insertable = false, updatable = false)
     private Client client;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumns({
             @JoinColumn(name = "booking_start_date", referencedColumnName = "start_date", insertable = false, updatable = false),
             @JoinColumn(name = "booking_room_nr", referencedColumnName = "room_nr", insertable = false, updatable = false)
@@ -0,0 +1,67 @@
+package com.jeff.hotel_management_system.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "PricingRule")
+public class PricingRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "rule_type", nullable = false, length = 20)
+    private PricingRuleType ruleType;
+
+    @Column(name = "room_type", length = 50)
+    private String roomType; // null applies the rule to every room type
+
+    @Column(nullable = false)
+    private double multiplier; // e.g., 1.2 for +20%, 0.9 for -10%
+
+    @Column(nullable = false)
+    private boolean active;
+
+    // SEASONAL: nights in [startDate, endDate)
+    @Column(name = "start_date")
+    private LocalDate startDate;
+
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    // WEEKDAY: e.g., "FRIDAY,SATURDAY"
+    @Column(name = "days_of_week", length = 100)
+    private String daysOfWeek;
+
+    // LENGTH_OF_STAY: the rule with the highest threshold reached wins
+    @Column(name = "min_nights")
+    private Integer minNights;
+
+    // OCCUPANCY: 0.0 to 1.0, the rule with the highest threshold reached wins
+    @Column(name = "min_occupancy_rate")
+    private Double minOccupancyRate;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
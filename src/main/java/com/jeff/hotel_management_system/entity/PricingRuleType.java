@@ -0,0 +1,8 @@
+package com.jeff.hotel_management_system.entity;
+
+public enum PricingRuleType {
+    SEASONAL, // nights between startDate and endDate
+    WEEKDAY, // nights falling on one of daysOfWeek
+    LENGTH_OF_STAY, // whole stays of at least minNights
+    OCCUPANCY // nights where the booked share of rooms is at least minOccupancyRate
+}
@@ -0,0 +1,9 @@
+package com.jeff.hotel_management_system.entity;
+
+public enum StripeEventStatus {
+    PENDING, // received, waiting for a worker
+    PROCESSED, // its effects are committed, redeliveries are ignored
+    FAILED, // gave up after stripe.webhook.max-attempts
+    REFUNDED, // a paid checkout could not be booked, the payment was refunded
+    REFUND_REQUIRED // as REFUNDED, but the refund failed and has to be issued by hand
+}
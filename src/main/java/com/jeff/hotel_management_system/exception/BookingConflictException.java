@@ -0,0 +1,9 @@
+package com.jeff.hotel_management_system.exception;
+
+public class BookingConflictException extends RuntimeException {
+
+    public BookingConflictException(String message) {
+
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package com.jeff.hotel_management_system.exception;
+
+import com.jeff.hotel_management_system.dto.ImportResultDto;
+
+/**
+ * Thrown when a bulk import contains invalid rows, so nothing of it is written.
+ */
+public class ImportRejectedException extends RuntimeException {
+
+    private final ImportResultDto result;
+
+    public ImportRejectedException(ImportResultDto result) {
+
+        super(result.getRejected() + " rows were rejected, nothing was imported");
+        this.result = result;
+    }
+
+    public ImportResultDto getResult() {
+        return result;
+    }
+}
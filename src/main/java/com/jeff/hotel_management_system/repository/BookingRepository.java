@@ -1,20 +1,43 @@
 package com.jeff.hotel_management_system.repository;
 
+import com.jeff.hotel_management_system.dto.BookingDto;
+import com.jeff.hotel_management_system.dto.BookingRevenueSpan;
+import com.jeff.hotel_management_system.dto.BookingSpan;
+import com.jeff.hotel_management_system.dto.BookingSummaryDto;
 import com.jeff.hotel_management_system.entity.Booking;
 import com.jeff.hotel_management_system.entity.BookingId;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface BookingRepository extends JpaRepository<Booking, BookingId> {
     // BookingId corresponds to the type of the composite primary key
 
     List<Booking> findByClientEmail(String email);
 
+    // a client's bookings with their rooms in a single query
+    @Query("SELECT new com.jeff.hotel_management_system.dto.BookingDto(" +
+            "b.price, b.id.startDate, b.endDate, b.id.roomNr, b.client.email, r) " +
+            "FROM Booking b JOIN b.room r WHERE b.client.email = :email ORDER BY b.id.startDate, b.id.roomNr")
+    List<BookingDto> findDtosByClientEmail(@Param("email") String email);
+
+    // for responses that serialize the whole booking, client and room are joined instead of proxied
+    @EntityGraph(attributePaths = {"client", "room"})
+    @Query("SELECT b FROM Booking b WHERE b.id = :id")
+    Optional<Booking> findWithClientAndRoomById(@Param("id") BookingId id);
+
     // for composite key
     @Query("SELECT b FROM Booking b WHERE b.id.startDate = :startDate AND b.id.roomNr = :roomNr")
     Optional<Booking> findByStartDateAndRoomNr(
@@ -22,4 +45,87 @@ public interface BookingRepository extends JpaRepository<Booking, BookingId> {
             @Param("roomNr") String roomNr
     );
 
+    // booked nights still running on or after the given date, used to build the availability index
+    default List<BookingSpan> findSpansEndingAfter(LocalDate from) {
+        return findSpansEndingAfter(from, from.minusDays(Booking.MAX_STAY_NIGHTS));
+    }
+
+    // the bound on start_date is implied by the end date but lets Postgres skip older partitions
+    @Query("SELECT b.id.roomNr AS roomNr, b.id.startDate AS startDate, b.endDate AS endDate " +
+            "FROM Booking b WHERE b.id.startDate >= :earliestStart AND b.endDate > :from")
+    List<BookingSpan> findSpansEndingAfter(@Param("from") LocalDate from,
+                                           @Param("earliestStart") LocalDate earliestStart);
+
+    // stays of a room overlapping [startDate, endDate), in start order
+    default List<BookingSpan> findSpansOverlapping(String roomNr, LocalDate startDate, LocalDate endDate) {
+        return findSpansOverlapping(roomNr, startDate, endDate, startDate.minusDays(Booking.MAX_STAY_NIGHTS));
+    }
+
+    @Query("SELECT b.id.roomNr AS roomNr, b.id.startDate AS startDate, b.endDate AS endDate " +
+            "FROM Booking b WHERE b.id.roomNr = :roomNr AND b.id.startDate >= :earliestStart " +
+            "AND b.id.startDate < :endDate AND b.endDate > :startDate ORDER BY b.id.startDate")
+    List<BookingSpan> findSpansOverlapping(@Param("roomNr") String roomNr,
+                                           @Param("startDate") LocalDate startDate,
+                                           @Param("endDate") LocalDate endDate,
+                                           @Param("earliestStart") LocalDate earliestStart);
+
+    // keyset pagination on (start_date, room_nr), the primary key order
+    @Query("SELECT new com.jeff.hotel_management_system.dto.BookingSummaryDto(" +
+            "b.price, b.id.startDate, b.endDate, b.id.roomNr, b.client.email) " +
+            "FROM Booking b ORDER BY b.id.startDate, b.id.roomNr")
+    List<BookingSummaryDto> findFirstSummaries(Limit limit);
+
+    @Query("SELECT new com.jeff.hotel_management_system.dto.BookingSummaryDto(" +
+            "b.price, b.id.startDate, b.endDate, b.id.roomNr, b.client.email) " +
+            "FROM Booking b WHERE b.id.startDate > :startDate " +
+            "OR (b.id.startDate = :startDate AND b.id.roomNr > :roomNr) " +
+            "ORDER BY b.id.startDate, b.id.roomNr")
+    List<BookingSummaryDto> findSummariesAfter(
+            @Param("startDate") LocalDate startDate,
+            @Param("roomNr") String roomNr,
+            Limit limit
+    );
+
+    // server-side cursor, must be consumed inside a transaction and closed
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.jeff.hotel_management_system.dto.BookingSummaryDto(" +
+            "b.price, b.id.startDate, b.endDate, b.id.roomNr, b.client.email) " +
+            "FROM Booking b ORDER BY b.id.startDate, b.id.roomNr")
+    Stream<BookingSummaryDto> streamAllSummaries();
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b.id.roomNr AS roomNr, b.id.startDate AS startDate, b.endDate AS endDate, b.price AS price " +
+            "FROM Booking b")
+    Stream<BookingRevenueSpan> streamRevenueSpans();
+
+    // bookings of the months moved to booking_archive, see V3__partition_booking.sql.
+    // The aliases are quoted, Postgres folds unquoted ones to lower case.
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT b ->> 'room_nr' AS \"roomNr\", CAST(b ->> 'start_date' AS date) AS \"startDate\", " +
+            "CAST(b ->> 'end_date' AS date) AS \"endDate\", CAST(b ->> 'price' AS bigint) AS price " +
+            "FROM booking_archive a CROSS JOIN jsonb_array_elements(a.bookings) b", nativeQuery = true)
+    Stream<BookingRevenueSpan> streamArchivedRevenueSpans();
+
+    // partition maintenance, see V3__partition_booking.sql
+
+    // held until the end of the transaction, nodes maintaining the partitions at the same time take turns
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext('booking_partition_maintenance'))", nativeQuery = true)
+    int lockPartitionMaintenance();
+
+    @Query(value = "SELECT create_booking_partitions(:fromMonth, :toMonth)", nativeQuery = true)
+    int createPartitions(@Param("fromMonth") LocalDate fromMonth, @Param("toMonth") LocalDate toMonth);
+
+    @Query(value = "SELECT archive_booking_partitions(:cutoff)", nativeQuery = true)
+    int archivePartitionsBefore(@Param("cutoff") LocalDate cutoff);
+
+    // as yyyy-MM
+    @Query(value = "SELECT to_char(month, 'YYYY-MM') FROM booking_archive", nativeQuery = true)
+    List<String> findArchivedMonths();
+
 }
\ No newline at end of file
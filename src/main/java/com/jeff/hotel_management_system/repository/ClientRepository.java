@@ -2,7 +2,9 @@ package com.jeff.hotel_management_system.repository;
 
 import com.jeff.hotel_management_system.entity.Client;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface ClientRepository extends JpaRepository<Client, String> {
@@ -11,4 +13,7 @@ public interface ClientRepository extends JpaRepository<Client, String> {
 
     boolean existsByEmail(String email);
 
+    @Query("SELECT c.email FROM Client c")
+    List<String> findAllEmails();
+
 }
\ No newline at end of file
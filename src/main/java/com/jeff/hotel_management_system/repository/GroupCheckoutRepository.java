@@ -0,0 +1,18 @@
+package com.jeff.hotel_management_system.repository;
+
+import com.jeff.hotel_management_system.entity.GroupCheckout;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface GroupCheckoutRepository extends JpaRepository<GroupCheckout, String> {
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM GroupCheckout g WHERE g.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
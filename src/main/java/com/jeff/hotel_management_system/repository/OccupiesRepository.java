@@ -1,9 +1,19 @@
 package com.jeff.hotel_management_system.repository;
 
+import com.jeff.hotel_management_system.dto.OccupiesDto;
 import com.jeff.hotel_management_system.entity.Occupies;
 import com.jeff.hotel_management_system.entity.OccupiesId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface OccupiesRepository extends JpaRepository<Occupies, OccupiesId> {
     // OccupiesId corresponds to the type of the composite primary key
-}
\ No newline at end of file
+
+    // the listing only needs the key columns, so neither the client nor the booking is loaded
+    @Query("SELECT new com.jeff.hotel_management_system.dto.OccupiesDto(" +
+            "o.id.clientEmail, o.id.bookingStartDate, o.id.bookingRoomNr) " +
+            "FROM Occupies o ORDER BY o.id.bookingStartDate, o.id.bookingRoomNr, o.id.clientEmail")
+    List<OccupiesDto> findAllDtos();
+}
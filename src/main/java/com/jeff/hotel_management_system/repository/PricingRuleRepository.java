@@ -0,0 +1,17 @@
+package com.jeff.hotel_management_system.repository;
+
+import com.jeff.hotel_management_system.entity.PricingRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PricingRuleRepository extends JpaRepository<PricingRule, Long> {
+
+    List<PricingRule> findByActiveTrue();
+
+    // changes whenever a rule is added or edited, together with count() it detects deletions too
+    @Query("SELECT MAX(r.updatedAt) FROM PricingRule r")
+    LocalDateTime findLastUpdate();
+}
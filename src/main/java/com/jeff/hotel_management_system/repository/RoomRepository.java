@@ -12,12 +12,19 @@ import java.util.Optional;
 public interface RoomRepository extends JpaRepository<Room, String> {
 
 
-        @Query("SELECT r FROM Room r WHERE r.maxOccupancy >= :minOccupancy AND r.roomNr NOT IN " +
-                "(SELECT b.id.roomNr FROM Booking b WHERE b.id.startDate < :endDate AND b.endDate > :startDate)")
+        // the daterange overlap test is answered by the booking_room_stay_gist index; the start_date
+        // bounds, with 365 the longest stay allowed by booking_max_stay, prune the partitions
+        @Query(value = "SELECT r.* FROM room r WHERE r.max_occ >= :minOccupancy AND NOT EXISTS " +
+                "(SELECT 1 FROM booking b WHERE b.room_nr = r.room_nr " +
+                "AND b.start_date > CAST(:startDate AS date) - 365 AND b.start_date < :endDate " +
+                "AND daterange(b.start_date, b.end_date) && daterange(:startDate, :endDate))",
+                nativeQuery = true)
         List<Room> findAvailableRooms(@Param("startDate") LocalDate startDate,
                                       @Param("endDate") LocalDate endDate,
                                       @Param("minOccupancy") int minOccupancy);
 
 
         Optional<Room> findByRoomNr(String roomNr);
+
+        List<Room> findByMaxOccupancyGreaterThanEqual(int minOccupancy);
 }
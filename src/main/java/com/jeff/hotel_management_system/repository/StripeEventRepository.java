@@ -0,0 +1,35 @@
+package com.jeff.hotel_management_system.repository;
+
+import com.jeff.hotel_management_system.entity.StripeEvent;
+import com.jeff.hotel_management_system.entity.StripeEventStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface StripeEventRepository extends JpaRepository<StripeEvent, String> {
+
+    // returns 0 for an event that was already received, so redeliveries cost a single statement
+    @Modifying
+    @Query(value = "INSERT INTO stripe_event (id, event_type, payload, status, attempts, received_at) " +
+            "VALUES (:id, :eventType, :payload, 'PENDING', 0, :receivedAt) ON CONFLICT (id) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("id") String id,
+                       @Param("eventType") String eventType,
+                       @Param("payload") String payload,
+                       @Param("receivedAt") LocalDateTime receivedAt);
+
+    @Query("SELECT e.id FROM StripeEvent e WHERE e.status = :status ORDER BY e.receivedAt")
+    List<String> findIdsByStatus(@Param("status") StripeEventStatus status, Limit limit);
+
+    // SKIP LOCKED (-2): an event being processed by another worker or node is left alone
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM StripeEvent e WHERE e.id = :id AND e.status = :status")
+    Optional<StripeEvent> lockByIdAndStatus(@Param("id") String id, @Param("status") StripeEventStatus status);
+}
@@ -8,6 +8,7 @@ import com.jeff.hotel_management_system.repository.AdminRepository;
 import com.jeff.hotel_management_system.repository.BankAccountRepository;
 import com.jeff.hotel_management_system.repository.ClientRepository;
 import com.jeff.hotel_management_system.repository.CreditCardRepository;
+import com.jeff.hotel_management_system.utils.TokenWhitelistRedisCacheClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -28,6 +29,9 @@ public class AccountService {
     @Autowired
     private AdminRepository adminRepository;
 
+    @Autowired
+    private TokenWhitelistRedisCacheClient tokenWhitelistRedisCacheClient;
+
     /**
      * Get account details for the current user.
      */
@@ -216,6 +220,8 @@ public class AccountService {
             creditCardRepository.deleteById(email);
             bankAccountRepository.deleteById(email);
             clientRepository.deleteById(email);
+            // tokens carry the role, so they must be revoked for the account to lose access
+            this.tokenWhitelistRedisCacheClient.delete(email);
         } else {
             throw new IllegalArgumentException("Account not found for email: " + email);
         }
@@ -0,0 +1,231 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.config.PrimaryRead;
+import com.jeff.hotel_management_system.dto.BookingSpan;
+import com.jeff.hotel_management_system.entity.Booking;
+import com.jeff.hotel_management_system.repository.BookingRepository;
+import com.jeff.hotel_management_system.utils.TransactionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory room-night availability index.
+ *
+ * Every room owns a bitset with one bit per night over a rolling horizon starting today;
+ * a set bit means the night is booked. A range is free when the OR of its words is zero,
+ * so availability checks never touch the database. The index is rebuilt from the Booking
+ * table at startup and every night, and kept current by BookingService after each commit and by
+ * the changes other nodes publish on BookingIntervalIndex.CHANGE_CHANNEL.
+ */
+@Service
+public class AvailabilityIndex {
+
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Value("${hotel.availability.horizon-days:730}")
+    private int horizonDays;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // bumped on every mutation so a rebuild can detect writes that raced with its snapshot
+    private final AtomicLong modCount = new AtomicLong();
+
+    private Map<String, long[]> nights = new HashMap<>();
+
+    private long originDay;
+
+    private volatile boolean ready = false;
+
+    // runs before the other startup listeners, pricing reads occupancy from the index
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Scheduled(cron = "${hotel.availability.rebuild-cron:0 5 0 * * *}")
+    @PrimaryRead
+    public void rebuild() {
+        for (int attempt = 0; attempt < MAX_REBUILD_ATTEMPTS; attempt++) {
+            long seen = modCount.get();
+            long origin = LocalDate.now().toEpochDay();
+
+            Map<String, long[]> snapshot = new HashMap<>();
+            for (BookingSpan span : bookingRepository.findSpansEndingAfter(LocalDate.ofEpochDay(origin))) {
+                long[] words = snapshot.computeIfAbsent(span.getRoomNr(), roomNr -> new long[wordCount()]);
+                setRange(words, origin, span.getStartDate(), span.getEndDate(), true);
+            }
+
+            lock.writeLock().lock();
+            try {
+                if (modCount.get() == seen) {
+                    this.nights = snapshot;
+                    this.originDay = origin;
+                    this.ready = true;
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        // bookings kept changing under us, leave the previous index in place until the next run
+    }
+
+    /**
+     * Whether the index can answer for the given range; callers fall back to the database otherwise.
+     */
+    public boolean covers(LocalDate startDate, LocalDate endDate) {
+        if (!ready || !startDate.isBefore(endDate)) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return startDate.toEpochDay() >= originDay && endDate.toEpochDay() <= originDay + horizonDays;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns true if no night in [startDate, endDate) is booked for the room.
+     * Rooms without any booking are not tracked and are always available.
+     */
+    public boolean isAvailable(String roomNr, LocalDate startDate, LocalDate endDate) {
+        lock.readLock().lock();
+        try {
+            long[] words = nights.get(roomNr);
+            if (words == null) {
+                return true;
+            }
+            int from = (int) Math.max(0, startDate.toEpochDay() - originDay);
+            int to = (int) Math.min((long) horizonDays, endDate.toEpochDay() - originDay);
+            if (from >= to) {
+                return true;
+            }
+
+            int firstWord = from >>> 6;
+            int lastWord = (to - 1) >>> 6;
+            long firstMask = -1L << from;
+            long lastMask = -1L >>> -to;
+
+            if (firstWord == lastWord) {
+                return (words[firstWord] & firstMask & lastMask) == 0;
+            }
+            long booked = words[firstWord] & firstMask;
+            for (int i = firstWord + 1; i < lastWord; i++) {
+                booked |= words[i];
+            }
+            booked |= words[lastWord] & lastMask;
+            return booked == 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of booked rooms for each of nightCount nights starting at the given date.
+     * Nights outside the horizon count as empty.
+     */
+    public int[] bookedRoomsPerNight(LocalDate from, int nightCount) {
+        int[] counts = new int[nightCount];
+        lock.readLock().lock();
+        try {
+            long shift = from.toEpochDay() - originDay;
+            for (long[] words : nights.values()) {
+                for (int i = 0; i < words.length; i++) {
+                    long word = words[i];
+                    while (word != 0) {
+                        long night = ((long) i << 6) + Long.numberOfTrailingZeros(word) - shift;
+                        if (night >= 0 && night < counts.length) {
+                            counts[(int) night]++;
+                        }
+                        word &= word - 1;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return counts;
+    }
+
+    public void reserve(Booking booking) {
+        reserve(booking.getId().getRoomNr(), booking.getId().getStartDate(), booking.getEndDate());
+    }
+
+    public void release(Booking booking) {
+        release(booking.getId().getRoomNr(), booking.getId().getStartDate(), booking.getEndDate());
+    }
+
+    // The index must only reflect committed bookings, so changes are deferred while a transaction is open.
+    public void reserve(String roomNr, LocalDate startDate, LocalDate endDate) {
+        TransactionUtils.afterCommit(() -> update(roomNr, startDate, endDate, true));
+    }
+
+    public void release(String roomNr, LocalDate startDate, LocalDate endDate) {
+        TransactionUtils.afterCommit(() -> update(roomNr, startDate, endDate, false));
+    }
+
+    /**
+     * Applies a booking change committed on another node, see BookingIntervalIndex.onChangeEvent.
+     */
+    public void onChangeEvent(String message) {
+        String[] parts = message.split("\\|");
+        if (BookingIntervalIndex.NODE_ID.equals(parts[4])) {
+            return;
+        }
+        update(parts[1], LocalDate.parse(parts[2]), LocalDate.parse(parts[3]), BookingIntervalIndex.BOOKED.equals(parts[0]));
+    }
+
+    private void update(String roomNr, LocalDate startDate, LocalDate endDate, boolean booked) {
+        lock.writeLock().lock();
+        try {
+            modCount.incrementAndGet();
+            long[] words = booked
+                    ? nights.computeIfAbsent(roomNr, key -> new long[wordCount()])
+                    : nights.get(roomNr);
+            if (words != null) {
+                setRange(words, originDay, startDate, endDate, booked);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Sets or clears the bits of [startDate, endDate), clipped to the horizon.
+    private void setRange(long[] words, long origin, LocalDate startDate, LocalDate endDate, boolean booked) {
+        int from = (int) Math.max(0, startDate.toEpochDay() - origin);
+        int to = (int) Math.min((long) words.length << 6, endDate.toEpochDay() - origin);
+        if (from >= to) {
+            return;
+        }
+
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        for (int i = firstWord; i <= lastWord; i++) {
+            long mask = -1L;
+            if (i == firstWord) {
+                mask &= -1L << from;
+            }
+            if (i == lastWord) {
+                mask &= -1L >>> -to;
+            }
+            words[i] = booked ? words[i] | mask : words[i] & ~mask;
+        }
+    }
+
+    private int wordCount() {
+        return (horizonDays + 63) >>> 6;
+    }
+}
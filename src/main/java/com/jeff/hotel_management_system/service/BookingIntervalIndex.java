@@ -0,0 +1,263 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.config.PrimaryRead;
+import com.jeff.hotel_management_system.dto.BookingSpan;
+import com.jeff.hotel_management_system.dto.DateRange;
+import com.jeff.hotel_management_system.exception.BookingConflictException;
+import com.jeff.hotel_management_system.repository.BookingRepository;
+import com.jeff.hotel_management_system.utils.TransactionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Per-room sorted set of non-overlapping [startDate, endDate) stays, keyed by start epoch day.
+ *
+ * Because the stays of a room never overlap, their end days are sorted as well, so the only
+ * stay that can overlap [s, e) is the one with the greatest start before e. An overlap check
+ * is therefore a single lowerEntry lookup. Reservations are claimed when the write happens
+ * and undone if the surrounding transaction rolls back, so two concurrent requests cannot
+ * both pass the check for the same nights.
+ *
+ * Only stays that have not ended are kept; the index is reloaded at startup and every night.
+ * Committed changes are published on CHANGE_CHANNEL so every node applies them, the nodes'
+ * AvailabilityIndex included. Stays in the past, or a change whose message was lost until the
+ * next reload, are left to the booking_no_overlap trigger.
+ */
+@Service
+public class BookingIntervalIndex {
+
+    public static final String CHANGE_CHANNEL = "booking_index:changes";
+
+    public static final String BOOKED = "BOOKED";
+
+    public static final String RELEASED = "RELEASED";
+
+    // tells this node's messages apart, it has applied them already
+    public static final String NODE_ID = UUID.randomUUID().toString();
+
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    // changes hold the read lock, swapping in a reloaded map takes the write lock
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    // bumped on every change so a reload can detect writes that raced with its snapshot
+    private final AtomicLong modCount = new AtomicLong();
+
+    private volatile Map<String, TreeMap<Long, Long>> rooms = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${hotel.availability.rebuild-cron:0 5 0 * * *}")
+    @PrimaryRead
+    public void load() {
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            long seen = modCount.get();
+            Map<String, TreeMap<Long, Long>> snapshot = new ConcurrentHashMap<>();
+            for (BookingSpan span : bookingRepository.findSpansEndingAfter(LocalDate.now())) {
+                snapshot.computeIfAbsent(span.getRoomNr(), key -> new TreeMap<>())
+                        .put(span.getStartDate().toEpochDay(), span.getEndDate().toEpochDay());
+            }
+
+            swapLock.writeLock().lock();
+            try {
+                if (modCount.get() == seen) {
+                    this.rooms = snapshot;
+                    return;
+                }
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        }
+        // stays kept changing under us, keep the current index until the next run
+    }
+
+    public boolean hasConflict(String roomNr, LocalDate startDate, LocalDate endDate) {
+        TreeMap<Long, Long> stays = stays(roomNr);
+        synchronized (stays) {
+            return overlapping(stays, startDate.toEpochDay(), endDate.toEpochDay()) != null;
+        }
+    }
+
+    /**
+     * Returns every stay of the room overlapping the given range, in start order.
+     */
+    public List<DateRange> findConflicts(String roomNr, DateRange range) {
+        long start = range.getStartDate().toEpochDay();
+        long end = range.getEndDate().toEpochDay();
+        List<DateRange> conflicts = new ArrayList<>();
+        if (start >= end) {
+            return conflicts;
+        }
+
+        TreeMap<Long, Long> stays = stays(roomNr);
+        synchronized (stays) {
+            // the stay starting before the range may still run into it
+            Long from = stays.floorKey(start);
+            NavigableMap<Long, Long> candidates = stays.subMap(from != null ? from : start, true, end, false);
+            candidates.forEach((stayStart, stayEnd) -> {
+                if (stayEnd > start) {
+                    conflicts.add(new DateRange(LocalDate.ofEpochDay(stayStart), LocalDate.ofEpochDay(stayEnd)));
+                }
+            });
+        }
+        return conflicts;
+    }
+
+    /**
+     * Claims the nights for a new stay, or throws if any of them is already taken.
+     */
+    public void reserve(String roomNr, LocalDate startDate, LocalDate endDate) {
+        long start = startDate.toEpochDay();
+        long end = endDate.toEpochDay();
+        if (start >= end) {
+            throw new IllegalArgumentException("End date must be after start date");
+        }
+        TreeMap<Long, Long> stays = change(roomNr, candidate -> {
+            Map.Entry<Long, Long> conflict = overlapping(candidate, start, end);
+            if (conflict != null) {
+                throw conflictException(roomNr, conflict);
+            }
+            candidate.put(start, end);
+        });
+
+        TransactionUtils.afterRollback(() -> change(stays, candidate -> candidate.remove(start, end)));
+        // also lands in a map reloaded while the transaction was open
+        TransactionUtils.afterCommit(() -> {
+            change(roomNr, candidate -> candidate.put(start, end));
+            publish(BOOKED, roomNr, start, end);
+        });
+    }
+
+    /**
+     * Moves the end of an existing stay, or throws if the new range runs into another stay.
+     */
+    public void resize(String roomNr, LocalDate startDate, LocalDate newEndDate) {
+        long start = startDate.toEpochDay();
+        long newEnd = newEndDate.toEpochDay();
+        if (start >= newEnd) {
+            throw new IllegalArgumentException("End date must be after start date");
+        }
+        Long[] oldEnd = new Long[1];
+        TreeMap<Long, Long> stays = change(roomNr, candidate -> {
+            oldEnd[0] = candidate.remove(start);
+            Map.Entry<Long, Long> conflict = overlapping(candidate, start, newEnd);
+            if (conflict != null) {
+                if (oldEnd[0] != null) {
+                    candidate.put(start, oldEnd[0]);
+                }
+                throw conflictException(roomNr, conflict);
+            }
+            candidate.put(start, newEnd);
+        });
+
+        TransactionUtils.afterRollback(() -> change(stays, candidate -> {
+            if (oldEnd[0] != null) {
+                candidate.replace(start, newEnd, oldEnd[0]);
+            } else {
+                candidate.remove(start, newEnd);
+            }
+        }));
+        TransactionUtils.afterCommit(() -> {
+            change(roomNr, candidate -> candidate.put(start, newEnd));
+            if (oldEnd[0] != null) {
+                publish(RELEASED, roomNr, start, oldEnd[0]);
+            }
+            publish(BOOKED, roomNr, start, newEnd);
+        });
+    }
+
+    public void release(String roomNr, LocalDate startDate, LocalDate endDate) {
+        long start = startDate.toEpochDay();
+        long end = endDate.toEpochDay();
+        TransactionUtils.afterCommit(() -> {
+            change(roomNr, candidate -> candidate.remove(start));
+            publish(RELEASED, roomNr, start, end);
+        });
+    }
+
+    /**
+     * Applies a change committed on another node, published on CHANGE_CHANNEL as
+     * "type|roomNr|startDate|endDate|nodeId".
+     */
+    public void onChangeEvent(String message) {
+        String[] parts = message.split("\\|");
+        if (NODE_ID.equals(parts[4])) {
+            return;
+        }
+        long start = LocalDate.parse(parts[2]).toEpochDay();
+        long end = LocalDate.parse(parts[3]).toEpochDay();
+        if (BOOKED.equals(parts[0])) {
+            change(parts[1], candidate -> candidate.put(start, end));
+        } else {
+            // leaves a newer stay starting the same day in place
+            change(parts[1], candidate -> candidate.remove(start, end));
+        }
+    }
+
+    private TreeMap<Long, Long> change(String roomNr, Consumer<TreeMap<Long, Long>> action) {
+        swapLock.readLock().lock();
+        try {
+            TreeMap<Long, Long> stays = stays(roomNr);
+            change(stays, action);
+            return stays;
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private void change(TreeMap<Long, Long> stays, Consumer<TreeMap<Long, Long>> action) {
+        synchronized (stays) {
+            modCount.incrementAndGet();
+            action.accept(stays);
+        }
+    }
+
+    private void publish(String type, String roomNr, long start, long end) {
+        try {
+            redisTemplate.convertAndSend(CHANGE_CHANNEL, String.join("|", type, roomNr,
+                    LocalDate.ofEpochDay(start).toString(), LocalDate.ofEpochDay(end).toString(), NODE_ID));
+        } catch (RuntimeException e) {
+            // the change is committed; the other nodes catch up at their next reload, the database trigger
+            // rejects what they would let through in the meantime
+        }
+    }
+
+    private TreeMap<Long, Long> stays(String roomNr) {
+        return rooms.computeIfAbsent(roomNr, key -> new TreeMap<>());
+    }
+
+    // The latest stay starting before end is the only one that can reach past start.
+    private Map.Entry<Long, Long> overlapping(TreeMap<Long, Long> stays, long start, long end) {
+        if (start >= end) {
+            return null;
+        }
+        Map.Entry<Long, Long> candidate = stays.lowerEntry(end);
+        return candidate != null && candidate.getValue() > start ? candidate : null;
+    }
+
+    private BookingConflictException conflictException(String roomNr, Map.Entry<Long, Long> conflict) {
+        return new BookingConflictException("Room " + roomNr + " is already booked from "
+                + LocalDate.ofEpochDay(conflict.getKey()) + " to " + LocalDate.ofEpochDay(conflict.getValue()));
+    }
+}
@@ -0,0 +1,46 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.repository.BookingRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+/**
+ * Maintains the monthly partitions of the Booking and Occupies tables.
+ *
+ * Partitions are created ahead of time, so new stays never land in the default partition.
+ * Months older than the retention period whose stays are all over are moved into
+ * booking_archive and dropped, which keeps the tables that searches scan small.
+ * The work itself is done by the database functions of V3__partition_booking.sql.
+ *
+ * Every node runs it at startup and on the cron, so it first takes a transaction-scoped advisory
+ * lock. A node that waited for it finds the work done, the functions skip existing partitions.
+ */
+@Service
+public class BookingPartitionService {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Value("${hotel.bookings.partition-months-ahead:25}")
+    private int monthsAhead;
+
+    @Value("${hotel.bookings.archive-after-months:12}")
+    private int archiveAfterMonths;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${hotel.bookings.partition-cron:0 30 0 * * *}")
+    @Transactional
+    public void maintain() {
+        bookingRepository.lockPartitionMaintenance();
+        LocalDate thisMonth = LocalDate.now().withDayOfMonth(1);
+        bookingRepository.createPartitions(thisMonth, thisMonth.plusMonths(monthsAhead));
+        bookingRepository.archivePartitionsBefore(thisMonth.minusMonths(archiveAfterMonths));
+    }
+}
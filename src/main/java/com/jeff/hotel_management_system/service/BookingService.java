@@ -1,23 +1,39 @@
 package com.jeff.hotel_management_system.service;
 
+import com.jeff.hotel_management_system.config.ReplicaRouter;
+import com.jeff.hotel_management_system.dto.BookingConflictDto;
 import com.jeff.hotel_management_system.dto.BookingDto;
+import com.jeff.hotel_management_system.dto.BookingPageDto;
+import com.jeff.hotel_management_system.dto.BookingSummaryDto;
+import com.jeff.hotel_management_system.dto.DateRange;
+import com.jeff.hotel_management_system.dto.GroupBookingRequest;
 import com.jeff.hotel_management_system.entity.*;
 import com.jeff.hotel_management_system.repository.BookingRepository;
 import com.jeff.hotel_management_system.repository.ClientRepository;
 import com.jeff.hotel_management_system.repository.OccupiesRepository;
-import com.jeff.hotel_management_system.repository.RoomRepository;
+import com.jeff.hotel_management_system.utils.TransactionUtils;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+@Observed(name = "hotel.service")
 @Transactional
 @Service
 public class BookingService {
@@ -35,33 +51,114 @@ public class BookingService {
     private PricingService pricingService;
 
     @Autowired
-    private RoomRepository roomRepository;
-
-    public List<BookingDto> getAllBookings() {
-
-        return bookingRepository.findAll().stream()
-                .map(booking -> new BookingDto(
-                        booking.getPrice(),
-                        booking.getId().getStartDate(),
-                        booking.getEndDate(),
-                        booking.getId().getRoomNr(),
-                        booking.getClient().getEmail(),
-                        booking.getRoom()
-                ))
-                .collect(Collectors.toList());
+    private RoomCache roomCache;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Autowired
+    private OccupancyAnalytics occupancyAnalytics;
+
+    @Autowired
+    private ReplicaRouter replicaRouter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${hotel.bookings.max-group-size:50}")
+    private int maxGroupSize;
+
+    @Value("${hotel.bookings.partition-months-ahead:25}")
+    private int partitionMonthsAhead;
+
+    @Value("${hotel.bookings.archive-after-months:12}")
+    private int archiveAfterMonths;
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Returns the bookings ordered by (startDate, roomNr) that come after the given cursor.
+     * Pass a null cursor for the first page.
+     */
+    @Transactional(readOnly = true)
+    public BookingPageDto getBookingsPage(LocalDate afterStartDate, String afterRoomNr, int size) {
+
+        Limit limit = Limit.of(Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        List<BookingSummaryDto> bookings = (afterStartDate == null || afterRoomNr == null)
+                ? bookingRepository.findFirstSummaries(limit)
+                : bookingRepository.findSummariesAfter(afterStartDate, afterRoomNr, limit);
+
+        if (bookings.size() < limit.max()) {
+            return new BookingPageDto(bookings, null, null);
+        }
+        BookingSummaryDto last = bookings.get(bookings.size() - 1);
+        return new BookingPageDto(bookings, last.getStartDate(), last.getRoomNr());
     }
 
+    /**
+     * Hands every booking to the action in (startDate, roomNr) order, reading from a database cursor
+     * so memory use does not grow with the table.
+     */
+    @Transactional(readOnly = true)
+    public void forEachBooking(Consumer<BookingSummaryDto> action) {
+
+        try (Stream<BookingSummaryDto> bookings = bookingRepository.streamAllSummaries()) {
+            bookings.forEach(action);
+        }
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Booking> getBookingById(BookingId bookingId) {
 
-        return bookingRepository.findById(bookingId);
+        return bookingRepository.findWithClientAndRoomById(bookingId);
     }
 
-    public List<Booking> findByClientEmail(String email) {
+    @Transactional(readOnly = true)
+    public List<BookingDto> findByClientEmail(String email) {
 
-        return bookingRepository.findByClientEmail(email);
+        return bookingRepository.findDtosByClientEmail(email);
     }
 
 
+    /**
+     * Fills in, for every requested room and range, the existing stays overlapping it.
+     *
+     * BookingIntervalIndex only holds stays that have not ended, so a range starting before today
+     * is looked up in the database. Months moved to booking_archive are not searched, ranges
+     * starting before them are rejected.
+     */
+    public List<BookingConflictDto> findConflicts(List<BookingConflictDto> requests) {
+        LocalDate today = LocalDate.now();
+        LocalDate archived = today.withDayOfMonth(1).minusMonths(archiveAfterMonths);
+        for (BookingConflictDto request : requests) {
+            if (request.getRoomNr() == null || request.getStartDate() == null || request.getEndDate() == null) {
+                throw new IllegalArgumentException("A conflict lookup needs a room number, a start and an end date");
+            }
+            if (!request.getEndDate().isAfter(request.getStartDate())) {
+                throw new IllegalArgumentException("The end date must be after the start date");
+            }
+            if (request.getStartDate().isBefore(archived)) {
+                throw new IllegalArgumentException("Conflicts can only be looked up from " + archived + " on, older months are archived");
+            }
+        }
+
+        for (BookingConflictDto request : requests) {
+            DateRange range = new DateRange(request.getStartDate(), request.getEndDate());
+            if (range.getStartDate().isBefore(today)) {
+                request.setConflicts(bookingRepository.findSpansOverlapping(request.getRoomNr(),
+                                range.getStartDate(), range.getEndDate()).stream()
+                        .map(span -> new DateRange(span.getStartDate(), span.getEndDate()))
+                        .toList());
+            } else {
+                request.setConflicts(bookingIntervalIndex.findConflicts(request.getRoomNr(), range));
+            }
+        }
+        return requests;
+    }
+
     public Booking createBooking(Booking booking, String clientEmail, String roomNr) {
 
         String userEmail = clientEmail;
@@ -74,11 +171,16 @@ public class BookingService {
         booking.setClient(client);
 
         // Retrieve Room
-        Room room = roomRepository.findById(roomNr)
+        Room room = roomCache.findById(roomNr)
                 .orElseThrow(() -> new EntityNotFoundException("Room not found with number: " + roomNr));
 
         booking.setRoom(room);
 
+        validateStay(booking.getId().getStartDate(), booking.getEndDate());
+
+        // Reject stays overlapping an existing booking of the room
+        bookingIntervalIndex.reserve(booking.getId().getRoomNr(), booking.getId().getStartDate(), booking.getEndDate());
+
         // Save the booking
         Booking savedBooking = bookingRepository.save(booking);
 
@@ -93,13 +195,105 @@ public class BookingService {
         // Save the Occupies entry
         occupiesRepository.save(occupies);
 
+        availabilityIndex.reserve(savedBooking);
+        occupancyAnalytics.record(savedBooking);
+        readYourWrites(savedBooking);
+
         return savedBooking;
     }
 
+    /**
+     * Books every room for the same stay in one transaction, or none of them if any room is taken.
+     * Pass null prices to price the rooms now, the webhook passes the amounts that were paid.
+     */
+    public List<Booking> createGroupBooking(String clientEmail, List<String> roomNrs, LocalDate startDate,
+                                            LocalDate endDate, long[] prices) {
+
+        validateGroup(roomNrs);
+        validateStay(startDate, endDate);
+        Client client = clientRepository.findByEmail(clientEmail)
+                .orElseThrow(() -> new IllegalArgumentException("Client not found for email: " + clientEmail));
+
+        List<Room> rooms = new ArrayList<>(roomNrs.size());
+        for (String roomNr : roomNrs) {
+            rooms.add(roomCache.findById(roomNr)
+                    .orElseThrow(() -> new EntityNotFoundException("Room not found with number: " + roomNr)));
+        }
+        long[] roomPrices = prices != null ? prices : pricingService.calculatePrices(rooms, startDate, endDate);
+
+        List<Booking> bookings = new ArrayList<>(rooms.size());
+        for (int i = 0; i < rooms.size(); i++) {
+            Room room = rooms.get(i);
+            // Reject stays overlapping an existing booking, the rooms reserved so far are released on rollback
+            bookingIntervalIndex.reserve(room.getRoomNr(), startDate, endDate);
+            bookings.add(new Booking(new BookingId(startDate, room.getRoomNr()), roomPrices[i], client, room, endDate));
+        }
+
+        // persist rather than save: ids are assigned, so save would merge and select every row first.
+        // The inserts are flushed together and sent in JDBC batches (hibernate.jdbc.batch_size).
+        for (Booking booking : bookings) {
+            entityManager.persist(booking);
+        }
+        for (Booking booking : bookings) {
+            entityManager.persist(new Occupies(
+                    new OccupiesId(client.getEmail(), startDate, booking.getId().getRoomNr()), client, booking));
+        }
+
+        bookings.forEach(availabilityIndex::reserve);
+        bookings.forEach(occupancyAnalytics::record);
+        readYourWrites(bookings.get(0));
+        return bookings;
+    }
+
+    public List<Booking> createGroupBookingAdmin(GroupBookingRequest request) {
+
+        return createGroupBooking(request.getClientEmail(), request.getRoomNrs(),
+                request.getStartDate(), request.getEndDate(), null);
+    }
+
+    /**
+     * Rejects empty groups, groups naming a room twice and groups above hotel.bookings.max-group-size.
+     */
+    public void validateGroup(List<String> roomNrs) {
+        if (roomNrs == null || roomNrs.isEmpty()) {
+            throw new IllegalArgumentException("A group booking needs at least one room");
+        }
+        if (roomNrs.size() > maxGroupSize) {
+            throw new IllegalArgumentException("A group booking can have at most " + maxGroupSize + " rooms");
+        }
+        if (new HashSet<>(roomNrs).size() != roomNrs.size()) {
+            throw new IllegalArgumentException("A group booking cannot contain the same room twice");
+        }
+    }
+
+    /**
+     * Rejects stays that do not end after they start and stays longer than Booking.MAX_STAY_NIGHTS,
+     * which the booking_max_stay check would otherwise turn into a 500. Stays starting after the last
+     * month BookingPartitionService creates partitions for are rejected too, they would land in the
+     * default partition.
+     */
+    public void validateStay(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            throw new IllegalArgumentException("A booking needs a start and an end date");
+        }
+        if (!endDate.isAfter(startDate)) {
+            throw new IllegalArgumentException("The end date must be after the start date");
+        }
+        if (startDate.plusDays(Booking.MAX_STAY_NIGHTS).isBefore(endDate)) {
+            throw new IllegalArgumentException("A booking can be at most " + Booking.MAX_STAY_NIGHTS + " nights long");
+        }
+        LocalDate horizon = LocalDate.now().withDayOfMonth(1).plusMonths(partitionMonthsAhead + 1L);
+        if (!startDate.isBefore(horizon)) {
+            throw new IllegalArgumentException("Bookings can only start before " + horizon);
+        }
+    }
+
     public Booking createBookingAdmin(BookingDto bookingDto) {
 
+        validateStay(bookingDto.getStartDate(), bookingDto.getEndDate());
+
         // Retrieve Room
-        Room room = roomRepository.findById(bookingDto.getRoomNr())
+        Room room = roomCache.findById(bookingDto.getRoomNr())
                 .orElseThrow(() -> new EntityNotFoundException("Room not found with number: " + bookingDto.getRoomNr()));
 
         // Retrieve Client
@@ -109,6 +303,9 @@ public class BookingService {
         // Calculate the price
         Long price = pricingService.calculatePrice(bookingDto.getRoomNr(), bookingDto.getStartDate(), bookingDto.getEndDate());
 
+        // Reject stays overlapping an existing booking of the room
+        bookingIntervalIndex.reserve(bookingDto.getRoomNr(), bookingDto.getStartDate(), bookingDto.getEndDate());
+
         // Create and populate Booking entity
         Booking newBooking = new Booking();
         newBooking.setId(new BookingId(bookingDto.getStartDate(), bookingDto.getRoomNr()));
@@ -118,15 +315,27 @@ public class BookingService {
         newBooking.setClient(client);
 
         // Save Booking to the database
-        return bookingRepository.save(newBooking);
+        Booking savedBooking = bookingRepository.save(newBooking);
+        availabilityIndex.reserve(savedBooking);
+        occupancyAnalytics.record(savedBooking);
+        readYourWrites(savedBooking);
+        return savedBooking;
     }
 
     public Booking updateBooking(BookingDto bookingDto) {
         // Retrieve existing Booking by its composite key
         BookingId bookingId = new BookingId(bookingDto.getStartDate(), bookingDto.getRoomNr());
+        validateStay(bookingDto.getStartDate(), bookingDto.getEndDate());
         Booking existingBooking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new EntityNotFoundException("Booking not found with ID: " + bookingId.hashCode()));
 
+        // Reject a new end date that runs into the next booking of the room
+        bookingIntervalIndex.resize(bookingId.getRoomNr(), bookingId.getStartDate(), bookingDto.getEndDate());
+
+        // Free the old nights and revenue before the end date and price change
+        availabilityIndex.release(bookingId.getRoomNr(), bookingId.getStartDate(), existingBooking.getEndDate());
+        occupancyAnalytics.retract(existingBooking);
+
         // Update mutable fields
         existingBooking.setEndDate(bookingDto.getEndDate());
 
@@ -135,7 +344,11 @@ public class BookingService {
         existingBooking.setPrice(updatedPrice);
 
         // Save and return the updated booking
-        return bookingRepository.save(existingBooking);
+        Booking savedBooking = bookingRepository.save(existingBooking);
+        availabilityIndex.reserve(savedBooking);
+        occupancyAnalytics.record(savedBooking);
+        readYourWrites(savedBooking);
+        return savedBooking;
     }
 
 
@@ -156,19 +369,30 @@ public class BookingService {
 
             // Delete the Booking
             bookingRepository.delete(booking);
+            availabilityIndex.release(booking);
+            occupancyAnalytics.retract(booking);
+            bookingIntervalIndex.release(bookingId.getRoomNr(), bookingId.getStartDate(), booking.getEndDate());
+            readYourWrites(booking);
             return true;
         }).orElse(false);
     }
 
 
     public boolean deleteBookingAdmin(BookingId bookingId) {
-        // Check if the booking exists
-        if (bookingRepository.existsById(bookingId)) {
-            // Delete the booking
-            bookingRepository.deleteById(bookingId);
+        // Load the booking so its nights can be released from the availability index
+        return bookingRepository.findById(bookingId).map(booking -> {
+            bookingRepository.delete(booking);
+            availabilityIndex.release(booking);
+            occupancyAnalytics.retract(booking);
+            bookingIntervalIndex.release(bookingId.getRoomNr(), bookingId.getStartDate(), booking.getEndDate());
+            readYourWrites(booking);
             return true;
-        }
-        return false; // Booking not found
+        }).orElse(false); // Booking not found
     }
 
+    // the client and whoever changed the booking read from the primary until the replicas have caught up
+    private void readYourWrites(Booking booking) {
+        String clientEmail = booking.getClient().getEmail();
+        TransactionUtils.afterCommit(() -> replicaRouter.recordWrite(clientEmail));
+    }
 }
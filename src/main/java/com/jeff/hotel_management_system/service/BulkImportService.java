@@ -0,0 +1,459 @@
+package com.jeff.hotel_management_system.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jeff.hotel_management_system.dto.BookingSummaryDto;
+import com.jeff.hotel_management_system.dto.ImportResultDto;
+import com.jeff.hotel_management_system.entity.Room;
+import com.jeff.hotel_management_system.exception.ImportRejectedException;
+import com.jeff.hotel_management_system.repository.BookingRepository;
+import com.jeff.hotel_management_system.repository.ClientRepository;
+import com.jeff.hotel_management_system.utils.TransactionUtils;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+
+/**
+ * Bulk import of rooms and bookings from CSV (with a header row) or NDJSON.
+ *
+ * Rows are parsed and validated one at a time as they are read, and valid rows are streamed into
+ * a temporary staging table with Postgres COPY. Once the input is exhausted the staging table is
+ * merged into the real one with a single INSERT ... SELECT, so nothing is looked up or inserted row
+ * by row. An import is all or nothing: if any row is rejected the transaction rolls back and the
+ * first errors are reported. Bookings are checked for overlaps against the stays in BookingIntervalIndex
+ * and the earlier rows of the same import as they stream in, and against the whole booking history
+ * with a single query once they are staged.
+ *
+ * Imported bookings are not replayed into the in-memory indexes one by one; once committed, every
+ * node reloads them from the database, see BOOKINGS_IMPORTED_CHANNEL.
+ */
+@Observed(name = "hotel.service")
+@Service
+public class BulkImportService {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format of(MediaType contentType) {
+            return MediaType.parseMediaType("text/csv").isCompatibleWith(contentType) ? CSV : NDJSON;
+        }
+    }
+
+    // body is the id of the node that imported, which has already reloaded
+    public static final String BOOKINGS_IMPORTED_CHANNEL = "bulk_import:bookings";
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    // rows are handed to COPY in chunks of about this size
+    private static final int COPY_CHUNK_CHARS = 64 * 1024;
+
+    private static final List<String> ROOM_COLUMNS = List.of("room_nr", "floor", "max_occ", "is_available",
+            "base_price", "room_type", "has_sea_view", "has_balcony", "has_wifi", "has_air_conditioning",
+            "is_pet_friendly", "amenities", "rating", "preferred_for");
+
+    private static final String BOOKING_COLUMNS = "start_date, room_nr, price, client_email, end_date";
+
+    // staged stays overlapping a stored one, through the GiST index of booking_no_overlap
+    private static final String OVERLAPS_SQL = "SELECT DISTINCT ON (i.line_nr) i.line_nr, i.room_nr, b.start_date, b.end_date " +
+            "FROM booking_import i JOIN booking b ON b.room_nr = i.room_nr " +
+            "AND daterange(b.start_date, b.end_date) && daterange(i.start_date, i.end_date) " +
+            "ORDER BY i.line_nr, b.start_date";
+
+    private static final TypeReference<Map<String, Object>> FIELDS = new TypeReference<>() {
+    };
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private RoomCache roomCache;
+
+    @Autowired
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private OccupancyAnalytics occupancyAnalytics;
+
+    @Autowired
+    private NightlyRateTable nightlyRateTable;
+
+    @Autowired
+    private PricingRuleEngine pricingRuleEngine;
+
+    @Autowired
+    private RoomEmbeddingIndex roomEmbeddingIndex;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // every month between the earliest and the latest start date gets a partition
+    @Value("${hotel.bookings.import-years-back:10}")
+    private int importYearsBack;
+
+    /**
+     * Creates the rooms, or updates them if their number already exists. Fields are those of POST /api/rooms.
+     */
+    @Transactional
+    public ImportResultDto importRooms(InputStream input, Format format) {
+        Set<String> roomNrs = new HashSet<>();
+        String updates = String.join(", ", ROOM_COLUMNS.subList(1, ROOM_COLUMNS.size()).stream()
+                .map(column -> column + " = EXCLUDED." + column).toList());
+        String columns = String.join(", ", ROOM_COLUMNS);
+
+        ImportResultDto result = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            execute(connection, "CREATE TEMP TABLE room_import (LIKE room) ON COMMIT DROP");
+            ImportResultDto loaded = copy(connection, input, format,
+                    "COPY room_import (" + columns + ") FROM STDIN WITH (FORMAT csv)",
+                    (lineNr, fields) -> roomRow(convert(fields, Room.class), roomNrs));
+            execute(connection, "INSERT INTO room (" + columns + ") SELECT " + columns + " FROM room_import " +
+                    "ON CONFLICT (room_nr) DO UPDATE SET " + updates);
+            return loaded;
+        });
+
+        TransactionUtils.afterCommit(() -> {
+            roomCache.invalidateAll();
+            nightlyRateTable.rebuild();
+            roomEmbeddingIndex.rebuild();
+        });
+        return result;
+    }
+
+    /**
+     * Creates the bookings and their Occupies rows. Fields are those of GET /api/bookings/all/stream;
+     * bookings without a price are priced like new ones.
+     */
+    @Transactional
+    public ImportResultDto importBookings(InputStream input, Format format) {
+        Set<String> clients = new HashSet<>(clientRepository.findAllEmails());
+        Set<String> archivedMonths = new HashSet<>(bookingRepository.findArchivedMonths());
+        Map<String, TreeMap<Long, Long>> imported = new HashMap<>();
+
+        ImportResultDto result = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            execute(connection, "CREATE TEMP TABLE booking_import (LIKE booking) ON COMMIT DROP");
+            execute(connection, "ALTER TABLE booking_import ADD COLUMN line_nr integer");
+            ImportResultDto loaded = copy(connection, input, format,
+                    "COPY booking_import (" + BOOKING_COLUMNS + ", line_nr) FROM STDIN WITH (FORMAT csv)",
+                    (lineNr, fields) -> bookingRow(lineNr, convert(fields, BookingSummaryDto.class), clients,
+                            archivedMonths, imported));
+            // BookingIntervalIndex only holds the stays that have not ended yet
+            rejectOverlaps(connection);
+            // months without a partition would otherwise go to the default partition
+            execute(connection, "SELECT create_booking_partitions(min(start_date), max(start_date)) FROM booking_import");
+            try {
+                execute(connection, "INSERT INTO booking (" + BOOKING_COLUMNS + ") SELECT " + BOOKING_COLUMNS +
+                        " FROM booking_import ORDER BY start_date, room_nr");
+            } catch (SQLException e) {
+                if (e.getMessage() == null || !e.getMessage().contains("booking_no_overlap")) {
+                    throw e;
+                }
+                throw new ImportRejectedException(new ImportResultDto(0, loaded.getImported(),
+                        List.of("Some of the rooms were booked for the same nights while importing")));
+            }
+            execute(connection, "INSERT INTO occupies (client_email, booking_start_date, booking_room_nr) " +
+                    "SELECT client_email, start_date, room_nr FROM booking_import");
+            return loaded;
+        });
+
+        // cheaper than replaying every row, and the indexes reload from the primary
+        TransactionUtils.afterCommit(() -> {
+            reloadBookings();
+            try {
+                redisTemplate.convertAndSend(BOOKINGS_IMPORTED_CHANNEL, BookingIntervalIndex.NODE_ID);
+            } catch (RuntimeException e) {
+                // the other nodes pick the bookings up at their nightly rebuild
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Reloads the booking indexes after an import on another node. Called for messages on BOOKINGS_IMPORTED_CHANNEL.
+     */
+    public void onBookingsImported(String nodeId) {
+        if (!BookingIntervalIndex.NODE_ID.equals(nodeId)) {
+            reloadBookings();
+        }
+    }
+
+    private void reloadBookings() {
+        bookingIntervalIndex.load();
+        availabilityIndex.rebuild();
+        occupancyAnalytics.rebuild();
+    }
+
+    private String roomRow(Room room, Set<String> roomNrs) {
+        String roomNr = room.getRoomNr();
+        require(roomNr != null && !roomNr.isBlank(), "roomNr is required");
+        require(roomNr.length() <= 10, "roomNr is longer than 10 characters");
+        require(!RoomCache.ALL_ROOMS.equals(roomNr), "roomNr " + roomNr + " is reserved");
+        require(roomNrs.add(roomNr), "Room " + roomNr + " appears more than once");
+        require(room.getRoomType() != null && !room.getRoomType().isBlank(), "roomType is required");
+        require(room.getRoomType().length() <= 50, "roomType is longer than 50 characters");
+        require(room.getAmenities() != null, "amenities is required");
+        require(room.getAmenities().length() <= 255, "amenities is longer than 255 characters");
+        require(room.getPreferredFor() == null || room.getPreferredFor().length() <= 255,
+                "preferredFor is longer than 255 characters");
+        require(room.getMaxOccupancy() > 0, "maxOccupancy must be positive");
+        require(room.getBasePrice() != null && room.getBasePrice() >= 0, "basePrice must be zero or more");
+        require(room.getRating() >= 0 && room.getRating() <= 5, "rating must be between 0 and 5");
+
+        return csv(roomNr, room.getFloor(), room.getMaxOccupancy(), room.isAvailable(), room.getBasePrice(),
+                room.getRoomType(), room.isHasSeaView(), room.isHasBalcony(), room.isHasWifi(),
+                room.isHasAirConditioning(), room.isPetFriendly(), room.getAmenities(), room.getRating(),
+                room.getPreferredFor());
+    }
+
+    private String bookingRow(int lineNr, BookingSummaryDto booking, Set<String> clients, Set<String> archivedMonths,
+                              Map<String, TreeMap<Long, Long>> imported) {
+        String roomNr = booking.getRoomNr();
+        LocalDate startDate = booking.getStartDate();
+        LocalDate endDate = booking.getEndDate();
+        require(roomNr != null && booking.getClientEmail() != null && startDate != null && endDate != null,
+                "roomNr, clientEmail, startDate and endDate are required");
+        // the same length and horizon as new bookings, and no further back than importYearsBack
+        bookingService.validateStay(startDate, endDate);
+        LocalDate earliest = LocalDate.now().withDayOfMonth(1).minusYears(importYearsBack);
+        require(!startDate.isBefore(earliest), "Bookings can only start on or after " + earliest);
+        long start = startDate.toEpochDay();
+        long end = endDate.toEpochDay();
+        require(clients.contains(booking.getClientEmail()), "Client not found: " + booking.getClientEmail());
+        require(!archivedMonths.contains(YearMonth.from(startDate).toString()),
+                "Bookings of " + YearMonth.from(startDate) + " have been archived");
+        Room room = roomCache.findById(roomNr)
+                .orElseThrow(() -> new IllegalArgumentException("Room not found: " + roomNr));
+        // from the rate table snapshot, stays outside its horizon straight from the rules
+        Long price = booking.getPrice() != null ? booking.getPrice() : nightlyRateTable.quote(roomNr, startDate, endDate)
+                .orElseGet(() -> pricingRuleEngine.price(room.getRoomType(), room.getBasePrice(), startDate, endDate));
+        require(price >= 0, "price must be zero or more");
+
+        require(!bookingIntervalIndex.hasConflict(roomNr, startDate, endDate),
+                "Room " + roomNr + " is already booked between " + startDate + " and " + endDate);
+        // the stays of a room in this import never overlap, so only the last one starting before end can
+        TreeMap<Long, Long> stays = imported.computeIfAbsent(roomNr, key -> new TreeMap<>());
+        Map.Entry<Long, Long> previous = stays.lowerEntry(end);
+        require(previous == null || previous.getValue() <= start,
+                "Room " + roomNr + " is booked twice between " + startDate + " and " + endDate + " in this import");
+        stays.put(start, end);
+
+        return csv(startDate, roomNr, price, booking.getClientEmail(), endDate, lineNr);
+    }
+
+    /**
+     * Throws ImportRejectedException if any staged booking overlaps a stored one.
+     */
+    private void rejectOverlaps(Connection connection) throws SQLException {
+        ImportResultDto result = new ImportResultDto(0, 0, new ArrayList<>());
+        try (Statement statement = connection.createStatement();
+             ResultSet overlaps = statement.executeQuery(OVERLAPS_SQL)) {
+            while (overlaps.next()) {
+                result.setRejected(result.getRejected() + 1);
+                if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+                    result.getErrors().add("line " + overlaps.getInt("line_nr") + ": Room " + overlaps.getString("room_nr")
+                            + " is already booked between " + overlaps.getObject("start_date", LocalDate.class)
+                            + " and " + overlaps.getObject("end_date", LocalDate.class));
+                }
+            }
+        }
+        if (result.getRejected() > 0) {
+            throw new ImportRejectedException(result);
+        }
+    }
+
+    /**
+     * Validates every row and streams the valid ones into COPY. Throws ImportRejectedException,
+     * without finishing the COPY, if any row is invalid.
+     */
+    private ImportResultDto copy(Connection connection, InputStream input, Format format, String copySql,
+                                 BiFunction<Integer, Map<String, Object>, String> row) throws SQLException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+        ImportResultDto result = new ImportResultDto(0, 0, new ArrayList<>());
+        StringBuilder chunk = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<String> header = null;
+            int lineNr = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNr++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    if (format == Format.CSV && header == null) {
+                        header = parseCsv(line);
+                        continue;
+                    }
+                    String copyRow = row.apply(lineNr, format == Format.CSV ? csvFields(header, line) : jsonFields(line));
+                    if (result.getRejected() == 0) {
+                        chunk.append(copyRow).append('\n');
+                        result.setImported(result.getImported() + 1);
+                        if (chunk.length() >= COPY_CHUNK_CHARS) {
+                            write(copyIn, chunk);
+                        }
+                    }
+                } catch (IllegalArgumentException e) {
+                    result.setRejected(result.getRejected() + 1);
+                    if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+                        result.getErrors().add("line " + lineNr + ": " + e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            copyIn.cancelCopy();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            copyIn.cancelCopy();
+            throw e;
+        }
+
+        if (result.getRejected() > 0) {
+            copyIn.cancelCopy();
+            result.setImported(0);
+            throw new ImportRejectedException(result);
+        }
+        write(copyIn, chunk);
+        copyIn.endCopy();
+        return result;
+    }
+
+    private void write(CopyIn copyIn, StringBuilder chunk) throws SQLException {
+        byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        chunk.setLength(0);
+    }
+
+    private void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private Map<String, Object> jsonFields(String line) {
+        try {
+            return objectMapper.readValue(line, FIELDS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    // empty values are missing values
+    private Map<String, Object> csvFields(List<String> header, String line) {
+        List<String> values = parseCsv(line);
+        require(values.size() == header.size(), "Expected " + header.size() + " values but found " + values.size());
+        Map<String, Object> fields = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            if (!values.get(i).isEmpty()) {
+                fields.put(header.get(i).trim(), values.get(i));
+            }
+        }
+        return fields;
+    }
+
+    // values are coerced by Jackson, e.g. "2" to an int and "2024-01-31" to a LocalDate
+    private <T> T convert(Map<String, Object> fields, Class<T> type) {
+        try {
+            return objectMapper.convertValue(fields, type);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value: " + e.getMessage().lines().findFirst().orElse(""));
+        }
+    }
+
+    /**
+     * Splits one CSV line. Values may be quoted, with "" for a quote inside them; line breaks inside values are not supported.
+     */
+    static List<String> parseCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        require(!quoted, "Unterminated quoted value");
+        values.add(value.toString());
+        return values;
+    }
+
+    // one line of COPY's csv format: null is an empty unquoted value, text is always quoted
+    private static String csv(Object... values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            Object value = values[i];
+            if (value instanceof String text) {
+                line.append('"').append(text.replace("\"", "\"\"")).append('"');
+            } else if (value != null) {
+                line.append(value);
+            }
+        }
+        return line.toString();
+    }
+
+    private static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+}
@@ -5,10 +5,10 @@ import com.jeff.hotel_management_system.entity.Client;
 import com.jeff.hotel_management_system.repository.AdminRepository;
 import com.jeff.hotel_management_system.repository.ClientRepository;
 import com.jeff.hotel_management_system.utils.TokenWhitelistRedisCacheClient;
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -30,6 +30,7 @@ public class ClientService {
     @Autowired
     private AdminRepository adminRepository;
 
+    @Transactional(readOnly = true)
     public List<ClientResponseDto> getAllClients() {
 
         return clientRepository.findAll().stream()
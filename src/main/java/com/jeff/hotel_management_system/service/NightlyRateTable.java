@@ -0,0 +1,134 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.entity.Room;
+import com.jeff.hotel_management_system.repository.RoomRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Precomputed nightly rates of every room over a rolling horizon starting today.
+ *
+ * Each room holds a prefix-sum array where sums[i] is the price of the first i nights,
+ * so the price of any stay inside the horizon is sums[to] - sums[from], without touching
+ * the database. Nightly rates are the base price times the multipliers compiled by
+ * PricingRuleEngine. Arrays are replaced whole, never mutated, so readers need no locking.
+ * Writers are serialized, so a room refreshed while a rebuild runs is applied to the rebuilt
+ * table rather than to the one it replaces. Rebuilds are driven by PricingRuleService.
+ */
+@Service
+public class NightlyRateTable {
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private PricingRuleEngine pricingRuleEngine;
+
+    @Value("${hotel.pricing.horizon-days:830}")
+    private int horizonDays;
+
+    private volatile Rates rates = new Rates(LocalDate.now().toEpochDay(), new ConcurrentHashMap<>());
+
+    // not synchronized, rebuild() reads the database and would pin a virtual thread's carrier
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            long origin = LocalDate.now().toEpochDay();
+            Map<String, RoomRates> rooms = new ConcurrentHashMap<>();
+            for (Room room : roomRepository.findAll()) {
+                rooms.put(room.getRoomNr(), roomRates(room, origin));
+            }
+            this.rates = new Rates(origin, rooms);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Recomputes the rates of a single room, e.g. after its base price changed.
+     */
+    public void refresh(Room room) {
+        writeLock.lock();
+        try {
+            Rates current = this.rates;
+            current.rooms.put(room.getRoomNr(), roomRates(room, current.origin));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(String roomNr) {
+        writeLock.lock();
+        try {
+            this.rates.rooms.remove(roomNr);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Price of the nights [startDate, endDate), or empty if the room is unknown or the
+     * stay is empty or reaches outside the horizon. PricingService prices those stays
+     * through PricingRuleEngine.price.
+     */
+    public OptionalLong quote(String roomNr, LocalDate startDate, LocalDate endDate) {
+        Rates current = this.rates;
+        RoomRates room = current.rooms.get(roomNr);
+        if (room == null) {
+            return OptionalLong.empty();
+        }
+        long[] sums = room.sums;
+        long from = startDate.toEpochDay() - current.origin;
+        long to = endDate.toEpochDay() - current.origin;
+        if (from < 0 || from >= to || to >= sums.length) {
+            return OptionalLong.empty();
+        }
+        long total = sums[(int) to] - sums[(int) from];
+        return OptionalLong.of(Math.round(total * pricingRuleEngine.stayMultiplier(room.roomType, to - from)));
+    }
+
+    private RoomRates roomRates(Room room, long origin) {
+        long[] sums = new long[horizonDays + 1];
+        for (int night = 0; night < horizonDays; night++) {
+            sums[night + 1] = sums[night] + nightlyRate(room, origin + night);
+        }
+        return new RoomRates(room.getRoomType(), sums);
+    }
+
+    private long nightlyRate(Room room, long epochDay) {
+        return Math.round(room.getBasePrice() * pricingRuleEngine.nightlyMultiplier(room.getRoomType(), epochDay));
+    }
+
+    private static class Rates {
+
+        private final long origin;
+
+        private final Map<String, RoomRates> rooms;
+
+        Rates(long origin, Map<String, RoomRates> rooms) {
+            this.origin = origin;
+            this.rooms = rooms;
+        }
+    }
+
+    private static class RoomRates {
+
+        private final String roomType;
+
+        private final long[] sums;
+
+        RoomRates(String roomType, long[] sums) {
+            this.roomType = roomType;
+            this.sums = sums;
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.config.PrimaryRead;
+import com.jeff.hotel_management_system.dto.BookingRevenueSpan;
+import com.jeff.hotel_management_system.dto.OccupancyPointDto;
+import com.jeff.hotel_management_system.dto.OccupancyReportDto;
+import com.jeff.hotel_management_system.dto.OccupancySeriesDto;
+import com.jeff.hotel_management_system.entity.Booking;
+import com.jeff.hotel_management_system.entity.Room;
+import com.jeff.hotel_management_system.repository.BookingRepository;
+import com.jeff.hotel_management_system.utils.TransactionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * In-memory occupancy and revenue rollups per day, room type and floor.
+ *
+ * The whole hotel, every room type and every floor own two columns indexed by day: booked
+ * room-nights and revenue. A booking adds a room-night to each night of its stay and spreads its
+ * price evenly over them, so a report over years of data is a scan of a few primitive arrays and
+ * never touches the database. The columns cover every day with a booking, archived months included,
+ * and grow when a booking falls outside them. They are rebuilt at startup and every night, and kept
+ * current by BookingService after each commit and by the changes other nodes publish on CHANGE_CHANNEL.
+ *
+ * The rollups remember which bookings they count, so a change that a rebuild already picked up from
+ * the database, or that arrives twice, is not counted again. A booking is remembered as a 64-bit
+ * fingerprint in a primitive hash set, 8 to 16 bytes per booking instead of a String in a HashSet.
+ */
+@Service
+public class OccupancyAnalytics {
+
+    public static final String GROUP_ALL = "all";
+
+    public static final String GROUP_ROOM_TYPE = "roomType";
+
+    public static final String GROUP_FLOOR = "floor";
+
+    public static final String BUCKET_DAY = "day";
+
+    public static final String BUCKET_MONTH = "month";
+
+    // "RECORDED|roomNr|startDate|endDate|price|nodeId", or RETRACTED
+    public static final String CHANGE_CHANNEL = "occupancy:changes";
+
+    public static final String RECORDED = "RECORDED";
+
+    public static final String RETRACTED = "RETRACTED";
+
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    // days added past a booking when the columns grow, so they are not copied for every new booking
+    private static final int GROWTH_DAYS = 366;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RoomCache roomCache;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${hotel.analytics.max-report-days:3660}")
+    private int maxReportDays;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // bumped on every mutation so a rebuild can detect writes that raced with its snapshot
+    private final AtomicLong modCount = new AtomicLong();
+
+    private Rollups rollups = new Rollups();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${hotel.analytics.rebuild-cron:0 15 0 * * *}")
+    @PrimaryRead
+    public void rebuild() {
+        for (int attempt = 0; attempt < MAX_REBUILD_ATTEMPTS; attempt++) {
+            long seen = modCount.get();
+            Map<String, Room> rooms = new HashMap<>();
+            roomCache.findAll().forEach(room -> rooms.put(room.getRoomNr(), room));
+
+            Rollups snapshot = new Rollups();
+            try (Stream<BookingRevenueSpan> spans = bookingRepository.streamArchivedRevenueSpans()) {
+                spans.forEach(span -> snapshot.add(rooms.get(span.getRoomNr()), span, 1));
+            }
+            // archived bookings never change, only the live ones are remembered
+            try (Stream<BookingRevenueSpan> spans = bookingRepository.streamRevenueSpans()) {
+                spans.forEach(span -> {
+                    snapshot.counted.add(key(span.getRoomNr(), span.getStartDate(), span.getEndDate(), span.getPrice()));
+                    snapshot.add(rooms.get(span.getRoomNr()), span, 1);
+                });
+            }
+
+            lock.writeLock().lock();
+            try {
+                if (modCount.get() == seen) {
+                    this.rollups = snapshot;
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        // bookings kept changing under us, keep the previous rollups until the next run
+    }
+
+    public void record(Booking booking) {
+        record(booking.getId().getRoomNr(), booking.getId().getStartDate(), booking.getEndDate(), booking.getPrice());
+    }
+
+    public void retract(Booking booking) {
+        retract(booking.getId().getRoomNr(), booking.getId().getStartDate(), booking.getEndDate(), booking.getPrice());
+    }
+
+    // Only committed bookings are counted, so changes are deferred while a transaction is open.
+    public void record(String roomNr, LocalDate startDate, LocalDate endDate, Long price) {
+        TransactionUtils.afterCommit(() -> {
+            update(roomNr, startDate, endDate, price, 1);
+            publish(RECORDED, roomNr, startDate, endDate, price);
+        });
+    }
+
+    public void retract(String roomNr, LocalDate startDate, LocalDate endDate, Long price) {
+        TransactionUtils.afterCommit(() -> {
+            update(roomNr, startDate, endDate, price, -1);
+            publish(RETRACTED, roomNr, startDate, endDate, price);
+        });
+    }
+
+    /**
+     * Applies a booking change committed on another node. Messages of this node are skipped.
+     */
+    public void onChangeEvent(String message) {
+        String[] parts = message.split("\\|");
+        if (BookingIntervalIndex.NODE_ID.equals(parts[5])) {
+            return;
+        }
+        update(parts[1], LocalDate.parse(parts[2]), LocalDate.parse(parts[3]), Long.valueOf(parts[4]),
+                RECORDED.equals(parts[0]) ? 1 : -1);
+    }
+
+    /**
+     * Room-nights, revenue and occupancy of [from, to) per day or per calendar month, for the whole
+     * hotel or per room type or floor. Occupancy is measured against the rooms that exist today.
+     */
+    public OccupancyReportDto report(LocalDate from, LocalDate to, String groupBy, String bucket) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("The report must end after it starts");
+        }
+        long days = to.toEpochDay() - from.toEpochDay();
+        if (days > maxReportDays) {
+            throw new IllegalArgumentException("A report can cover at most " + maxReportDays + " days");
+        }
+        if (!BUCKET_DAY.equals(bucket) && !BUCKET_MONTH.equals(bucket)) {
+            throw new IllegalArgumentException("Unknown bucket: " + bucket);
+        }
+        Function<Room, String> groupKey = groupKey(groupBy);
+        Comparator<String> order = GROUP_FLOOR.equals(groupBy)
+                ? Comparator.comparing(Integer::valueOf)
+                : Comparator.naturalOrder();
+
+        // the bucket of every day, and the first day and length of every bucket
+        int[] bucketOf = new int[(int) days];
+        List<LocalDate> bucketStarts = new ArrayList<>();
+        List<Integer> bucketDays = new ArrayList<>();
+        for (int day = 0; day < days; day++) {
+            LocalDate date = from.plusDays(day);
+            if (day == 0 || BUCKET_DAY.equals(bucket) || date.getDayOfMonth() == 1) {
+                bucketStarts.add(date);
+                bucketDays.add(0);
+            }
+            bucketOf[day] = bucketStarts.size() - 1;
+            bucketDays.set(bucketOf[day], bucketDays.get(bucketOf[day]) + 1);
+        }
+        int buckets = bucketStarts.size();
+
+        Map<String, Integer> rooms = new TreeMap<>(order);
+        roomCache.findAll().forEach(room -> rooms.merge(groupKey.apply(room), 1, Integer::sum));
+
+        Map<String, long[]> nights = new HashMap<>();
+        Map<String, long[]> revenue = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<String, Column> column : rollups.columns(groupBy).entrySet()) {
+                long[] columnNights = new long[buckets];
+                long[] columnRevenue = new long[buckets];
+                rollups.sum(column.getValue(), from.toEpochDay(), bucketOf, columnNights, columnRevenue);
+                nights.put(column.getKey(), columnNights);
+                revenue.put(column.getKey(), columnRevenue);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // groups without rooms left still show their past bookings, groups without bookings show zeros
+        Set<String> keys = new TreeSet<>(order);
+        keys.addAll(rooms.keySet());
+        keys.addAll(nights.keySet());
+        List<OccupancySeriesDto> series = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            int roomCount = rooms.getOrDefault(key, 0);
+            long[] keyNights = nights.getOrDefault(key, new long[buckets]);
+            long[] keyRevenue = revenue.getOrDefault(key, new long[buckets]);
+
+            List<OccupancyPointDto> points = new ArrayList<>(buckets);
+            long totalNights = 0;
+            long totalRevenue = 0;
+            for (int i = 0; i < buckets; i++) {
+                points.add(new OccupancyPointDto(bucketStarts.get(i), keyNights[i], keyRevenue[i],
+                        occupancy(keyNights[i], roomCount, bucketDays.get(i))));
+                totalNights += keyNights[i];
+                totalRevenue += keyRevenue[i];
+            }
+            series.add(new OccupancySeriesDto(key, roomCount, totalNights, totalRevenue,
+                    occupancy(totalNights, roomCount, days), points));
+        }
+        return new OccupancyReportDto(from, to, groupBy, bucket, series);
+    }
+
+    private void update(String roomNr, LocalDate startDate, LocalDate endDate, Long price, int sign) {
+        Room room = roomCache.findById(roomNr).orElse(null);
+        String key = key(roomNr, startDate, endDate, price);
+        lock.writeLock().lock();
+        try {
+            modCount.incrementAndGet();
+            // a booking the rollups already count, or a retraction of one they never counted
+            boolean changed = sign > 0 ? rollups.counted.add(key) : rollups.counted.remove(key);
+            if (changed) {
+                rollups.add(room, startDate, endDate, price, sign);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void publish(String type, String roomNr, LocalDate startDate, LocalDate endDate, Long price) {
+        try {
+            redisTemplate.convertAndSend(CHANGE_CHANNEL, String.join("|", type, roomNr, startDate.toString(),
+                    endDate.toString(), String.valueOf(price == null ? 0 : price), BookingIntervalIndex.NODE_ID));
+        } catch (RuntimeException e) {
+            // the other nodes pick the change up at their next rebuild
+        }
+    }
+
+    // 64-bit fingerprint of a booking, with millions of bookings the odds of two colliding stay below 1e-6
+    static long key(String roomNr, LocalDate startDate, LocalDate endDate, Long price) {
+        long hash = 0xcbf29ce484222325L; // FNV-1a over the room number
+        for (int i = 0; i < roomNr.length(); i++) {
+            hash = (hash ^ roomNr.charAt(i)) * 0x100000001b3L;
+        }
+        hash = mix(hash ^ startDate.toEpochDay());
+        hash = mix(hash ^ endDate.toEpochDay());
+        hash = mix(hash ^ (price == null ? 0 : price));
+        // 0 marks an empty slot of LongSet
+        return hash != LongSet.EMPTY ? hash : 1;
+    }
+
+    // finalizer of SplitMix64, spreads every input bit over the whole result
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    private Function<Room, String> groupKey(String groupBy) {
+        if (GROUP_ALL.equals(groupBy)) {
+            return room -> GROUP_ALL;
+        }
+        if (GROUP_ROOM_TYPE.equals(groupBy)) {
+            return Room::getRoomType;
+        }
+        if (GROUP_FLOOR.equals(groupBy)) {
+            return room -> String.valueOf(room.getFloor());
+        }
+        throw new IllegalArgumentException("Unknown grouping: " + groupBy);
+    }
+
+    private static double occupancy(long nights, int rooms, long days) {
+        return rooms == 0 ? 0 : (double) nights / (rooms * days);
+    }
+
+    private static class Rollups {
+
+        private long originDay;
+
+        private int length;
+
+        private final Column total = new Column(0);
+
+        private final Map<String, Column> byRoomType = new HashMap<>();
+
+        private final Map<String, Column> byFloor = new HashMap<>();
+
+        // key() of every live booking counted
+        private final LongSet counted = new LongSet();
+
+        void add(Room room, BookingRevenueSpan span, int sign) {
+            add(room, span.getStartDate(), span.getEndDate(), span.getPrice(), sign);
+        }
+
+        // Bookings of rooms that no longer exist only count towards the hotel total.
+        void add(Room room, LocalDate startDate, LocalDate endDate, Long price, int sign) {
+            long from = startDate.toEpochDay();
+            long to = endDate.toEpochDay();
+            if (from >= to) {
+                return;
+            }
+            cover(from, to);
+
+            int offset = (int) (from - originDay);
+            int nights = (int) (to - from);
+            long amount = price == null ? 0 : price;
+            total.add(offset, nights, amount, sign);
+            if (room != null) {
+                byRoomType.computeIfAbsent(room.getRoomType(), key -> new Column(length))
+                        .add(offset, nights, amount, sign);
+                byFloor.computeIfAbsent(String.valueOf(room.getFloor()), key -> new Column(length))
+                        .add(offset, nights, amount, sign);
+            }
+        }
+
+        Map<String, Column> columns(String groupBy) {
+            if (GROUP_ROOM_TYPE.equals(groupBy)) {
+                return byRoomType;
+            }
+            if (GROUP_FLOOR.equals(groupBy)) {
+                return byFloor;
+            }
+            return Map.of(GROUP_ALL, total);
+        }
+
+        // Adds every day of [from, from + bucketOf.length) to the bucket it belongs to.
+        void sum(Column column, long from, int[] bucketOf, long[] nights, long[] revenue) {
+            int first = (int) Math.max(0, originDay - from);
+            int last = (int) Math.min(bucketOf.length, originDay + length - from);
+            int shift = (int) (from - originDay);
+            for (int day = first; day < last; day++) {
+                nights[bucketOf[day]] += column.nights[day + shift];
+                revenue[bucketOf[day]] += column.revenue[day + shift];
+            }
+        }
+
+        // Grows every column so that the days [from, to) are covered.
+        private void cover(long from, long to) {
+            long start = length == 0 ? from : originDay;
+            long end = length == 0 ? from : originDay + length;
+            long newStart = from < start ? from - GROWTH_DAYS : start;
+            long newEnd = to > end ? to + GROWTH_DAYS : end;
+            if (newStart == start && newEnd == end && length > 0) {
+                return;
+            }
+
+            int shift = (int) (start - newStart);
+            int newLength = (int) (newEnd - newStart);
+            total.resize(shift, newLength);
+            byRoomType.values().forEach(column -> column.resize(shift, newLength));
+            byFloor.values().forEach(column -> column.resize(shift, newLength));
+            this.originDay = newStart;
+            this.length = newLength;
+        }
+    }
+
+    private static class Column {
+
+        private int[] nights;
+
+        private long[] revenue;
+
+        Column(int length) {
+            this.nights = new int[length];
+            this.revenue = new long[length];
+        }
+
+        // The price is split evenly over the nights, the first nights take the remainder.
+        void add(int offset, int count, long price, int sign) {
+            long share = price / count;
+            long remainder = price % count;
+            for (int night = 0; night < count; night++) {
+                nights[offset + night] += sign;
+                revenue[offset + night] += sign * (night < remainder ? share + 1 : share);
+            }
+        }
+
+        void resize(int shift, int length) {
+            int[] newNights = new int[length];
+            long[] newRevenue = new long[length];
+            System.arraycopy(nights, 0, newNights, shift, nights.length);
+            System.arraycopy(revenue, 0, newRevenue, shift, revenue.length);
+            this.nights = newNights;
+            this.revenue = newRevenue;
+        }
+    }
+
+    /**
+     * Open-addressing set of non-zero longs with linear probing, at most half full.
+     */
+    static final class LongSet {
+
+        static final long EMPTY = 0;
+
+        private long[] slots = new long[16];
+
+        private int size;
+
+        boolean add(long key) {
+            if ((size + 1) * 2 > slots.length) {
+                grow();
+            }
+            int mask = slots.length - 1;
+            for (int i = home(key, mask); ; i = (i + 1) & mask) {
+                if (slots[i] == key) {
+                    return false;
+                }
+                if (slots[i] == EMPTY) {
+                    slots[i] = key;
+                    size++;
+                    return true;
+                }
+            }
+        }
+
+        boolean remove(long key) {
+            int mask = slots.length - 1;
+            int hole = home(key, mask);
+            while (slots[hole] != key) {
+                if (slots[hole] == EMPTY) {
+                    return false;
+                }
+                hole = (hole + 1) & mask;
+            }
+            // shift later keys of the run back into the hole, so no probe stops short of them
+            for (int i = (hole + 1) & mask; slots[i] != EMPTY; i = (i + 1) & mask) {
+                if (((i - home(slots[i], mask)) & mask) >= ((i - hole) & mask)) {
+                    slots[hole] = slots[i];
+                    hole = i;
+                }
+            }
+            slots[hole] = EMPTY;
+            size--;
+            return true;
+        }
+
+        boolean contains(long key) {
+            int mask = slots.length - 1;
+            for (int i = home(key, mask); slots[i] != EMPTY; i = (i + 1) & mask) {
+                if (slots[i] == key) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void grow() {
+            long[] old = slots;
+            slots = new long[old.length * 2];
+            size = 0;
+            for (long key : old) {
+                if (key != EMPTY) {
+                    add(key);
+                }
+            }
+        }
+
+        private static int home(long key, int mask) {
+            return (int) (key ^ (key >>> 32)) & mask;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.jeff.hotel_management_system.service;
 
+import com.jeff.hotel_management_system.dto.OccupiesDto;
 import com.jeff.hotel_management_system.entity.Booking;
 import com.jeff.hotel_management_system.entity.Client;
 import com.jeff.hotel_management_system.entity.Occupies;
@@ -27,8 +28,8 @@ public class OccupiesService {
     @Autowired
     private BookingRepository bookingRepository;
 
-    public List<Occupies> getAllOccupies() {
-        return occupiesRepository.findAll();
+    public List<OccupiesDto> getAllOccupies() {
+        return occupiesRepository.findAllDtos();
     }
 
     public Optional<Occupies> getOccupiesById(OccupiesId occupiesId) {
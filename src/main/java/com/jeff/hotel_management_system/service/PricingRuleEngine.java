@@ -0,0 +1,264 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.entity.PricingRule;
+import com.jeff.hotel_management_system.entity.PricingRuleType;
+import com.jeff.hotel_management_system.repository.PricingRuleRepository;
+import com.jeff.hotel_management_system.repository.RoomRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles the active pricing rules into flat per-night multiplier arrays.
+ *
+ * Seasonal and weekday rules multiply together; for occupancy and length-of-stay rules the
+ * tier with the highest threshold reached wins. Nightly rules are evaluated once per room type
+ * and night of the horizon at compile time, so pricing a stay inside it only reads arrays. Nights
+ * outside the horizon, e.g. of a stay already running or booked further ahead, evaluate the seasonal
+ * and weekday rules directly; occupancy is only known inside the horizon. Length-of-stay rules apply
+ * to the whole stay and are kept as a short list sorted by threshold.
+ */
+@Service
+public class PricingRuleEngine {
+
+    private static final String ALL_ROOM_TYPES = "*";
+
+    @Autowired
+    private PricingRuleRepository pricingRuleRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Value("${hotel.pricing.horizon-days:830}")
+    private int horizonDays;
+
+    private volatile CompiledRules compiled = CompiledRules.none(LocalDate.now().toEpochDay());
+
+    /**
+     * Reloads the active rules and current occupancy and swaps in the new compiled form.
+     */
+    public void compile() {
+        long origin = LocalDate.now().toEpochDay();
+        // rows saved before PricingRuleService validated them are skipped rather than failing every price
+        List<PricingRule> rules = pricingRuleRepository.findByActiveTrue().stream()
+                .filter(rule -> rule.getRuleType() != null && rule.getMultiplier() > 0)
+                .toList();
+
+        double[] occupancy = occupancyRates(origin, rules);
+
+        Set<String> roomTypes = new HashSet<>();
+        roomTypes.add(ALL_ROOM_TYPES);
+        rules.stream().map(PricingRule::getRoomType).filter(Objects::nonNull).forEach(roomTypes::add);
+
+        Map<String, double[]> nightly = new HashMap<>();
+        Map<String, List<NightRule>> nightRules = new HashMap<>();
+        Map<String, List<PricingRule>> stayTiers = new HashMap<>();
+        for (String roomType : roomTypes) {
+            List<PricingRule> applicable = rules.stream()
+                    .filter(rule -> rule.getRoomType() == null || rule.getRoomType().equals(roomType))
+                    .toList();
+            List<NightRule> roomTypeNightRules = nightRules(applicable);
+            nightRules.put(roomType, roomTypeNightRules);
+            nightly.put(roomType, nightlyMultipliers(roomTypeNightRules, applicable, origin, occupancy));
+            stayTiers.put(roomType, applicable.stream()
+                    .filter(rule -> rule.getRuleType() == PricingRuleType.LENGTH_OF_STAY && rule.getMinNights() != null)
+                    .sorted(Comparator.comparing(PricingRule::getMinNights).reversed())
+                    .toList());
+        }
+
+        boolean dependsOnOccupancy = rules.stream().anyMatch(rule -> rule.getRuleType() == PricingRuleType.OCCUPANCY);
+        this.compiled = new CompiledRules(origin, nightly, nightRules, stayTiers, dependsOnOccupancy);
+    }
+
+    /**
+     * Multiplier of the given night for a room type. Outside the horizon only the seasonal and
+     * weekday rules apply.
+     */
+    public double nightlyMultiplier(String roomType, long epochDay) {
+        CompiledRules current = this.compiled;
+        double[] multipliers = current.nightly.getOrDefault(roomType, current.nightly.get(ALL_ROOM_TYPES));
+        long night = epochDay - current.origin;
+        if (night >= 0 && night < multipliers.length) {
+            return multipliers[(int) night];
+        }
+        return multiplier(current.nightRules.getOrDefault(roomType, current.nightRules.get(ALL_ROOM_TYPES)), epochDay);
+    }
+
+    /**
+     * Price of the nights [startDate, endDate) of a room, computed the way NightlyRateTable computes
+     * its rates. Used for stays the rate table does not cover, e.g. ones already running.
+     */
+    public long price(String roomType, long basePrice, LocalDate startDate, LocalDate endDate) {
+        String type = roomType != null ? roomType : ALL_ROOM_TYPES;
+        long start = startDate.toEpochDay();
+        long end = endDate.toEpochDay();
+        long total = 0;
+        for (long night = start; night < end; night++) {
+            total += Math.round(basePrice * nightlyMultiplier(type, night));
+        }
+        return Math.round(total * stayMultiplier(type, end - start));
+    }
+
+    /**
+     * Multiplier applied to the total of a stay of the given length.
+     */
+    public double stayMultiplier(String roomType, long nights) {
+        CompiledRules current = this.compiled;
+        List<PricingRule> tiers = current.stayTiers.getOrDefault(roomType, current.stayTiers.get(ALL_ROOM_TYPES));
+        for (PricingRule tier : tiers) {
+            if (nights >= tier.getMinNights()) {
+                return tier.getMultiplier();
+            }
+        }
+        return 1.0;
+    }
+
+    public boolean dependsOnOccupancy() {
+        return compiled.dependsOnOccupancy;
+    }
+
+    private double[] nightlyMultipliers(List<NightRule> nightRules, List<PricingRule> rules, long origin,
+                                        double[] occupancy) {
+        double[] multipliers = new double[horizonDays];
+        for (int night = 0; night < horizonDays; night++) {
+            multipliers[night] = multiplier(nightRules, origin + night);
+        }
+
+        List<PricingRule> occupancyTiers = rules.stream()
+                .filter(rule -> rule.getRuleType() == PricingRuleType.OCCUPANCY && rule.getMinOccupancyRate() != null)
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (!occupancyTiers.isEmpty()) {
+            occupancyTiers.sort(Comparator.comparing(PricingRule::getMinOccupancyRate).reversed());
+            for (int night = 0; night < horizonDays; night++) {
+                for (PricingRule tier : occupancyTiers) {
+                    if (occupancy[night] >= tier.getMinOccupancyRate()) {
+                        multipliers[night] *= tier.getMultiplier();
+                        break;
+                    }
+                }
+            }
+        }
+        return multipliers;
+    }
+
+    // Seasonal and weekday rules, in the order they multiply. Length-of-stay rules apply per stay, see
+    // stayMultiplier, and occupancy rules need the booked share of the night.
+    private List<NightRule> nightRules(List<PricingRule> rules) {
+        List<NightRule> nightRules = new ArrayList<>();
+        for (PricingRule rule : rules) {
+            if (rule.getRuleType() == PricingRuleType.SEASONAL && rule.getStartDate() != null && rule.getEndDate() != null) {
+                nightRules.add(new NightRule(rule.getStartDate().toEpochDay(), rule.getEndDate().toEpochDay(),
+                        null, rule.getMultiplier()));
+            } else if (rule.getRuleType() == PricingRuleType.WEEKDAY) {
+                nightRules.add(new NightRule(Long.MIN_VALUE, Long.MAX_VALUE, daysOfWeek(rule.getDaysOfWeek()),
+                        rule.getMultiplier()));
+            }
+        }
+        return nightRules;
+    }
+
+    private static double multiplier(List<NightRule> nightRules, long epochDay) {
+        double multiplier = 1.0;
+        for (NightRule rule : nightRules) {
+            if (rule.appliesTo(epochDay)) {
+                multiplier *= rule.multiplier;
+            }
+        }
+        return multiplier;
+    }
+
+    // Share of rooms booked for each night of the horizon, only computed when an occupancy rule exists.
+    private double[] occupancyRates(long origin, List<PricingRule> rules) {
+        double[] rates = new double[horizonDays];
+        boolean needed = rules.stream().anyMatch(rule -> rule.getRuleType() == PricingRuleType.OCCUPANCY);
+        long totalRooms = needed ? roomRepository.count() : 0;
+        if (totalRooms == 0) {
+            return rates;
+        }
+        int[] booked = availabilityIndex.bookedRoomsPerNight(LocalDate.ofEpochDay(origin), horizonDays);
+        for (int night = 0; night < horizonDays; night++) {
+            rates[night] = (double) booked[night] / totalRooms;
+        }
+        return rates;
+    }
+
+    private Set<DayOfWeek> daysOfWeek(String daysOfWeek) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        if (daysOfWeek != null) {
+            for (String day : daysOfWeek.split(",")) {
+                Arrays.stream(DayOfWeek.values())
+                        .filter(dayOfWeek -> dayOfWeek.name().equalsIgnoreCase(day.trim()))
+                        .forEach(days::add);
+            }
+        }
+        return days;
+    }
+
+    // A seasonal rule covers the nights [from, to), a weekday rule every night on one of its days.
+    private static class NightRule {
+
+        private final long from;
+
+        private final long to;
+
+        private final Set<DayOfWeek> days;
+
+        private final double multiplier;
+
+        NightRule(long from, long to, Set<DayOfWeek> days, double multiplier) {
+            this.from = from;
+            this.to = to;
+            this.days = days;
+            this.multiplier = multiplier;
+        }
+
+        boolean appliesTo(long epochDay) {
+            return epochDay >= from && epochDay < to
+                    && (days == null || days.contains(LocalDate.ofEpochDay(epochDay).getDayOfWeek()));
+        }
+    }
+
+    private static class CompiledRules {
+
+        private final long origin;
+
+        private final Map<String, double[]> nightly;
+
+        private final Map<String, List<NightRule>> nightRules;
+
+        private final Map<String, List<PricingRule>> stayTiers;
+
+        private final boolean dependsOnOccupancy;
+
+        CompiledRules(long origin, Map<String, double[]> nightly, Map<String, List<NightRule>> nightRules,
+                      Map<String, List<PricingRule>> stayTiers, boolean dependsOnOccupancy) {
+            this.origin = origin;
+            this.nightly = nightly;
+            this.nightRules = nightRules;
+            this.stayTiers = stayTiers;
+            this.dependsOnOccupancy = dependsOnOccupancy;
+        }
+
+        static CompiledRules none(long origin) {
+            return new CompiledRules(origin, Map.of(ALL_ROOM_TYPES, new double[0]), Map.of(ALL_ROOM_TYPES, List.of()),
+                    Map.of(ALL_ROOM_TYPES, List.of()), false);
+        }
+    }
+}
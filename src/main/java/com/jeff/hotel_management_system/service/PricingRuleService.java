@@ -0,0 +1,146 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.entity.PricingRule;
+import com.jeff.hotel_management_system.entity.PricingRuleType;
+import com.jeff.hotel_management_system.repository.PricingRuleRepository;
+import com.jeff.hotel_management_system.utils.TransactionUtils;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+@Transactional
+@Service
+public class PricingRuleService {
+
+    @Autowired
+    private PricingRuleRepository pricingRuleRepository;
+
+    @Autowired
+    private PricingRuleEngine pricingRuleEngine;
+
+    @Autowired
+    private NightlyRateTable nightlyRateTable;
+
+    // what the compiled rules were built from, to notice edits made on other nodes
+    private volatile long ruleCount = -1;
+
+    private volatile LocalDateTime lastUpdate;
+
+    public List<PricingRule> getAllRules() {
+
+        return pricingRuleRepository.findAll();
+    }
+
+    public Optional<PricingRule> getRuleById(Long id) {
+
+        return pricingRuleRepository.findById(id);
+    }
+
+    public PricingRule createRule(PricingRule rule) {
+
+        validate(rule);
+        rule.setId(null);
+        PricingRule savedRule = pricingRuleRepository.save(rule);
+        TransactionUtils.afterCommit(this::reload);
+        return savedRule;
+    }
+
+    public Optional<PricingRule> updateRule(Long id, PricingRule updatedRule) {
+        validate(updatedRule);
+        return pricingRuleRepository.findById(id).map(existingRule -> {
+            updatedRule.setId(id);
+            PricingRule savedRule = pricingRuleRepository.save(updatedRule);
+            TransactionUtils.afterCommit(this::reload);
+            return savedRule;
+        });
+    }
+
+    public boolean deleteRule(Long id) {
+
+        return pricingRuleRepository.findById(id).map(rule -> {
+            pricingRuleRepository.delete(rule);
+            TransactionUtils.afterCommit(this::reload);
+            return true;
+        }).orElse(false);
+    }
+
+    /**
+     * Rejects rules PricingRuleEngine cannot compile, or that would zero or negate prices.
+     */
+    void validate(PricingRule rule) {
+        if (rule.getName() == null || rule.getName().isBlank()) {
+            throw new IllegalArgumentException("A pricing rule needs a name");
+        }
+        if (rule.getRuleType() == null) {
+            throw new IllegalArgumentException("A pricing rule needs a rule type");
+        }
+        if (!(rule.getMultiplier() > 0) || Double.isInfinite(rule.getMultiplier())) {
+            throw new IllegalArgumentException("The multiplier must be above 0");
+        }
+        if (rule.getStartDate() != null && rule.getEndDate() != null && !rule.getEndDate().isAfter(rule.getStartDate())) {
+            throw new IllegalArgumentException("The end date must be after the start date");
+        }
+        if (rule.getRuleType() == PricingRuleType.SEASONAL && (rule.getStartDate() == null || rule.getEndDate() == null)) {
+            throw new IllegalArgumentException("A seasonal rule needs a start and an end date");
+        }
+        if (rule.getRuleType() == PricingRuleType.WEEKDAY) {
+            if (rule.getDaysOfWeek() == null || rule.getDaysOfWeek().isBlank()) {
+                throw new IllegalArgumentException("A weekday rule needs days of the week");
+            }
+            for (String day : rule.getDaysOfWeek().split(",")) {
+                try {
+                    DayOfWeek.valueOf(day.trim().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown day of the week: " + day.trim());
+                }
+            }
+        }
+        if (rule.getRuleType() == PricingRuleType.LENGTH_OF_STAY && (rule.getMinNights() == null || rule.getMinNights() < 1)) {
+            throw new IllegalArgumentException("A length of stay rule needs at least 1 minimum night");
+        }
+        if (rule.getRuleType() == PricingRuleType.OCCUPANCY && (rule.getMinOccupancyRate() == null
+                || rule.getMinOccupancyRate() < 0 || rule.getMinOccupancyRate() > 1)) {
+            throw new IllegalArgumentException("An occupancy rule needs a minimum occupancy rate between 0 and 1");
+        }
+    }
+
+    /**
+     * Recompiles the rules and rebuilds the nightly rate table. Also runs at startup and
+     * every night, when the horizon moves forward by a day.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${hotel.availability.rebuild-cron:0 5 0 * * *}")
+    public void reload() {
+        long count = pricingRuleRepository.count();
+        LocalDateTime updated = pricingRuleRepository.findLastUpdate();
+
+        pricingRuleEngine.compile();
+        nightlyRateTable.rebuild();
+
+        this.ruleCount = count;
+        this.lastUpdate = updated;
+    }
+
+    /**
+     * Picks up rule changes made through other nodes, and refreshes occupancy based rules
+     * as bookings come in.
+     */
+    @Scheduled(fixedDelayString = "${hotel.pricing.reload-interval-ms:60000}",
+            initialDelayString = "${hotel.pricing.reload-interval-ms:60000}")
+    public void reloadIfChanged() {
+        boolean changed = pricingRuleRepository.count() != ruleCount
+                || !Objects.equals(pricingRuleRepository.findLastUpdate(), lastUpdate);
+        if (changed || pricingRuleEngine.dependsOnOccupancy()) {
+            reload();
+        }
+    }
+}
@@ -1,33 +1,86 @@
 package com.jeff.hotel_management_system.service;
 
+import com.jeff.hotel_management_system.dto.DateRange;
+import com.jeff.hotel_management_system.dto.PriceQuoteDto;
 import com.jeff.hotel_management_system.entity.Room;
-import com.jeff.hotel_management_system.repository.RoomRepository;
+import io.micrometer.observation.annotation.Observed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
 
+@Observed(name = "hotel.service")
 @Service
 public class PricingService {
 
     @Autowired
-    private RoomRepository roomRepository;
+    private RoomCache roomCache;
+
+    @Autowired
+    private NightlyRateTable nightlyRateTable;
+
+    @Autowired
+    private PricingRuleEngine pricingRuleEngine;
 
     public Long calculatePrice(String roomNr, LocalDate startDate, LocalDate endDate) {
-        return roomRepository.findByRoomNr(roomNr)
-                .map(room -> {
-                    Long basePrice = room.getBasePrice();
-                    Long price = basePrice * (endDate.toEpochDay() - startDate.toEpochDay());
-                    return price;
-                })
+        OptionalLong quoted = nightlyRateTable.quote(roomNr, startDate, endDate);
+        if (quoted.isPresent()) {
+            return quoted.getAsLong();
+        }
+
+        return roomCache.findById(roomNr)
+                .map(room -> rulePrice(room, startDate, endDate))
                 .orElseThrow(() -> new RuntimeException("Room not found"));
     }
 
     public Long calculatePrice(Room room, LocalDate startDate, LocalDate endDate) {
-        // Calculate price based on room type, dates, and occupancy
-        // For simplicity, let's assume a basic calculation
-        Long basePrice = room.getBasePrice();
-        Long price = basePrice * (endDate.toEpochDay() - startDate.toEpochDay());
-        return price;
+        OptionalLong quoted = nightlyRateTable.quote(room.getRoomNr(), startDate, endDate);
+        return quoted.isPresent() ? quoted.getAsLong() : rulePrice(room, startDate, endDate);
+    }
+
+    /**
+     * Prices every room for the same stay, in the order of the given rooms.
+     */
+    public long[] calculatePrices(List<Room> rooms, LocalDate startDate, LocalDate endDate) {
+        long[] prices = new long[rooms.size()];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = calculatePrice(rooms.get(i), startDate, endDate);
+        }
+        return prices;
+    }
+
+    /**
+     * Prices every room for every date range in one call. Quotes come from the nightly rate
+     * table; only rooms missing from it, or ranges outside its horizon, are looked up in RoomCache
+     * and priced through the rules.
+     */
+    public List<PriceQuoteDto> quote(List<String> roomNrs, List<DateRange> ranges) {
+        List<PriceQuoteDto> quotes = new ArrayList<>(roomNrs.size() * ranges.size());
+        for (String roomNr : roomNrs) {
+            Room room = null;
+            for (DateRange range : ranges) {
+                OptionalLong quoted = nightlyRateTable.quote(roomNr, range.getStartDate(), range.getEndDate());
+                Long price;
+                if (quoted.isPresent()) {
+                    price = quoted.getAsLong();
+                } else {
+                    if (room == null) {
+                        room = roomCache.findById(roomNr)
+                                .orElseThrow(() -> new RuntimeException("Room not found"));
+                    }
+                    price = rulePrice(room, range.getStartDate(), range.getEndDate());
+                }
+                quotes.add(new PriceQuoteDto(roomNr, range.getStartDate(), range.getEndDate(), price));
+            }
+        }
+        return quotes;
+    }
+
+    // Stays the rate table cannot quote, e.g. already running or reaching past its horizon
+    private Long rulePrice(Room room, LocalDate startDate, LocalDate endDate) {
+        return pricingRuleEngine.price(room.getRoomType(), room.getBasePrice(), startDate, endDate);
     }
-}
\ No newline at end of file
+}
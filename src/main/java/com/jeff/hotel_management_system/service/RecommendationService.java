@@ -1,46 +1,333 @@
 package com.jeff.hotel_management_system.service;
 
 import com.jeff.hotel_management_system.entity.Room;
-import com.jeff.hotel_management_system.repository.RoomRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Room recommendations generated by the chat model.
+ *
+ * Available rooms are first pre-ranked against the preferences by RoomEmbeddingIndex, and only the
+ * best hotel.recommendations.top-k candidates are described to the model. In deterministic-only
+ * mode the ranking itself is the answer and the model is not called.
+ *
+ * The prompt only depends on the available rooms and the client preferences, so answers are cached
+ * by a hash of the normalized prompt. When a booking or hold changes the available set, the prompt
+ * and therefore the key change, and stale answers are never served. Concurrent identical requests
+ * share a single model call.
+ */
 @Service
 public class RecommendationService {
 
     @Autowired
-    private RoomRepository roomRepository;
+    private RoomService roomService;
+
+    @Autowired
+    private RoomEmbeddingIndex roomEmbeddingIndex;
 
     private final ChatClient chatClient;
 
-    public RecommendationService(ChatClient.Builder chatClientBuilder) {
+    @Value("${hotel.recommendations.top-k:5}")
+    private int topK;
+
+    @Value("${hotel.recommendations.deterministic-only:false}")
+    private boolean deterministicOnly;
+
+    @Value("${hotel.recommendations.cache-ttl-minutes:10}")
+    private long cacheTtlMinutes;
+
+    @Value("${hotel.recommendations.cache-size:1000}")
+    private int cacheSize;
+
+    // prompt hash -> answer, in access order so the eldest entry is the least recently used
+    private final Map<String, CachedRecommendation> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedRecommendation> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    private final Timer timeToFirstToken;
+
+    private final Timer streamDuration;
+
+    public RecommendationService(ChatClient.Builder chatClientBuilder, MeterRegistry meterRegistry) {
 
         this.chatClient = chatClientBuilder.build();
+        this.timeToFirstToken = Timer.builder("hotel.recommendations.time-to-first-token")
+                .description("Time from the start of a streamed recommendation to its first token")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.streamDuration = Timer.builder("hotel.recommendations.stream-duration")
+                .description("Time to stream a whole recommendation")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
     }
 
     public String recommendRooms(LocalDate startDate, LocalDate endDate, int minOccupancy, String clientPreferences) {
 
-        // Fetch available rooms from the database
-        List<Room> availableRooms = roomRepository.findAvailableRooms(startDate, endDate, minOccupancy);
+        PreparedPrompt prepared = prepare(startDate, endDate, minOccupancy, clientPreferences);
+        if (prepared.answer != null) {
+            return prepared.answer;
+        }
+
+        // The first request for a key calls the model, the others wait for its answer
+        Claim claim = claim(prepared.key);
+        if (claim.leader) {
+            try {
+                // Generate recommendations using ChatClient
+                claim.cached.answer.complete(chatClient.prompt()
+                        .user(prepared.prompt)
+                        .call()
+                        .content());
+            } catch (RuntimeException e) {
+                fail(prepared.key, claim.cached, e);
+                throw e;
+            }
+        }
+
+        try {
+            return claim.cached.answer.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        } finally {
+            claim.release();
+        }
+    }
+
+    /**
+     * Streams the recommendation as the model generates it. Cached answers, and answers another
+     * request is already generating, are emitted as a single chunk once available. Nothing blocks.
+     *
+     * The model is streamed independently of the client that started it, so when that client goes
+     * away the answer is still generated for the requests waiting on it. Without waiting requests
+     * the generation is stopped and nothing is cached.
+     */
+    public Flux<String> streamRecommendations(LocalDate startDate, LocalDate endDate, int minOccupancy, String clientPreferences) {
+
+        return Flux.defer(() -> {
+            PreparedPrompt prepared = prepare(startDate, endDate, minOccupancy, clientPreferences);
+            if (prepared.answer != null) {
+                return Flux.just(prepared.answer);
+            }
+
+            Claim claim = claim(prepared.key);
+            if (!claim.leader) {
+                return Mono.fromFuture(claim.cached.answer, true)
+                        .doFinally(signal -> claim.release())
+                        .flux();
+            }
+
+            long started = System.nanoTime();
+            AtomicBoolean firstToken = new AtomicBoolean(true);
+            StringBuilder answer = new StringBuilder();
+            Sinks.Many<String> tokens = Sinks.many().replay().all();
+            Disposable generation = chatClient.prompt()
+                    .user(prepared.prompt)
+                    .stream()
+                    .content()
+                    .doOnNext(token -> {
+                        if (firstToken.compareAndSet(true, false)) {
+                            timeToFirstToken.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                        }
+                        answer.append(token);
+                    })
+                    .subscribe(tokens::tryEmitNext,
+                            e -> {
+                                fail(prepared.key, claim.cached, e);
+                                tokens.tryEmitError(e);
+                            },
+                            () -> {
+                                streamDuration.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                                claim.cached.answer.complete(answer.toString());
+                                tokens.tryEmitComplete();
+                            });
+
+            return tokens.asFlux()
+                    .doOnCancel(() -> abandon(prepared.key, claim.cached, generation));
+        });
+    }
+
+    // Builds the prompt, or the final answer when the model does not need to be asked
+    private PreparedPrompt prepare(LocalDate startDate, LocalDate endDate, int minOccupancy, String clientPreferences) {
+
+        String preferences = normalize(clientPreferences);
+
+        // Fetch available rooms and keep the best matches, the ranking is deterministic so the
+        // same set always yields the same prompt
+        List<Room> availableRooms = roomService.findAvailableRooms(startDate, endDate, minOccupancy);
+        List<Room> candidates = roomEmbeddingIndex.topK(availableRooms, preferences, topK);
+
+        if (candidates.isEmpty()) {
+            return PreparedPrompt.answered("No rooms are available for the selected dates.");
+        }
+        if (deterministicOnly) {
+            return PreparedPrompt.answered(rankingAnswer(candidates));
+        }
 
         // Prepare AI input
-        StringBuilder aiInput = new StringBuilder("Available rooms:\n");
-        for (Room room : availableRooms) {
-            aiInput.append(String.format("Room %s on floor %d, max occupancy: %d.\n",
-                    room.getRoomNr(), room.getFloor(), room.getMaxOccupancy()));
+        StringBuilder aiInput = new StringBuilder("Available rooms, best matches first:\n");
+        for (Room room : candidates) {
+            aiInput.append(describe(room)).append('\n');
         }
 
-        aiInput.append("\nClient preferences: ").append(clientPreferences);
+        aiInput.append("\nClient preferences: ").append(preferences);
         aiInput.append("\nRecommend the best room for the client.");
 
-        // Generate recommendations using ChatClient
-        return chatClient.prompt()
-                .user(aiInput.toString())
-                .call()
-                .content();
+        String prompt = aiInput.toString();
+        return new PreparedPrompt(prompt, hash(prompt), null);
+    }
+
+    // Returns the live cache entry of the key, creating it if this request has to call the model
+    private Claim claim(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            CachedRecommendation cached = cache.get(key);
+            if (cached != null && !cached.isExpired(now)) {
+                cached.waiting.incrementAndGet();
+                return new Claim(cached, false);
+            }
+            cached = new CachedRecommendation(new CompletableFuture<>(), now + cacheTtlMinutes * 60_000);
+            cache.put(key, cached);
+            return new Claim(cached, true);
+        }
+    }
+
+    // The streaming client went away, a partial answer is only finished for requests waiting on it.
+    // Followers register under the same lock, so none can join once the entry is dropped here.
+    private void abandon(String key, CachedRecommendation cached, Disposable generation) {
+        synchronized (cache) {
+            if (cached.waiting.get() > 0 || cached.answer.isDone()) {
+                return;
+            }
+            cache.remove(key, cached);
+        }
+        generation.dispose();
+        cached.answer.completeExceptionally(new CancellationException("Stream cancelled"));
+    }
+
+    // failures are not cached, the next request tries again
+    private void fail(String key, CachedRecommendation cached, Throwable error) {
+        synchronized (cache) {
+            cache.remove(key, cached);
+        }
+        cached.answer.completeExceptionally(error);
+    }
+
+    private static String rankingAnswer(List<Room> candidates) {
+        StringBuilder answer = new StringBuilder("Recommended rooms, best match first:\n");
+        for (int i = 0; i < candidates.size(); i++) {
+            answer.append(i + 1).append(". ").append(describe(candidates.get(i))).append('\n');
+        }
+        return answer.toString();
+    }
+
+    private static String describe(Room room) {
+        return String.format(Locale.ROOT,
+                "Room %s (%s) on floor %d, max occupancy: %d, sea view: %s, balcony: %s, pet friendly: %s, "
+                        + "amenities: %s, preferred for: %s, rating: %.1f.",
+                room.getRoomNr(), room.getRoomType(), room.getFloor(), room.getMaxOccupancy(),
+                yesNo(room.isHasSeaView()), yesNo(room.isHasBalcony()), yesNo(room.isPetFriendly()),
+                room.getAmenities(), room.getPreferredFor(), room.getRating());
+    }
+
+    private static String yesNo(boolean value) {
+        return value ? "yes" : "no";
+    }
+
+    // Preferences differing only in case or spacing get the same answer
+    private static String normalize(String preferences) {
+        return preferences == null ? "" : preferences.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String hash(String prompt) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(prompt.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class PreparedPrompt {
+
+        private final String prompt;
+
+        private final String key;
+
+        private final String answer;
+
+        PreparedPrompt(String prompt, String key, String answer) {
+            this.prompt = prompt;
+            this.key = key;
+            this.answer = answer;
+        }
+
+        static PreparedPrompt answered(String answer) {
+            return new PreparedPrompt(null, null, answer);
+        }
+    }
+
+    private static class Claim {
+
+        private final CachedRecommendation cached;
+
+        private final boolean leader;
+
+        Claim(CachedRecommendation cached, boolean leader) {
+            this.cached = cached;
+            this.leader = leader;
+        }
+
+        void release() {
+            if (!leader) {
+                cached.waiting.decrementAndGet();
+            }
+        }
+    }
+
+    private static class CachedRecommendation {
+
+        private final CompletableFuture<String> answer;
+
+        private final long expiresAt;
+
+        // followers waiting on an answer that is still being generated
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        CachedRecommendation(CompletableFuture<String> answer, long expiresAt) {
+            this.answer = answer;
+            this.expiresAt = expiresAt;
+        }
+
+        // an answer still being generated never expires, it is shared until it completes
+        boolean isExpired(long now) {
+            return answer.isDone() && expiresAt <= now;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,145 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.entity.Room;
+import com.jeff.hotel_management_system.repository.RoomRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Read-through cache of all rooms.
+ *
+ * Room metadata is read on every search, quote and booking but only changes through RoomService,
+ * so the whole table is kept in memory. RoomService calls invalidate after each committed change;
+ * the room is reloaded here and every other node is told to reload it over INVALIDATION_CHANNEL.
+ * Rooms returned from the cache are shared and must be treated as read-only. Loads run in a new read-write
+ * transaction so they go to the primary, also when called from a read-only one; a read replica may not
+ * have the change yet.
+ */
+@Service
+public class RoomCache {
+
+    public static final String INVALIDATION_CHANNEL = "room_cache:invalidate";
+
+    // message asking every node to reload the whole table, e.g. after a bulk import
+    public static final String ALL_ROOMS = "*";
+
+    private final RoomRepository roomRepository;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final TransactionTemplate primaryReads;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded = false;
+
+    // not synchronized, the first load reads the database and would pin a virtual thread's carrier
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    @Autowired
+    public RoomCache(RoomRepository roomRepository, StringRedisTemplate redisTemplate, MeterRegistry meterRegistry,
+                     PlatformTransactionManager transactionManager) {
+        this.roomRepository = roomRepository;
+        this.redisTemplate = redisTemplate;
+        this.primaryReads = new TransactionTemplate(transactionManager);
+        this.primaryReads.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.hits = Counter.builder("hotel.rooms.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("hotel.rooms.cache").tag("result", "miss").register(meterRegistry);
+    }
+
+    public List<Room> findAll() {
+        ensureLoaded();
+        hits.increment();
+        return rooms.values().stream()
+                .sorted(Comparator.comparing(Room::getRoomNr))
+                .toList();
+    }
+
+    public List<Room> findByMaxOccupancyGreaterThanEqual(int minOccupancy) {
+        return findAll().stream()
+                .filter(room -> room.getMaxOccupancy() >= minOccupancy)
+                .toList();
+    }
+
+    public Optional<Room> findById(String roomNr) {
+        ensureLoaded();
+        Room room = rooms.get(roomNr);
+        if (room != null) {
+            hits.increment();
+            return Optional.of(room);
+        }
+        // e.g. created on another node and its message is still on the way
+        misses.increment();
+        Optional<Room> loadedRoom = primaryReads.execute(status -> roomRepository.findById(roomNr));
+        loadedRoom.ifPresent(found -> rooms.put(roomNr, found));
+        return loadedRoom;
+    }
+
+    /**
+     * Reloads a room after it was created, updated or deleted, here and on all other nodes.
+     */
+    public void invalidate(String roomNr) {
+        reload(roomNr);
+        redisTemplate.convertAndSend(INVALIDATION_CHANNEL, roomNr);
+    }
+
+    /**
+     * Reloads every room, here and on all other nodes. Rooms are only added or updated, not removed.
+     */
+    public void invalidateAll() {
+        reload(ALL_ROOMS);
+        redisTemplate.convertAndSend(INVALIDATION_CHANNEL, ALL_ROOMS);
+    }
+
+    /**
+     * Reloads a room changed on any node, or all of them for ALL_ROOMS. Called for messages on INVALIDATION_CHANNEL.
+     */
+    public void reload(String roomNr) {
+        if (!loaded) {
+            return;
+        }
+        misses.increment();
+        if (ALL_ROOMS.equals(roomNr)) {
+            primaryReads.execute(status -> roomRepository.findAll())
+                    .forEach(room -> rooms.put(room.getRoomNr(), room));
+            return;
+        }
+        primaryReads.execute(status -> roomRepository.findById(roomNr)).ifPresentOrElse(
+                room -> rooms.put(roomNr, room),
+                () -> rooms.remove(roomNr));
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loadLock.lock();
+        try {
+            if (!loaded) {
+                misses.increment();
+                primaryReads.execute(status -> roomRepository.findAll())
+                        .forEach(room -> rooms.put(room.getRoomNr(), room));
+                loaded = true;
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+}
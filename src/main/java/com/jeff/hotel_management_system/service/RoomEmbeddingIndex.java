@@ -0,0 +1,205 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.config.PrimaryRead;
+import com.jeff.hotel_management_system.entity.Room;
+import com.jeff.hotel_management_system.repository.RoomRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-process vector index of room features, used to pre-rank rooms against client preferences.
+ *
+ * Each room is described by its type, amenities, preferredFor and feature flags. Terms and
+ * adjacent term pairs are weighted by TF-IDF over all rooms and hashed into a fixed number of
+ * dimensions, so embeddings are deterministic and computed locally. Vectors are L2-normalized and
+ * the score is their dot product, plus a small bonus for the customer rating. The index is
+ * rebuilt whole at startup and whenever a room changes.
+ */
+@Service
+public class RoomEmbeddingIndex {
+
+    // a 5.0 rating adds this much to the similarity, enough to order rooms that match equally well
+    private static final double RATING_WEIGHT = 0.05;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Value("${hotel.recommendations.embedding-dimensions:512}")
+    private int dimensions;
+
+    private volatile Index index = new Index(Map.of(), Map.of(), 0);
+
+    @EventListener(ApplicationReadyEvent.class)
+    @PrimaryRead
+    public void rebuild() {
+        List<Room> rooms = roomRepository.findAll();
+
+        Map<String, List<String>> terms = new HashMap<>();
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        for (Room room : rooms) {
+            List<String> roomTerms = terms(describe(room));
+            terms.put(room.getRoomNr(), roomTerms);
+            new HashSet<>(roomTerms).forEach(term -> documentFrequency.merge(term, 1, Integer::sum));
+        }
+
+        Map<String, Double> idf = new HashMap<>();
+        documentFrequency.forEach((term, df) -> idf.put(term, Math.log((1.0 + rooms.size()) / (1.0 + df)) + 1.0));
+
+        Index built = new Index(new HashMap<>(), idf, rooms.size());
+        terms.forEach((roomNr, roomTerms) -> built.vectors.put(roomNr, embed(roomTerms, built)));
+        this.index = built;
+    }
+
+    /**
+     * Returns at most k of the candidates, best match for the preferences first.
+     * Ties are broken by rating, then by room number, so the order is always the same.
+     */
+    public List<Room> topK(List<Room> candidates, String preferences, int k) {
+        Index current = this.index;
+        float[] query = embed(terms(preferences == null ? "" : preferences), current);
+
+        List<ScoredRoom> scored = new ArrayList<>(candidates.size());
+        for (Room room : candidates) {
+            float[] vector = current.vectors.get(room.getRoomNr());
+            if (vector == null) {
+                // added after the last rebuild
+                vector = embed(terms(describe(room)), current);
+            }
+            scored.add(new ScoredRoom(room, dot(query, vector) + RATING_WEIGHT * room.getRating() / 5.0));
+        }
+
+        return scored.stream()
+                .sorted(Comparator.comparingDouble((ScoredRoom s) -> s.score).reversed()
+                        .thenComparing(s -> s.room.getRoomNr()))
+                .limit(Math.max(0, k))
+                .map(s -> s.room)
+                .toList();
+    }
+
+    // Text embedded for a room, the same fields the chat model is given
+    static String describe(Room room) {
+        StringBuilder text = new StringBuilder();
+        text.append(room.getRoomType()).append(' ');
+        text.append(room.getAmenities()).append(' ');
+        if (room.getPreferredFor() != null) {
+            text.append(room.getPreferredFor()).append(' ');
+        }
+        if (room.isHasSeaView()) {
+            text.append("sea view ");
+        }
+        if (room.isHasBalcony()) {
+            text.append("balcony ");
+        }
+        if (room.isHasWifi()) {
+            text.append("wifi ");
+        }
+        if (room.isHasAirConditioning()) {
+            text.append("air conditioning ");
+        }
+        if (room.isPetFriendly()) {
+            text.append("pet friendly ");
+        }
+        return text.toString();
+    }
+
+    // Lowercased words plus adjacent pairs, so "sea view" also matches as a phrase
+    private static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        String previous = null;
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            terms.add(word);
+            if (previous != null) {
+                terms.add(previous + "_" + word);
+            }
+            previous = word;
+        }
+        return terms;
+    }
+
+    private float[] embed(List<String> terms, Index index) {
+        Map<String, Integer> termFrequency = new HashMap<>();
+        terms.forEach(term -> termFrequency.merge(term, 1, Integer::sum));
+
+        // terms no room has get the highest weight, they can only match through hash collisions
+        double unseenIdf = Math.log(1.0 + index.roomCount) + 1.0;
+        float[] vector = new float[dimensions];
+        termFrequency.forEach((term, tf) -> {
+            int hash = mix(term.hashCode());
+            int dimension = Math.floorMod(hash, dimensions);
+            // a second hash bit picks the sign, so collisions cancel out instead of adding up
+            float sign = (hash & 0x8000_0000) == 0 ? 1f : -1f;
+            vector[dimension] += sign * tf * index.idf.getOrDefault(term, unseenIdf).floatValue();
+        });
+
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm > 0) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    // spreads String.hashCode, which is stable across JVMs, over all bits
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EB_CA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2_AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    private static class Index {
+
+        private final Map<String, float[]> vectors;
+
+        private final Map<String, Double> idf;
+
+        private final int roomCount;
+
+        Index(Map<String, float[]> vectors, Map<String, Double> idf, int roomCount) {
+            this.vectors = vectors;
+            this.idf = idf;
+            this.roomCount = roomCount;
+        }
+    }
+
+    private static class ScoredRoom {
+
+        private final Room room;
+
+        private final double score;
+
+        ScoredRoom(Room room, double score) {
+            this.room = room;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.exception.BookingConflictException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived holds on room-nights, taken when a Stripe checkout session is created so that two
+ * guests cannot pay for the same nights.
+ *
+ * Redis is the authority: all nights of a stay are claimed at once by a Lua script, with a TTL
+ * so abandoned checkouts expire on their own. Every node mirrors the live holds in a lock-free
+ * map, kept current over HOLD_CHANNEL, so availability search and obvious conflicts are answered
+ * without a round trip.
+ */
+@Service
+public class RoomHoldService {
+
+    public static final String HOLD_CHANNEL = "room_hold:events";
+
+    private static final String KEY_PREFIX = "room_hold:";
+
+    // ARGV[1] = hold id, ARGV[2] = ttl in ms. Nights already held by the same hold are renewed.
+    private static final RedisScript<Long> ACQUIRE = new DefaultRedisScript<>("""
+            for _, key in ipairs(KEYS) do
+                local holder = redis.call('GET', key)
+                if holder and holder ~= ARGV[1] then
+                    return 0
+                end
+            end
+            for _, key in ipairs(KEYS) do
+                redis.call('SET', key, ARGV[1], 'PX', ARGV[2])
+            end
+            return 1
+            """, Long.class);
+
+    // Only deletes the nights still held by ARGV[1], a hold that expired may have been taken over.
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>("""
+            local released = 0
+            for _, key in ipairs(KEYS) do
+                if redis.call('GET', key) == ARGV[1] then
+                    released = released + redis.call('DEL', key)
+                end
+            end
+            return released
+            """, Long.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Value("${hotel.holds.ttl-minutes:35}")
+    private long ttlMinutes;
+
+    // "roomNr:epochDay" -> hold of that night
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+
+    /**
+     * Holds the nights [startDate, endDate) of the room and returns the hold id.
+     * Throws BookingConflictException if any night is booked or held by someone else.
+     */
+    public String hold(String roomNr, LocalDate startDate, LocalDate endDate) {
+        checkAvailable(roomNr, startDate, endDate);
+        String holdId = UUID.randomUUID().toString();
+        acquire(roomNr, startDate, endDate, holdId);
+        return holdId;
+    }
+
+    /**
+     * Holds the nights [startDate, endDate) of every room under a single hold id, or none of them.
+     * Throws BookingConflictException if any night of any room is booked or held by someone else.
+     */
+    public String hold(List<String> roomNrs, LocalDate startDate, LocalDate endDate) {
+        // answered from the local mirrors, so an obvious conflict costs no Redis call at all
+        for (String roomNr : roomNrs) {
+            checkAvailable(roomNr, startDate, endDate);
+        }
+
+        String holdId = UUID.randomUUID().toString();
+        List<String> held = new ArrayList<>(roomNrs.size());
+        try {
+            // one script per room, the nights of different rooms may live in different cluster slots
+            for (String roomNr : roomNrs) {
+                acquire(roomNr, startDate, endDate, holdId);
+                held.add(roomNr);
+            }
+        } catch (RuntimeException e) {
+            release(held, startDate, endDate, holdId);
+            throw e;
+        }
+        return holdId;
+    }
+
+    /**
+     * Releases a hold once its stay is booked or its checkout was abandoned.
+     */
+    public void release(String roomNr, LocalDate startDate, LocalDate endDate, String holdId) {
+        redisTemplate.execute(RELEASE, redisKeys(roomNr, startDate, endDate), holdId);
+        mirrorRelease(roomNr, startDate, endDate, holdId);
+        publish("RELEASE", roomNr, startDate, endDate, holdId, 0);
+    }
+
+    /**
+     * Releases a hold taken on several rooms at once.
+     */
+    public void release(List<String> roomNrs, LocalDate startDate, LocalDate endDate, String holdId) {
+        for (String roomNr : roomNrs) {
+            release(roomNr, startDate, endDate, holdId);
+        }
+    }
+
+    /**
+     * Returns true if any night in [startDate, endDate) of the room is held by a live hold.
+     */
+    public boolean isHeld(String roomNr, LocalDate startDate, LocalDate endDate) {
+        long now = System.currentTimeMillis();
+        for (long day = startDate.toEpochDay(); day < endDate.toEpochDay(); day++) {
+            Hold hold = holds.get(localKey(roomNr, day));
+            if (hold != null && hold.expiresAt > now) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies a hold event published by any node on HOLD_CHANNEL.
+     */
+    public void onHoldEvent(String message) {
+        String[] parts = message.split("\\|");
+        String roomNr = parts[1];
+        LocalDate startDate = LocalDate.parse(parts[2]);
+        LocalDate endDate = LocalDate.parse(parts[3]);
+        String holdId = parts[4];
+        if ("HOLD".equals(parts[0])) {
+            mirrorHold(roomNr, startDate, endDate, holdId, Long.parseLong(parts[5]));
+        } else {
+            mirrorRelease(roomNr, startDate, endDate, holdId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${hotel.holds.sweep-interval-ms:60000}")
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        holds.values().removeIf(hold -> hold.expiresAt <= now);
+    }
+
+    private void checkAvailable(String roomNr, LocalDate startDate, LocalDate endDate) {
+        if (!startDate.isBefore(endDate)) {
+            throw new IllegalArgumentException("End date must be after start date");
+        }
+        if (bookingIntervalIndex.hasConflict(roomNr, startDate, endDate)) {
+            throw new BookingConflictException("Room " + roomNr + " is already booked for the selected dates");
+        }
+        if (isHeld(roomNr, startDate, endDate)) {
+            throw heldException(roomNr);
+        }
+    }
+
+    private void acquire(String roomNr, LocalDate startDate, LocalDate endDate, String holdId) {
+        long ttlMs = ttlMinutes * 60_000;
+        Long acquired = redisTemplate.execute(ACQUIRE, redisKeys(roomNr, startDate, endDate), holdId, String.valueOf(ttlMs));
+        if (acquired == null || acquired == 0) {
+            throw heldException(roomNr);
+        }
+
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        mirrorHold(roomNr, startDate, endDate, holdId, expiresAt);
+        publish("HOLD", roomNr, startDate, endDate, holdId, expiresAt);
+    }
+
+    private void mirrorHold(String roomNr, LocalDate startDate, LocalDate endDate, String holdId, long expiresAt) {
+        Hold hold = new Hold(holdId, expiresAt);
+        for (long day = startDate.toEpochDay(); day < endDate.toEpochDay(); day++) {
+            holds.put(localKey(roomNr, day), hold);
+        }
+    }
+
+    private void mirrorRelease(String roomNr, LocalDate startDate, LocalDate endDate, String holdId) {
+        for (long day = startDate.toEpochDay(); day < endDate.toEpochDay(); day++) {
+            // leaves a newer hold of the night in place
+            holds.computeIfPresent(localKey(roomNr, day), (key, hold) -> hold.holdId.equals(holdId) ? null : hold);
+        }
+    }
+
+    private void publish(String type, String roomNr, LocalDate startDate, LocalDate endDate, String holdId, long expiresAt) {
+        redisTemplate.convertAndSend(HOLD_CHANNEL,
+                String.join("|", type, roomNr, startDate.toString(), endDate.toString(), holdId, String.valueOf(expiresAt)));
+    }
+
+    // the {roomNr} hash tag keeps all nights of a room in one cluster slot, as the scripts require
+    private List<String> redisKeys(String roomNr, LocalDate startDate, LocalDate endDate) {
+        List<String> keys = new ArrayList<>();
+        for (long day = startDate.toEpochDay(); day < endDate.toEpochDay(); day++) {
+            keys.add(KEY_PREFIX + "{" + roomNr + "}:" + day);
+        }
+        return keys;
+    }
+
+    private static String localKey(String roomNr, long epochDay) {
+        return roomNr + ":" + epochDay;
+    }
+
+    private static BookingConflictException heldException(String roomNr) {
+        return new BookingConflictException("Room " + roomNr + " is currently on hold for the selected dates, please try again later");
+    }
+
+    private static class Hold {
+
+        private final String holdId;
+
+        private final long expiresAt;
+
+        Hold(String holdId, long expiresAt) {
+            this.holdId = holdId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -4,16 +4,20 @@ import com.jeff.hotel_management_system.dto.RoomDto;
 import com.jeff.hotel_management_system.dto.RoomResponseDto;
 import com.jeff.hotel_management_system.entity.Room;
 import com.jeff.hotel_management_system.repository.RoomRepository;
-import jakarta.transaction.Transactional;
+import com.jeff.hotel_management_system.utils.TransactionUtils;
+import io.micrometer.observation.annotation.Observed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+@Observed(name = "hotel.service")
 @Transactional
 @Service
 public class RoomService {
@@ -24,8 +28,24 @@ public class RoomService {
     @Autowired
     private PricingService pricingService;
 
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private NightlyRateTable nightlyRateTable;
+
+    @Autowired
+    private RoomHoldService roomHoldService;
+
+    @Autowired
+    private RoomEmbeddingIndex roomEmbeddingIndex;
+
+    @Autowired
+    private RoomCache roomCache;
+
+    @Transactional(readOnly = true)
     public List<RoomResponseDto> getAllRooms() {
-        return roomRepository.findAll().stream()
+        return roomCache.findAll().stream()
                 .map(this::mapToDto)
                 .collect(Collectors.toList());
     }
@@ -51,18 +71,32 @@ public class RoomService {
 
     public Optional<Room> getRoomByRoomNr(String roomNr) {
 
-        return roomRepository.findById(roomNr);
+        return roomCache.findById(roomNr);
     }
 
     public Room createRoom(Room room) {
 
-        return roomRepository.save(room);
+        Room savedRoom = roomRepository.save(room);
+        TransactionUtils.afterCommit(() -> {
+            roomCache.invalidate(savedRoom.getRoomNr());
+            nightlyRateTable.refresh(savedRoom);
+            roomEmbeddingIndex.rebuild();
+        });
+        return savedRoom;
     }
 
     public Optional<Room> updateRoom(String roomNr, Room updatedRoom) {
         return roomRepository.findById(roomNr).map(existingRoom -> {
+            // read before saving, the merge copies the new values onto the managed instance
+            Long previousBasePrice = existingRoom.getBasePrice();
             updatedRoom.setRoomNr(roomNr);
-            return roomRepository.save(updatedRoom);
+            Room savedRoom = roomRepository.save(updatedRoom);
+            TransactionUtils.afterCommit(() -> roomCache.invalidate(roomNr));
+            if (!Objects.equals(previousBasePrice, savedRoom.getBasePrice())) {
+                TransactionUtils.afterCommit(() -> nightlyRateTable.refresh(savedRoom));
+            }
+            TransactionUtils.afterCommit(roomEmbeddingIndex::rebuild);
+            return savedRoom;
         });
     }
 
@@ -70,24 +104,67 @@ public class RoomService {
 
         return roomRepository.findById(roomNr).map(room -> {
             roomRepository.delete(room);
+            TransactionUtils.afterCommit(() -> {
+                roomCache.invalidate(roomNr);
+                nightlyRateTable.remove(roomNr);
+                roomEmbeddingIndex.rebuild();
+            });
             return true;
         }).orElse(false);
     }
 
+    /**
+     * Brings the cache, the nightly rates and the embeddings up to date with a room changed on any node,
+     * or with every room for RoomCache.ALL_ROOMS. Called for messages on RoomCache.INVALIDATION_CHANNEL;
+     * the node that made the change gets its own message too, which repeats work it already did.
+     */
+    public void onRoomInvalidated(String roomNr) {
+        roomCache.reload(roomNr);
+        if (RoomCache.ALL_ROOMS.equals(roomNr)) {
+            nightlyRateTable.rebuild();
+        } else {
+            roomCache.findById(roomNr).ifPresentOrElse(nightlyRateTable::refresh, () -> nightlyRateTable.remove(roomNr));
+        }
+        roomEmbeddingIndex.rebuild();
+    }
+
+    /**
+     * Rooms with at least minOccupancy places that are neither booked nor held for [startDate, endDate).
+     */
+    @Transactional(readOnly = true)
+    public List<Room> findAvailableRooms(LocalDate startDate, LocalDate endDate, int minOccupancy) {
+
+        List<Room> availableRooms;
+        if (availabilityIndex.covers(startDate, endDate)) {
+            // Answer availability from the in-memory index and the room metadata from the room cache
+            availableRooms = roomCache.findByMaxOccupancyGreaterThanEqual(minOccupancy).stream()
+                    .filter(room -> availabilityIndex.isAvailable(room.getRoomNr(), startDate, endDate))
+                    .collect(Collectors.toList());
+        } else {
+            availableRooms = roomRepository.findAvailableRooms(startDate, endDate, minOccupancy);
+        }
+
+        // Rooms held by a checkout in progress are not offered to other guests
+        return availableRooms.stream()
+                .filter(room -> !roomHoldService.isHeld(room.getRoomNr(), startDate, endDate))
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
     public List<RoomDto> availableRooms(LocalDate startDate, LocalDate endDate, int minOccupancy){
 
-        List<Room> availableRooms = roomRepository.findAvailableRooms(startDate, endDate, minOccupancy);
+        List<Room> availableRooms = findAvailableRooms(startDate, endDate, minOccupancy);
 
         List<RoomDto> roomDTOs = new ArrayList<>();
 
-        // Calculate price for each room based on dates
-        availableRooms.forEach(room -> {
-            double price = pricingService.calculatePrice(room, startDate, endDate);
+        // Price all rooms for the stay in one batch
+        long[] prices = pricingService.calculatePrices(availableRooms, startDate, endDate);
+        for (int i = 0; i < prices.length; i++) {
             RoomDto roomDto = new RoomDto();
-            roomDto.setRoom(room);
-            roomDto.setPrice(price);
+            roomDto.setRoom(availableRooms.get(i));
+            roomDto.setPrice((double) prices[i]);
             roomDTOs.add(roomDto);
-        });
+        }
 
         return roomDTOs;
     }
@@ -0,0 +1,216 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.entity.Booking;
+import com.jeff.hotel_management_system.entity.BookingId;
+import com.jeff.hotel_management_system.entity.GroupCheckout;
+import com.jeff.hotel_management_system.entity.StripeEvent;
+import com.jeff.hotel_management_system.entity.StripeEventStatus;
+import com.jeff.hotel_management_system.exception.BookingConflictException;
+import com.jeff.hotel_management_system.repository.GroupCheckoutRepository;
+import com.jeff.hotel_management_system.repository.StripeEventRepository;
+import com.jeff.hotel_management_system.utils.TransactionUtils;
+import com.stripe.model.Event;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.ApiResource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.annotation.Observed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Applies a single inbox event. The event row is locked, its effects are written and the row is
+ * marked PROCESSED in the same transaction, so every event takes effect exactly once no matter
+ * how often Stripe delivers it or how many workers pick it up.
+ *
+ * A paid checkout that cannot be booked, because the nights were taken in the meantime or the
+ * attempts ran out, is refunded. Refunds are counted in hotel.stripe.refunds; one that fails
+ * leaves the event REFUND_REQUIRED for someone to issue it by hand.
+ */
+@Observed(name = "hotel.service")
+@Transactional
+@Service
+public class StripeEventProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(StripeEventProcessor.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final String CHECKOUT_COMPLETED = "checkout.session.completed";
+
+    @Autowired
+    private StripeEventRepository stripeEventRepository;
+
+    @Autowired
+    private GroupCheckoutRepository groupCheckoutRepository;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private RoomHoldService roomHoldService;
+
+    @Autowired
+    private StripeService stripeService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${stripe.webhook.max-attempts:5}")
+    private int maxAttempts;
+
+    /**
+     * Returns false if the event is already processed or being processed elsewhere.
+     */
+    public boolean process(String eventId) {
+        StripeEvent stripeEvent = stripeEventRepository.lockByIdAndStatus(eventId, StripeEventStatus.PENDING).orElse(null);
+        if (stripeEvent == null) {
+            return false;
+        }
+
+        Session session = session(stripeEvent);
+        if (session != null && CHECKOUT_COMPLETED.equals(stripeEvent.getEventType())) {
+            GroupCheckout groupCheckout = groupCheckout(session.getMetadata());
+            createBooking(session, groupCheckout);
+            // the booking now blocks the nights, the hold is released once it is committed
+            TransactionUtils.afterCommit(() -> releaseHold(session, groupCheckout));
+            deleteGroupCheckout(groupCheckout);
+        } else if (session != null && "checkout.session.expired".equals(stripeEvent.getEventType())) {
+            GroupCheckout groupCheckout = groupCheckout(session.getMetadata());
+            releaseHold(session, groupCheckout);
+            deleteGroupCheckout(groupCheckout);
+        }
+
+        stripeEvent.setStatus(StripeEventStatus.PROCESSED);
+        stripeEvent.setProcessedAt(LocalDateTime.now());
+        stripeEvent.setLastError(null);
+        return true;
+    }
+
+    /**
+     * Records a failed attempt in its own transaction, the one of the attempt has been rolled back.
+     * The event is retried until stripe.webhook.max-attempts is reached. A paid checkout whose
+     * nights are taken is not retried, and neither it nor one that ran out of attempts keeps the money.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void recordFailure(String eventId, Exception error) {
+        stripeEventRepository.lockByIdAndStatus(eventId, StripeEventStatus.PENDING).ifPresent(stripeEvent -> {
+            stripeEvent.setAttempts(stripeEvent.getAttempts() + 1);
+            setLastError(stripeEvent, String.valueOf(error.getMessage()));
+            boolean paid = CHECKOUT_COMPLETED.equals(stripeEvent.getEventType());
+            if (paid && (isConflict(error) || stripeEvent.getAttempts() >= maxAttempts)) {
+                refund(stripeEvent);
+            } else if (stripeEvent.getAttempts() >= maxAttempts) {
+                stripeEvent.setStatus(StripeEventStatus.FAILED);
+                log.error("Gave up on Stripe event {} after {} attempts: {}", eventId, stripeEvent.getAttempts(),
+                        stripeEvent.getLastError());
+            }
+        });
+    }
+
+    private void refund(StripeEvent stripeEvent) {
+        Session session = session(stripeEvent);
+        String paymentIntent = session != null ? session.getPaymentIntent() : null;
+        try {
+            if (paymentIntent == null) {
+                throw new IllegalStateException("no payment intent in the checkout session");
+            }
+            stripeService.refund(paymentIntent);
+            stripeEvent.setStatus(StripeEventStatus.REFUNDED);
+            stripeEvent.setProcessedAt(LocalDateTime.now());
+            meterRegistry.counter("hotel.stripe.refunds", "outcome", "refunded").increment();
+            log.warn("Refunded payment {} of Stripe event {}, it could not be booked: {}", paymentIntent,
+                    stripeEvent.getId(), stripeEvent.getLastError());
+        } catch (Exception e) {
+            stripeEvent.setStatus(StripeEventStatus.REFUND_REQUIRED);
+            setLastError(stripeEvent, "Refund failed: " + e.getMessage() + ", booking failed: " + stripeEvent.getLastError());
+            meterRegistry.counter("hotel.stripe.refunds", "outcome", "failed").increment();
+            log.error("Stripe event {} was paid but could not be booked, and the refund of payment {} failed",
+                    stripeEvent.getId(), paymentIntent, e);
+        }
+    }
+
+    // nights taken by someone else, retrying will not make them free
+    private static boolean isConflict(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BookingConflictException || String.valueOf(cause.getMessage()).contains("booking_no_overlap")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void setLastError(StripeEvent stripeEvent, String message) {
+        stripeEvent.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+    }
+
+    // the payload was verified when it was received, so it is only deserialized here
+    private static Session session(StripeEvent stripeEvent) {
+        Event event = ApiResource.GSON.fromJson(stripeEvent.getPayload(), Event.class);
+        return event.getDataObjectDeserializer().getObject()
+                .filter(Session.class::isInstance)
+                .map(Session.class::cast)
+                .orElse(null);
+    }
+
+    private void releaseHold(Session session, GroupCheckout groupCheckout) {
+        Map<String, String> metadata = session.getMetadata();
+        String holdId = metadata.get("holdId");
+        if (holdId != null && groupCheckout != null) {
+            roomHoldService.release(groupCheckout.roomNrList(), LocalDate.parse(metadata.get("startDate")),
+                    LocalDate.parse(metadata.get("endDate")), holdId);
+        } else if (holdId != null) {
+            roomHoldService.release(metadata.get("roomNr"), LocalDate.parse(metadata.get("startDate")),
+                    LocalDate.parse(metadata.get("endDate")), holdId);
+        }
+    }
+
+    private void createBooking(Session session, GroupCheckout groupCheckout) {
+        if (groupCheckout != null) {
+            bookingService.createGroupBooking(groupCheckout.getClientEmail(), groupCheckout.roomNrList(),
+                    groupCheckout.getStartDate(), groupCheckout.getEndDate(), groupCheckout.priceArray());
+            return;
+        }
+
+        // Retrieve booking information from session metadata
+        String roomNr = session.getMetadata().get("roomNr");
+        String startDate = session.getMetadata().get("startDate");
+        String endDate = session.getMetadata().get("endDate");
+        String emailUser = session.getMetadata().get("emailUser");
+        Long price = Long.valueOf(session.getAmountTotal()) / 100; // Convert cents to dollars
+
+        // Create booking object
+        Booking booking = new Booking();
+        booking.setId(new BookingId(LocalDate.parse(startDate), roomNr));
+        booking.setPrice(price);
+        booking.setEndDate(LocalDate.parse(endDate));
+
+        // Save the booking in the database
+        bookingService.createBooking(booking, emailUser, roomNr);
+    }
+
+    // null for a single room checkout
+    private GroupCheckout groupCheckout(Map<String, String> metadata) {
+        String groupId = metadata.get("groupId");
+        if (groupId == null) {
+            return null;
+        }
+        return groupCheckoutRepository.findById(groupId)
+                .orElseThrow(() -> new IllegalStateException("Group checkout not found: " + groupId));
+    }
+
+    // the session is finished, no other event of it needs the rooms and prices
+    private void deleteGroupCheckout(GroupCheckout groupCheckout) {
+        if (groupCheckout != null) {
+            groupCheckoutRepository.delete(groupCheckout);
+        }
+    }
+}
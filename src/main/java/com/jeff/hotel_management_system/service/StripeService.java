@@ -2,30 +2,65 @@ package com.jeff.hotel_management_system.service;
 
 import com.jeff.hotel_management_system.dto.CheckoutRequest;
 import com.jeff.hotel_management_system.dto.CheckoutResponse;
+import com.jeff.hotel_management_system.entity.GroupCheckout;
+import com.jeff.hotel_management_system.repository.GroupCheckoutRepository;
 import com.jeff.hotel_management_system.utils.AuthUtils;
 import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
+import com.stripe.model.Refund;
 import com.stripe.model.checkout.Session;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.RefundCreateParams;
 import com.stripe.param.checkout.SessionCreateParams;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.annotation.Observed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 
+@Observed(name = "hotel.service")
 @Service
 public class StripeService {
 
+    private static final Logger log = LoggerFactory.getLogger(StripeService.class);
+
+    // Stripe's minimum, room holds outlive it so a paid session always finds its nights held
+    private static final long CHECKOUT_SESSION_MINUTES = 30;
+
     @Value("${stripe.secretKey}")
     private String stripeApiKey;
 
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Autowired
+    private GroupCheckoutRepository groupCheckoutRepository;
+
+    @Value("${stripe.group-checkout.retention-hours:96}")
+    private long groupCheckoutRetentionHours;
+
     public CheckoutResponse createCheckoutSession(String roomNr, LocalDate startDate, LocalDate endDate,CheckoutRequest checkoutRequest) throws StripeException {
         Stripe.apiKey = stripeApiKey;
         String emailUser = AuthUtils.getAuthenticatedEmail();
 
         // Create Checkout Session parameters
-        SessionCreateParams params = SessionCreateParams.builder()
+        SessionCreateParams.Builder paramsBuilder = SessionCreateParams.builder()
                 .setMode(SessionCreateParams.Mode.PAYMENT)
+                .setExpiresAt(Instant.now().plus(CHECKOUT_SESSION_MINUTES, ChronoUnit.MINUTES).getEpochSecond())
                 .setSuccessUrl(checkoutRequest.getSuccessUrl() + "?session_id={CHECKOUT_SESSION_ID}")
                 .setCancelUrl(checkoutRequest.getCancelUrl())
                 .addLineItem(
@@ -44,21 +79,89 @@ public class StripeService {
                 .putMetadata("emailUser", emailUser)
                 .putMetadata("roomNr", roomNr)
                 .putMetadata("startDate", String.valueOf(startDate))
-                .putMetadata("endDate", String.valueOf(endDate))
-                .build();
+                .putMetadata("endDate", String.valueOf(endDate));
+        if (checkoutRequest.getHoldId() != null) {
+            paramsBuilder.putMetadata("holdId", checkoutRequest.getHoldId());
+        }
+        return createSession(paramsBuilder.build());
+    }
+
+    /**
+     * One checkout session for a group booking, with a line item per room. The rooms and the prices
+     * charged for them are stored as a GroupCheckout, the webhook books them from there.
+     */
+    public CheckoutResponse createGroupCheckoutSession(List<String> roomNrs, long[] prices, LocalDate startDate,
+                                                       LocalDate endDate, CheckoutRequest checkoutRequest) throws StripeException {
+        Stripe.apiKey = stripeApiKey;
+        String emailUser = AuthUtils.getAuthenticatedEmail();
+
+        SessionCreateParams.Builder paramsBuilder = SessionCreateParams.builder()
+                .setMode(SessionCreateParams.Mode.PAYMENT)
+                .setExpiresAt(Instant.now().plus(CHECKOUT_SESSION_MINUTES, ChronoUnit.MINUTES).getEpochSecond())
+                .setSuccessUrl(checkoutRequest.getSuccessUrl() + "?session_id={CHECKOUT_SESSION_ID}")
+                .setCancelUrl(checkoutRequest.getCancelUrl());
+        for (int i = 0; i < roomNrs.size(); i++) {
+            paramsBuilder.addLineItem(
+                    SessionCreateParams.LineItem.builder()
+                            .setQuantity(1L)
+                            .setPriceData(
+                                    SessionCreateParams.LineItem.PriceData.builder()
+                                            .setCurrency("usd")
+                                            .setUnitAmount(prices[i] * 100) // Stripe expects amounts in cents
+                                            .setProductData(
+                                                    SessionCreateParams.LineItem.PriceData.ProductData.builder()
+                                                            .setName("Room Booking " + roomNrs.get(i))
+                                                            .build())
+                                            .build())
+                            .build());
+        }
+        // metadata values are limited to 500 characters, too few for the room list of a large group
+        GroupCheckout groupCheckout = groupCheckoutRepository.save(new GroupCheckout(UUID.randomUUID().toString(),
+                emailUser, String.join(",", roomNrs),
+                Arrays.stream(prices).mapToObj(String::valueOf).collect(Collectors.joining(",")),
+                startDate, endDate, LocalDateTime.now()));
+        paramsBuilder
+                .putMetadata("emailUser", emailUser)
+                .putMetadata("groupId", groupCheckout.getId())
+                .putMetadata("startDate", String.valueOf(startDate))
+                .putMetadata("endDate", String.valueOf(endDate));
+        if (checkoutRequest.getHoldId() != null) {
+            paramsBuilder.putMetadata("holdId", checkoutRequest.getHoldId());
+        }
+        CheckoutResponse response = createSession(paramsBuilder.build());
+        if (response.getCheckoutId() == null) {
+            // no session refers to the row, so no event will ever delete it
+            groupCheckoutRepository.delete(groupCheckout);
+        }
+        return response;
+    }
 
+    /**
+     * Deletes group checkouts whose session never delivered a completed or expired event that was
+     * processed, e.g. one that ran out of attempts. Sessions expire after 30 minutes and Stripe
+     * redelivers events for up to three days, so the retention outlives both.
+     */
+    @Scheduled(cron = "${stripe.group-checkout.sweep-cron:0 45 0 * * *}")
+    public void removeStaleGroupCheckouts() {
+        int removed = groupCheckoutRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(groupCheckoutRetentionHours));
+        if (removed > 0) {
+            log.info("Removed {} stale group checkouts", removed);
+        }
+    }
+
+    private CheckoutResponse createSession(SessionCreateParams params) {
         // Create the session
         Session session = null;
         CheckoutResponse response = new CheckoutResponse();
         try {
-            session = Session.create(params);
+            session = external("checkout.session.create").observeChecked(() -> Session.create(params));
             response.setCheckoutId(session.getId());
             response.setStatus("SUCCESS");
             response.setCheckoutLink(session.getUrl());
             response.setMessage("Session created");
 
         } catch (StripeException e) {
-            System.out.println("Error creating Stripe session: {}"+ e.getMessage());
+            log.error("Error creating Stripe session", e);
 
             // Return an error response
             CheckoutResponse errorResponse = new CheckoutResponse();
@@ -79,7 +182,25 @@ public class StripeService {
      */
     public Session getSessionDetails(String sessionId) throws StripeException {
         Stripe.apiKey = stripeApiKey;
-        return Session.retrieve(sessionId);
+        return external("checkout.session.retrieve").observeChecked(() -> Session.retrieve(sessionId));
+    }
+
+    /**
+     * Refunds a payment in full. Safe to call again for the same payment, Stripe returns the first refund.
+     */
+    public Refund refund(String paymentIntentId) throws StripeException {
+        Stripe.apiKey = stripeApiKey;
+        RefundCreateParams params = RefundCreateParams.builder().setPaymentIntent(paymentIntentId).build();
+        RequestOptions options = RequestOptions.builder().setIdempotencyKey("refund-" + paymentIntentId).build();
+        return external("refund.create").observeChecked(() -> Refund.create(params, options));
+    }
+
+    // timed as hotel.external.requests, and a client span of the current trace
+    private Observation external(String operation) {
+        return Observation.createNotStarted("hotel.external.requests", observationRegistry)
+                .contextualName("stripe " + operation)
+                .lowCardinalityKeyValue("dependency", "stripe")
+                .lowCardinalityKeyValue("operation", operation);
     }
 }
 
@@ -0,0 +1,106 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.entity.StripeEventStatus;
+import com.jeff.hotel_management_system.repository.StripeEventRepository;
+import com.jeff.hotel_management_system.utils.TransactionUtils;
+import com.stripe.model.Event;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Durable inbox for Stripe webhooks.
+ *
+ * The webhook only appends the verified event to the StripeEvent table and returns, so its
+ * latency does not depend on booking work. New events are handed to a fixed pool of workers
+ * right after commit; a poller picks up whatever is left, e.g. after a restart or a failed
+ * attempt, in batches. StripeEventProcessor makes sure each event takes effect once.
+ */
+@Service
+public class StripeWebhookInbox {
+
+    private static final Logger log = LoggerFactory.getLogger(StripeWebhookInbox.class);
+
+    @Autowired
+    private StripeEventRepository stripeEventRepository;
+
+    @Autowired
+    private StripeEventProcessor stripeEventProcessor;
+
+    @Value("${stripe.webhook.workers:8}")
+    private int workers;
+
+    @Value("${stripe.webhook.batch-size:100}")
+    private int batchSize;
+
+    private ExecutorService executor;
+
+    // events queued or running on this node, so the poller does not submit them twice
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void start() {
+        this.executor = Executors.newFixedThreadPool(workers, Thread.ofVirtual().name("stripe-webhook-", 0).factory());
+    }
+
+    @PreDestroy
+    void stop() {
+        // pending events stay in the inbox and are picked up after the restart
+        executor.shutdownNow();
+    }
+
+    /**
+     * Stores a verified event. Returns false for a redelivery of an event already in the inbox.
+     */
+    @Transactional
+    public boolean append(Event event, String payload) {
+        int inserted = stripeEventRepository.insertIfAbsent(event.getId(), event.getType(), payload, LocalDateTime.now());
+        if (inserted == 0) {
+            return false;
+        }
+        TransactionUtils.afterCommit(() -> submit(event.getId()));
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${stripe.webhook.poll-interval-ms:5000}")
+    public void processPending() {
+        List<String> pending = stripeEventRepository.findIdsByStatus(StripeEventStatus.PENDING, Limit.of(batchSize));
+        pending.forEach(this::submit);
+    }
+
+    private void submit(String eventId) {
+        if (!inFlight.add(eventId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    stripeEventProcessor.process(eventId);
+                } catch (Exception e) {
+                    log.warn("Failed to process Stripe event {}: {}", eventId, e.getMessage());
+                    stripeEventProcessor.recordFailure(eventId, e);
+                } finally {
+                    inFlight.remove(eventId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // shutting down, the poller of the next run picks it up
+            inFlight.remove(eventId);
+        }
+    }
+}
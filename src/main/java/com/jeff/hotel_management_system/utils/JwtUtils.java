@@ -1,17 +1,27 @@
 package com.jeff.hotel_management_system.utils;
 
-import com.jeff.hotel_management_system.exception.PasswordChangeIllegalArgumentException;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
-import java.security.Key;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.beans.factory.annotation.Value;
 
@@ -20,66 +30,122 @@ import org.springframework.beans.factory.annotation.Value;
 @Component
 public class JwtUtils {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtUtils.class);
+
+    // request attribute holding the claims verified by JwtAuthenticationFilter, reused by JwtInterceptor
+    public static final String VERIFIED_CLAIMS_ATTRIBUTE = JwtUtils.class.getName() + ".claims";
+
+    // granted authority of the user, e.g. ROLE_CLIENT, so requests can be authorized without a user lookup
+    public static final String ROLE_CLAIM = "role";
+
     @Value("${security.jwt.secret-key}")
     private String jwtSecretKey;
 
     @Value("${security.jwt.expiration-time}")
     private long jwtExpirationMs;
 
+    @Value("${security.jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    // the key and parser are immutable and thread-safe, so they are built once
+    private SecretKey key;
+
+    private JwtParser parser;
+
+    // verified tokens keyed by their SHA-256 hash, read on every request without a shared lock
+    private final Map<String, Claims> verifiedTokens = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecretKey));
+        this.parser = Jwts.parser().verifyWith(key).build();
+    }
+
     public String generateToken(Authentication authentication) {
 
         String username = authentication.getName();
         Date currentDate = new Date();
         Date expireDate = new Date(currentDate.getTime() + jwtExpirationMs);
 
+        String role = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .findFirst()
+                .orElse(null);
+
         String token = Jwts.builder()
                 .subject(username)
+                .claim(ROLE_CLAIM, role)
                 .issuedAt(new Date())
                 .expiration(expireDate)
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
 
         return token;
     }
 
-    private Key key(){
+    /**
+     * Verifies the token and returns its claims, or null if the token is invalid or expired.
+     * The signature of a given token is checked at most once; later calls are served from
+     * the cache until the token expires.
+     */
+    public Claims verify(String token) {
+        String hash = hash(token);
+        long now = System.currentTimeMillis();
+
+        Claims cached = verifiedTokens.get(hash);
+        if (cached != null && cached.getExpiration().getTime() <= now) {
+            verifiedTokens.remove(hash, cached);
+            return null;
+        }
+        if (cached != null) {
+            return cached;
+        }
 
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecretKey));
+        Claims claims;
+        try {
+            claims = parser.parseSignedClaims(token).getPayload();
+        } catch (Exception e) {
+            log.debug("Invalid or expired token: {}", e.getMessage());
+            return null;
+        }
+        // tokens without an expiration are still accepted, but never cached
+        if (claims.getExpiration() != null) {
+            cache(hash, claims, now);
+        }
+        return claims;
+    }
+
+    private void cache(String hash, Claims claims, long now) {
+        if (verifiedTokens.size() >= verifiedCacheSize) {
+            verifiedTokens.values().removeIf(cached -> cached.getExpiration().getTime() <= now);
+        }
+        if (verifiedTokens.size() >= verifiedCacheSize) {
+            // still full of live tokens, drop an arbitrary one to stay bounded
+            Iterator<String> hashes = verifiedTokens.keySet().iterator();
+            if (hashes.hasNext()) {
+                hashes.next();
+                hashes.remove();
+            }
+        }
+        verifiedTokens.put(hash, claims);
     }
 
     // extract username from JWT token
     public String getUsername(String token){
 
-        return Jwts.parser()
-                .verifyWith((SecretKey) key())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+        return requireClaims(token).getSubject();
     }
 
     // validate JWT token
     public boolean validateToken(String token){
-        try {
-            Jwts.parser()
-                    .verifyWith((SecretKey) key())
-                    .build()
-                    .parse(token);
-            return true;
-        } catch (Exception e) {
-            System.out.println("Invalid or expired token: " + e.getMessage());
-            return false;
-        }
+
+        return verify(token) != null;
     }
 
     // Extract expiration time from JWT token
     public long getTokenExpirationTime(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith((SecretKey) key())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload()
+            return requireClaims(token)
                     .getExpiration()
                     .getTime(); // Converts Date to long (epoch milliseconds)
         } catch (Exception e) {
@@ -88,13 +154,27 @@ public class JwtUtils {
     }
 
     public String getClaimFromToken(String token, String claimKey) {
-        Claims claims = Jwts.parser()
-                .verifyWith((SecretKey) key())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
 
-        return claims.get(claimKey, String.class);
+        return requireClaims(token).get(claimKey, String.class);
+    }
+
+    private Claims requireClaims(String token) {
+        Claims claims = verify(token);
+        if (claims == null) {
+            // same outcome as the parser rejecting the token
+            throw new IllegalArgumentException("Invalid or expired token");
+        }
+        return claims;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM ships SHA-256
+            throw new IllegalStateException(e);
+        }
     }
 
 }
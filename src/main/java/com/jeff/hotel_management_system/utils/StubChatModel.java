@@ -0,0 +1,70 @@
+package com.jeff.hotel_management_system.utils;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Local stand-in for the chat model, for tests and for running without an OpenAI key.
+ *
+ * It recommends the first room of the prompt, which RecommendationService lists best match
+ * first, and streams the answer word by word with a fixed delay between words.
+ */
+public class StubChatModel implements ChatModel {
+
+    private final Duration tokenDelay;
+
+    public StubChatModel(Duration tokenDelay) {
+        this.tokenDelay = tokenDelay;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        return response(answer(prompt));
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        Flux<String> tokens = Flux.fromIterable(tokens(answer(prompt)));
+        if (!tokenDelay.isZero()) {
+            tokens = tokens.delayElements(tokenDelay);
+        }
+        return tokens.map(this::response);
+    }
+
+    private ChatResponse response(String content) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(content))));
+    }
+
+    private String answer(Prompt prompt) {
+        for (String line : prompt.getContents().split("\n")) {
+            if (line.startsWith("Room ")) {
+                return "Based on your preferences, I recommend " + line;
+            }
+        }
+        return "I could not find a room to recommend.";
+    }
+
+    // words with their trailing space, so the chunks concatenate back to the answer
+    private static List<String> tokens(String answer) {
+        List<String> tokens = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < answer.length(); i++) {
+            if (answer.charAt(i) == ' ') {
+                tokens.add(answer.substring(start, i + 1));
+                start = i + 1;
+            }
+        }
+        if (start < answer.length()) {
+            tokens.add(answer.substring(start));
+        }
+        return tokens;
+    }
+}
@@ -1,24 +1,55 @@
 package com.jeff.hotel_management_system.utils;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Token whitelist stored in Redis, with a bounded in-process near-cache in front of it.
+ *
+ * Whitelist checks run on every authenticated request, so hits are answered locally.
+ * Every write publishes the email on INVALIDATION_CHANNEL and all nodes drop their copy
+ * (see RedisConfig); local entries also expire after a short TTL in case a message is lost.
+ */
 @Service
 public class TokenWhitelistRedisCacheClient {
 
+    public static final String INVALIDATION_CHANNEL = "jwt_whitelist:invalidate";
+
     private final StringRedisTemplate redisTemplate;
 
-    TokenWhitelistRedisCacheClient(StringRedisTemplate redisTemplate) {
+    private final ObservationRegistry observationRegistry;
+
+    TokenWhitelistRedisCacheClient(StringRedisTemplate redisTemplate, ObservationRegistry observationRegistry) {
         this.redisTemplate = redisTemplate;
+        this.observationRegistry = observationRegistry;
     }
 
     private static final String WHITELIST_PREFIX = "jwt_whitelist:";
 
+    @Value("${security.jwt.whitelist.near-cache-ttl-ms:30000}")
+    private long nearCacheTtlMs;
+
+    @Value("${security.jwt.whitelist.near-cache-size:10000}")
+    private int nearCacheSize;
+
+    private final Map<String, CachedToken> nearCache = new ConcurrentHashMap<>();
+
+    // bumped on every invalidation so a Redis read that raced with it is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
     public void set(String email, String token, long expirationTimeInMs) {
         // Store the token in Redis with an expiration time
         this.redisTemplate.opsForValue().set(WHITELIST_PREFIX + email, token, expirationTimeInMs, TimeUnit.MILLISECONDS);
+        invalidate(email);
     }
 
     public String get(String email) {
@@ -27,13 +58,75 @@ public class TokenWhitelistRedisCacheClient {
 
     public void delete(String email) {
         this.redisTemplate.delete(WHITELIST_PREFIX + email);
+        invalidate(email);
     }
 
     public boolean isTokenWhitelisted(String email, String token) {
 
-        String tokenFromRedis = this.get(email);
+        long now = System.currentTimeMillis();
+        CachedToken cached = nearCache.get(email);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.token.equals(token);
+        }
+
+        long seen = invalidations.get();
+        // only near-cache misses reach Redis, timed as hotel.external.requests
+        String tokenFromRedis = Observation.createNotStarted("hotel.external.requests", observationRegistry)
+                .contextualName("redis whitelist.get")
+                .lowCardinalityKeyValue("dependency", "redis")
+                .lowCardinalityKeyValue("operation", "whitelist.get")
+                .observe(() -> this.get(email));
+        // Only whitelisted tokens are cached, misses always go to Redis
+        if (tokenFromRedis != null && invalidations.get() == seen) {
+            cache(email, tokenFromRedis, now);
+        }
+
         // Check if the token exists in Redis
         return tokenFromRedis != null && tokenFromRedis.equals(token);
     }
 
-}
\ No newline at end of file
+    /**
+     * Drops the local copy of an email's token. Called for messages on INVALIDATION_CHANNEL.
+     */
+    public void evictLocal(String email) {
+        invalidations.incrementAndGet();
+        nearCache.remove(email);
+    }
+
+    private void invalidate(String email) {
+        evictLocal(email);
+        this.redisTemplate.convertAndSend(INVALIDATION_CHANNEL, email);
+    }
+
+    private void cache(String email, String token, long now) {
+        if (nearCache.size() >= nearCacheSize) {
+            evictExpired(now);
+        }
+        if (nearCache.size() >= nearCacheSize) {
+            // still full of live entries, drop an arbitrary one to stay bounded
+            Iterator<String> emails = nearCache.keySet().iterator();
+            if (emails.hasNext()) {
+                emails.next();
+                emails.remove();
+            }
+        }
+        nearCache.put(email, new CachedToken(token, now + nearCacheTtlMs));
+    }
+
+    private void evictExpired(long now) {
+        nearCache.values().removeIf(cached -> cached.expiresAt <= now);
+    }
+
+    private static class CachedToken {
+
+        private final String token;
+
+        private final long expiresAt;
+
+        CachedToken(String token, long expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
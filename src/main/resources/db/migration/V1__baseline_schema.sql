@@ -0,0 +1,95 @@
+-- Tables as mapped by the entities in com.jeff.hotel_management_system.entity.
+-- IF NOT EXISTS lets databases created before the migrations were introduced adopt them unchanged.
+
+CREATE TABLE IF NOT EXISTS room (
+    room_nr              varchar(10)      NOT NULL PRIMARY KEY,
+    floor                integer          NOT NULL,
+    max_occ              integer          NOT NULL,
+    is_available         boolean          NOT NULL,
+    base_price           bigint           NOT NULL,
+    room_type            varchar(50)      NOT NULL,
+    has_sea_view         boolean          NOT NULL,
+    has_balcony          boolean          NOT NULL,
+    has_wifi             boolean          NOT NULL,
+    has_air_conditioning boolean          NOT NULL,
+    is_pet_friendly      boolean          NOT NULL,
+    amenities            varchar(255)     NOT NULL,
+    rating               double precision,
+    preferred_for        varchar(255)
+);
+
+CREATE TABLE IF NOT EXISTS client (
+    email        varchar(255) NOT NULL PRIMARY KEY,
+    password     varchar(255) NOT NULL,
+    name         varchar(255) NOT NULL,
+    role         varchar(255) NOT NULL,
+    phone        varchar(20),
+    payment_type varchar(255)
+);
+
+CREATE TABLE IF NOT EXISTS admin (
+    email    varchar(255) NOT NULL PRIMARY KEY,
+    password varchar(255) NOT NULL,
+    name     varchar(255) NOT NULL,
+    role     varchar(255) NOT NULL,
+    phone    varchar(20)
+);
+
+CREATE TABLE IF NOT EXISTS credit_card (
+    email      varchar(100) NOT NULL PRIMARY KEY REFERENCES client (email),
+    holdername varchar(100) NOT NULL,
+    cardnumber varchar(16)  NOT NULL,
+    type       varchar(20)  NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS bank_account (
+    email         varchar(100) NOT NULL PRIMARY KEY REFERENCES client (email),
+    bank          varchar(100) NOT NULL,
+    accountnumber varchar(20)  NOT NULL,
+    routingnumber varchar(20)  NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS booking (
+    start_date   date         NOT NULL,
+    room_nr      varchar(10)  NOT NULL REFERENCES room (room_nr),
+    price        bigint       NOT NULL,
+    client_email varchar(255) NOT NULL REFERENCES client (email),
+    end_date     date         NOT NULL,
+    PRIMARY KEY (start_date, room_nr),
+    CHECK (end_date > start_date)
+);
+
+-- occupancy records go with their booking, admins delete bookings without looking them up
+CREATE TABLE IF NOT EXISTS occupies (
+    client_email       varchar(255) NOT NULL REFERENCES client (email),
+    booking_start_date date         NOT NULL,
+    booking_room_nr    varchar(10)  NOT NULL,
+    PRIMARY KEY (client_email, booking_start_date, booking_room_nr),
+    FOREIGN KEY (booking_start_date, booking_room_nr) REFERENCES booking (start_date, room_nr) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS pricing_rule (
+    id                 bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name               varchar(100)     NOT NULL,
+    rule_type          varchar(20)      NOT NULL,
+    room_type          varchar(50),
+    multiplier         double precision NOT NULL,
+    active             boolean          NOT NULL,
+    start_date         date,
+    end_date           date,
+    days_of_week       varchar(100),
+    min_nights         integer,
+    min_occupancy_rate double precision,
+    updated_at         timestamp(6)     NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS stripe_event (
+    id           varchar(255)  NOT NULL PRIMARY KEY,
+    event_type   varchar(100)  NOT NULL,
+    payload      text          NOT NULL,
+    status       varchar(20)   NOT NULL,
+    attempts     integer       NOT NULL,
+    received_at  timestamp(6)  NOT NULL,
+    processed_at timestamp(6),
+    last_error   varchar(1000)
+);
@@ -0,0 +1,25 @@
+-- Indexes behind the booking hot paths, and the overlap rule enforced by the database itself.
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- No two stays of a room may share a night. [start_date, end_date) is half-open, so a stay may
+-- start on the day the previous one ends. The constraint's GiST index also serves the overlap
+-- test of RoomRepository.findAvailableRooms.
+ALTER TABLE booking
+    ADD CONSTRAINT booking_no_overlap
+    EXCLUDE USING gist (room_nr WITH =, daterange(start_date, end_date) WITH &&);
+
+-- Per-room range scans; the primary key leads with start_date and cannot serve them
+CREATE INDEX IF NOT EXISTS booking_room_dates_idx ON booking (room_nr, start_date, end_date);
+
+-- A client's bookings, GET /api/bookings
+CREATE INDEX IF NOT EXISTS booking_client_email_idx ON booking (client_email, start_date);
+
+-- Stays still running after a date, read when the availability index is rebuilt
+CREATE INDEX IF NOT EXISTS booking_end_date_idx ON booking (end_date);
+
+-- Cascade from booking deletes
+CREATE INDEX IF NOT EXISTS occupies_booking_idx ON occupies (booking_start_date, booking_room_nr);
+
+-- Webhook workers poll for pending events in arrival order
+CREATE INDEX IF NOT EXISTS stripe_event_status_idx ON stripe_event (status, received_at);
@@ -0,0 +1,153 @@
+-- Booking and Occupies become range partitioned by the booking start date, one partition per month,
+-- so scans that bound start_date only touch the months they need. Months that are over are moved
+-- into booking_archive by archive_booking_partitions, called from BookingPartitionService.
+--
+-- Stays are limited to 365 nights (booking_max_stay). Queries looking for stays overlapping a range
+-- can then bound start_date from below as well, which is what lets Postgres prune partitions.
+
+CREATE TABLE booking_copy AS SELECT * FROM booking;
+CREATE TABLE occupies_copy AS SELECT * FROM occupies;
+DROP TABLE occupies;
+DROP TABLE booking;
+
+CREATE TABLE booking (
+    start_date   date         NOT NULL,
+    room_nr      varchar(10)  NOT NULL REFERENCES room (room_nr),
+    price        bigint       NOT NULL,
+    client_email varchar(255) NOT NULL REFERENCES client (email),
+    end_date     date         NOT NULL,
+    PRIMARY KEY (start_date, room_nr),
+    CHECK (end_date > start_date),
+    CONSTRAINT booking_max_stay CHECK (end_date <= start_date + 365)
+) PARTITION BY RANGE (start_date);
+
+CREATE TABLE occupies (
+    client_email       varchar(255) NOT NULL REFERENCES client (email),
+    booking_start_date date         NOT NULL,
+    booking_room_nr    varchar(10)  NOT NULL,
+    PRIMARY KEY (client_email, booking_start_date, booking_room_nr),
+    FOREIGN KEY (booking_start_date, booking_room_nr) REFERENCES booking (start_date, room_nr) ON DELETE CASCADE
+) PARTITION BY RANGE (booking_start_date);
+
+-- catches stays beyond the months created so far
+CREATE TABLE booking_default PARTITION OF booking DEFAULT;
+CREATE TABLE occupies_default PARTITION OF occupies DEFAULT;
+
+CREATE INDEX booking_room_stay_gist ON booking USING gist (room_nr, daterange(start_date, end_date));
+CREATE INDEX booking_room_dates_idx ON booking (room_nr, start_date, end_date);
+CREATE INDEX booking_client_email_idx ON booking (client_email, start_date);
+CREATE INDEX booking_end_date_idx ON booking (end_date);
+CREATE INDEX occupies_booking_idx ON occupies (booking_start_date, booking_room_nr);
+
+-- Creates the monthly partitions of both tables from from_month through to_month, skipping existing ones.
+CREATE FUNCTION create_booking_partitions(from_month date, to_month date) RETURNS integer
+LANGUAGE plpgsql AS $$
+DECLARE
+    partition_month date := date_trunc('month', from_month)::date;
+    suffix          text;
+    created         integer := 0;
+BEGIN
+    WHILE partition_month <= to_month LOOP
+        suffix := to_char(partition_month, 'YYYY_MM');
+        IF to_regclass('booking_p' || suffix) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF booking FOR VALUES FROM (%L) TO (%L)',
+                           'booking_p' || suffix, partition_month, (partition_month + interval '1 month')::date);
+            EXECUTE format('CREATE TABLE %I PARTITION OF occupies FOR VALUES FROM (%L) TO (%L)',
+                           'occupies_p' || suffix, partition_month, (partition_month + interval '1 month')::date);
+            created := created + 1;
+        END IF;
+        partition_month := (partition_month + interval '1 month')::date;
+    END LOOP;
+    RETURN created;
+END;
+$$;
+
+-- One row per archived month. The rows are packed into jsonb arrays, which TOAST stores compressed.
+CREATE TABLE booking_archive (
+    month         date         NOT NULL PRIMARY KEY,
+    booking_count integer      NOT NULL,
+    bookings      jsonb        NOT NULL,
+    occupies      jsonb        NOT NULL,
+    archived_at   timestamp(6) NOT NULL DEFAULT now()
+);
+
+-- Moves every monthly partition ending on or before cutoff, whose stays are all over, into booking_archive
+-- and drops it. Returns the number of months archived.
+CREATE FUNCTION archive_booking_partitions(cutoff date) RETURNS integer
+LANGUAGE plpgsql AS $$
+DECLARE
+    part            record;
+    partition_month date;
+    occupies_name   text;
+    still_running   boolean;
+    archived        integer := 0;
+BEGIN
+    FOR part IN
+        SELECT c.relname
+        FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'booking'::regclass AND c.relname ~ '^booking_p[0-9]{4}_[0-9]{2}$'
+        ORDER BY c.relname
+    LOOP
+        partition_month := to_date(substring(part.relname FROM 10), 'YYYY_MM');
+        CONTINUE WHEN (partition_month + interval '1 month')::date > cutoff;
+
+        EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I WHERE end_date > current_date)', part.relname)
+            INTO still_running;
+        CONTINUE WHEN still_running;
+
+        occupies_name := 'occupies_p' || substring(part.relname FROM 10);
+        EXECUTE format(
+            'INSERT INTO booking_archive (month, booking_count, bookings, occupies) ' ||
+            'SELECT %L, (SELECT count(*) FROM %I), ' ||
+            'COALESCE((SELECT jsonb_agg(to_jsonb(b) ORDER BY b.start_date, b.room_nr) FROM %I b), ''[]''), ' ||
+            'COALESCE((SELECT jsonb_agg(to_jsonb(o)) FROM %I o), ''[]'')',
+            partition_month, part.relname, part.relname, occupies_name);
+
+        -- occupies rows reference the booking partition, so they go first
+        EXECUTE format('ALTER TABLE occupies DETACH PARTITION %I', occupies_name);
+        EXECUTE format('DROP TABLE %I', occupies_name);
+        EXECUTE format('ALTER TABLE booking DETACH PARTITION %I', part.relname);
+        EXECUTE format('DROP TABLE %I', part.relname);
+        archived := archived + 1;
+    END LOOP;
+    RETURN archived;
+END;
+$$;
+
+SELECT create_booking_partitions(
+        COALESCE((SELECT min(start_date) FROM booking_copy), current_date),
+        (current_date + interval '25 months')::date);
+
+INSERT INTO booking (start_date, room_nr, price, client_email, end_date)
+SELECT start_date, room_nr, price, client_email, end_date FROM booking_copy;
+INSERT INTO occupies (client_email, booking_start_date, booking_room_nr)
+SELECT client_email, booking_start_date, booking_room_nr FROM occupies_copy;
+DROP TABLE occupies_copy;
+DROP TABLE booking_copy;
+
+-- Replaces the exclusion constraint of V2, which Postgres does not support on partitioned tables.
+-- A stay can start in one partition and overlap a stay in another, so the check runs over the
+-- whole table; writers of the same room are serialized so two overlapping stays cannot both pass.
+CREATE FUNCTION booking_no_overlap() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('booking:' || NEW.room_nr));
+    IF EXISTS (
+        SELECT 1 FROM booking b
+        WHERE b.room_nr = NEW.room_nr
+          AND b.start_date > NEW.start_date - 365
+          AND b.start_date < NEW.end_date
+          AND daterange(b.start_date, b.end_date) && daterange(NEW.start_date, NEW.end_date)
+          AND (TG_OP = 'INSERT' OR b.start_date <> OLD.start_date OR b.room_nr <> OLD.room_nr)
+    ) THEN
+        RAISE EXCEPTION 'booking_no_overlap: room % is already booked between % and %',
+            NEW.room_nr, NEW.start_date, NEW.end_date
+            USING ERRCODE = 'exclusion_violation', CONSTRAINT = 'booking_no_overlap';
+    END IF;
+    RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER booking_no_overlap
+    BEFORE INSERT OR UPDATE OF start_date, end_date, room_nr ON booking
+    FOR EACH ROW EXECUTE FUNCTION booking_no_overlap();
@@ -0,0 +1,53 @@
+-- Rows of booking_default and occupies_default whose month gets its own partition made
+-- create_booking_partitions fail ("updated partition constraint for default partition would be violated"),
+-- and with it the startup run of BookingPartitionService. The rows of the month are now taken out of the
+-- default partitions before the new ones are attached, and put back once they exist.
+
+CREATE OR REPLACE FUNCTION create_booking_partitions(from_month date, to_month date) RETURNS integer
+LANGUAGE plpgsql AS $$
+DECLARE
+    partition_month date := date_trunc('month', from_month)::date;
+    next_month      date;
+    suffix          text;
+    moved_bookings  jsonb;
+    moved_occupies  jsonb;
+    created         integer := 0;
+BEGIN
+    WHILE partition_month <= to_month LOOP
+        suffix := to_char(partition_month, 'YYYY_MM');
+        next_month := (partition_month + interval '1 month')::date;
+        IF to_regclass('booking_p' || suffix) IS NULL THEN
+            SELECT jsonb_agg(to_jsonb(o)) INTO moved_occupies
+            FROM occupies_default o
+            WHERE o.booking_start_date >= partition_month AND o.booking_start_date < next_month;
+            SELECT jsonb_agg(to_jsonb(b)) INTO moved_bookings
+            FROM booking_default b
+            WHERE b.start_date >= partition_month AND b.start_date < next_month;
+
+            -- occupies rows reference the booking rows, so they go first and come back last
+            IF moved_occupies IS NOT NULL THEN
+                DELETE FROM occupies_default
+                WHERE booking_start_date >= partition_month AND booking_start_date < next_month;
+            END IF;
+            IF moved_bookings IS NOT NULL THEN
+                DELETE FROM booking_default WHERE start_date >= partition_month AND start_date < next_month;
+            END IF;
+
+            EXECUTE format('CREATE TABLE %I PARTITION OF booking FOR VALUES FROM (%L) TO (%L)',
+                           'booking_p' || suffix, partition_month, next_month);
+            EXECUTE format('CREATE TABLE %I PARTITION OF occupies FOR VALUES FROM (%L) TO (%L)',
+                           'occupies_p' || suffix, partition_month, next_month);
+
+            IF moved_bookings IS NOT NULL THEN
+                INSERT INTO booking SELECT * FROM jsonb_populate_recordset(NULL::booking, moved_bookings);
+            END IF;
+            IF moved_occupies IS NOT NULL THEN
+                INSERT INTO occupies SELECT * FROM jsonb_populate_recordset(NULL::occupies, moved_occupies);
+            END IF;
+            created := created + 1;
+        END IF;
+        partition_month := next_month;
+    END LOOP;
+    RETURN created;
+END;
+$$;
@@ -0,0 +1,11 @@
+-- Rooms and prices of a group checkout. Stripe metadata values are limited to 500 characters, too
+-- few for the room list of a large group, so the session only carries the id of this row.
+CREATE TABLE IF NOT EXISTS group_checkout (
+    id           varchar(36)   NOT NULL PRIMARY KEY,
+    client_email varchar(255)  NOT NULL,
+    room_nrs     text          NOT NULL,
+    prices       text          NOT NULL,
+    start_date   date          NOT NULL,
+    end_date     date          NOT NULL,
+    created_at   timestamp(6)  NOT NULL
+);
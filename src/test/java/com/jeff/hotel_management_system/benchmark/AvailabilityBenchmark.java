@@ -0,0 +1,61 @@
+package com.jeff.hotel_management_system.benchmark;
+
+import com.jeff.hotel_management_system.dto.RoomDto;
+import com.jeff.hotel_management_system.entity.Room;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Availability search: RoomService.findAvailableRooms answers from the availability index and the
+ * room cache, RoomService.availableRooms additionally prices and maps every room found.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class AvailabilityBenchmark {
+
+    private static final int SEARCHES = 256;
+
+    @Param({"100", "10000", "100000"})
+    public int rooms;
+
+    private SyntheticHotel hotel;
+
+    private final LocalDate[] startDates = new LocalDate[SEARCHES];
+
+    private final LocalDate[] endDates = new LocalDate[SEARCHES];
+
+    private final int[] minOccupancies = new int[SEARCHES];
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hotel = new SyntheticHotel(rooms, 42);
+        Random random = new Random(7);
+        for (int i = 0; i < SEARCHES; i++) {
+            startDates[i] = hotel.today.plusDays(random.nextInt(SyntheticHotel.PRICING_HORIZON_DAYS - 14));
+            endDates[i] = startDates[i].plusDays(1 + random.nextInt(14));
+            minOccupancies[i] = 1 + random.nextInt(3);
+        }
+    }
+
+    @Benchmark
+    public List<Room> findAvailableRooms() {
+        int i = next++ & (SEARCHES - 1);
+        return hotel.roomService.findAvailableRooms(startDates[i], endDates[i], minOccupancies[i]);
+    }
+
+    @Benchmark
+    public List<RoomDto> availableRooms() {
+        int i = next++ & (SEARCHES - 1);
+        return hotel.roomService.availableRooms(startDates[i], endDates[i], minOccupancies[i]);
+    }
+}
@@ -0,0 +1,97 @@
+package com.jeff.hotel_management_system.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the JMH benchmarks of this package and compares them against a stored baseline.
+ *
+ * Run with {@code ./mvnw test -Pbenchmark -Dtest=JmhBenchmarkTest}. Results are written as JSON to
+ * target/jmh-result.json. Every benchmark is reported in time per operation, so the test fails when a
+ * score is more than jmh.tolerance (default 0.2, i.e. 20%) above its baseline score.
+ *
+ * The baseline is src/test/resources/benchmark/jmh-baseline.json and is only meaningful on the machine
+ * it was recorded on, so it is recorded on the CI runner by the "Record JMH baseline" workflow. The nightly
+ * "JMH regression gate" workflow runs this test, and records the baseline instead when none is committed.
+ * The test fails when it is missing; -Djmh.record=true records it from the current run instead of comparing.
+ * Use -Djmh.include=Pricing to run a subset.
+ */
+@Tag("benchmark")
+class JmhBenchmarkTest {
+
+    private static final Path RESULT = Path.of("target", "jmh-result.json");
+
+    private static final Path BASELINE = Path.of("src", "test", "resources", "benchmark", "jmh-baseline.json");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void noRegressionAgainstBaseline() throws Exception {
+        Files.createDirectories(RESULT.getParent());
+        Options options = new OptionsBuilder()
+                .include(getClass().getPackageName() + "\\..*" + System.getProperty("jmh.include", "") + ".*Benchmark")
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULT.toString())
+                .build();
+        new Runner(options).run();
+
+        if (Boolean.getBoolean("jmh.record")) {
+            Files.createDirectories(BASELINE.getParent());
+            Files.copy(RESULT, BASELINE, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Recorded baseline " + BASELINE);
+            return;
+        }
+        assertThat(BASELINE).as("JMH baseline, record it with -Djmh.record=true").exists();
+
+        double tolerance = Double.parseDouble(System.getProperty("jmh.tolerance", "0.2"));
+        Map<String, Double> baseline = scores(BASELINE);
+        List<String> regressions = new ArrayList<>();
+        scores(RESULT).forEach((benchmark, score) -> {
+            Double baselineScore = baseline.get(benchmark);
+            if (baselineScore == null) {
+                System.out.printf("%s: %.3f (no baseline)%n", benchmark, score);
+                return;
+            }
+            double change = score / baselineScore - 1;
+            System.out.printf("%s: %.3f against %.3f (%+.1f%%)%n", benchmark, score, baselineScore, change * 100);
+            if (change > tolerance) {
+                regressions.add(String.format("%s %+.1f%%", benchmark, change * 100));
+            }
+        });
+
+        assertThat(regressions).as("benchmarks slower than the baseline").isEmpty();
+    }
+
+    // score of every benchmark, keyed by its name and parameters, e.g. PricingBenchmark.calculatePrice rooms=100
+    private Map<String, Double> scores(Path file) throws IOException {
+        Map<String, Double> scores = new TreeMap<>();
+        for (JsonNode result : objectMapper.readTree(file.toFile())) {
+            StringBuilder key = new StringBuilder(result.get("benchmark").asText()
+                    .substring(getClass().getPackageName().length() + 1));
+            JsonNode params = result.get("params");
+            if (params != null) {
+                params.fields().forEachRemaining(param ->
+                        key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            }
+            scores.put(key.toString(), result.get("primaryMetric").get("score").asDouble());
+        }
+        return scores;
+    }
+}
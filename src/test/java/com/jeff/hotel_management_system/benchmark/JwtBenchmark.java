@@ -0,0 +1,83 @@
+package com.jeff.hotel_management_system.benchmark;
+
+import com.jeff.hotel_management_system.utils.JwtUtils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtUtils on every authenticated request: validating a token seen before is a cache lookup,
+ * validating a new one checks its signature. Tokens are issued at login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final int CACHE_SIZE = 10_000;
+
+    private static final int UNCACHED_TOKENS = 2 * CACHE_SIZE;
+
+    private JwtUtils jwtUtils;
+
+    // same key, but a cache of one entry: the cache evicts an arbitrary entry when full, so with the
+    // full size some cycled tokens would still be cached when they come round again
+    private JwtUtils uncachedJwtUtils;
+
+    private Authentication authentication;
+
+    private String cachedToken;
+
+    private final String[] uncachedTokens = new String[UNCACHED_TOKENS];
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtUtils = jwtUtils(CACHE_SIZE);
+        uncachedJwtUtils = jwtUtils(1);
+
+        authentication = new UsernamePasswordAuthenticationToken("client@email.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_CLIENT")));
+        cachedToken = jwtUtils.generateToken(authentication);
+        for (int i = 0; i < UNCACHED_TOKENS; i++) {
+            uncachedTokens[i] = jwtUtils.generateToken(new UsernamePasswordAuthenticationToken(
+                    "client" + i + "@email.com", null, List.of(new SimpleGrantedAuthority("ROLE_CLIENT"))));
+        }
+    }
+
+    @Benchmark
+    public boolean validateCachedToken() {
+        return jwtUtils.validateToken(cachedToken);
+    }
+
+    @Benchmark
+    public boolean validateUncachedToken() {
+        String token = uncachedTokens[next];
+        next = (next + 1) % UNCACHED_TOKENS;
+        return uncachedJwtUtils.validateToken(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtils.generateToken(authentication);
+    }
+
+    private static JwtUtils jwtUtils(int cacheSize) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecretKey", Base64.getEncoder().encodeToString(new byte[32]));
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheSize", cacheSize);
+        ReflectionTestUtils.invokeMethod(jwtUtils, "init");
+        return jwtUtils;
+    }
+}
@@ -0,0 +1,59 @@
+package com.jeff.hotel_management_system.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PricingService.calculatePrice for stays inside the nightly rate table's horizon, and for stays
+ * beyond it, which are priced from the room cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class PricingBenchmark {
+
+    private static final int STAYS = 4096;
+
+    @Param({"100", "10000", "100000"})
+    public int rooms;
+
+    private SyntheticHotel hotel;
+
+    private final String[] roomNrs = new String[STAYS];
+
+    private final LocalDate[] startDates = new LocalDate[STAYS];
+
+    private final LocalDate[] endDates = new LocalDate[STAYS];
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hotel = new SyntheticHotel(rooms, 42);
+        Random random = new Random(7);
+        for (int i = 0; i < STAYS; i++) {
+            roomNrs[i] = hotel.roomNr(random.nextInt(rooms));
+            startDates[i] = hotel.today.plusDays(random.nextInt(SyntheticHotel.PRICING_HORIZON_DAYS - 14));
+            endDates[i] = startDates[i].plusDays(1 + random.nextInt(14));
+        }
+    }
+
+    @Benchmark
+    public Long calculatePrice() {
+        int i = next++ & (STAYS - 1);
+        return hotel.pricingService.calculatePrice(roomNrs[i], startDates[i], endDates[i]);
+    }
+
+    @Benchmark
+    public Long calculatePriceBeyondHorizon() {
+        int i = next++ & (STAYS - 1);
+        return hotel.pricingService.calculatePrice(roomNrs[i],
+                startDates[i].plusYears(2), endDates[i].plusYears(2));
+    }
+}
@@ -0,0 +1,172 @@
+package com.jeff.hotel_management_system.benchmark;
+
+import com.jeff.hotel_management_system.dto.BookingSpan;
+import com.jeff.hotel_management_system.entity.PricingRule;
+import com.jeff.hotel_management_system.entity.PricingRuleType;
+import com.jeff.hotel_management_system.entity.Room;
+import com.jeff.hotel_management_system.repository.BookingRepository;
+import com.jeff.hotel_management_system.repository.PricingRuleRepository;
+import com.jeff.hotel_management_system.repository.RoomRepository;
+import com.jeff.hotel_management_system.service.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * A generated hotel with the real pricing and availability services wired by hand, for the JMH benchmarks.
+ *
+ * Repositories are mocks that only serve the initial load, so the measured code never leaves memory,
+ * as on a warmed-up node. Every room gets BOOKINGS_PER_ROOM stays over the next two years, so 100k rooms
+ * come with two million bookings. The seed is fixed, every run measures the same hotel.
+ */
+class SyntheticHotel {
+
+    static final int BOOKINGS_PER_ROOM = 20;
+
+    static final int HORIZON_DAYS = 730;
+
+    static final int PRICING_HORIZON_DAYS = 365;
+
+    private static final String[] ROOM_TYPES = {"Single", "Double", "Suite", "Family"};
+
+    final List<Room> rooms;
+
+    final LocalDate today = LocalDate.now();
+
+    final RoomCache roomCache;
+
+    final AvailabilityIndex availabilityIndex;
+
+    final PricingService pricingService;
+
+    final RoomService roomService;
+
+    private final long seed;
+
+    SyntheticHotel(int roomCount, long seed) {
+        this.seed = seed;
+        this.rooms = rooms(roomCount);
+
+        RoomRepository roomRepository = mock(RoomRepository.class);
+        given(roomRepository.findAll()).willReturn(rooms);
+        given(roomRepository.count()).willReturn((long) rooms.size());
+
+        BookingRepository bookingRepository = mock(BookingRepository.class);
+        given(bookingRepository.findSpansEndingAfter(any())).willReturn(bookings());
+
+        PricingRuleRepository pricingRuleRepository = mock(PricingRuleRepository.class);
+        given(pricingRuleRepository.findByActiveTrue()).willReturn(pricingRules());
+
+        roomCache = new RoomCache(roomRepository, mock(StringRedisTemplate.class), new SimpleMeterRegistry(),
+                mock(PlatformTransactionManager.class));
+
+        availabilityIndex = new AvailabilityIndex();
+        ReflectionTestUtils.setField(availabilityIndex, "bookingRepository", bookingRepository);
+        ReflectionTestUtils.setField(availabilityIndex, "horizonDays", HORIZON_DAYS);
+        availabilityIndex.rebuild();
+
+        PricingRuleEngine pricingRuleEngine = new PricingRuleEngine();
+        ReflectionTestUtils.setField(pricingRuleEngine, "pricingRuleRepository", pricingRuleRepository);
+        ReflectionTestUtils.setField(pricingRuleEngine, "roomRepository", roomRepository);
+        ReflectionTestUtils.setField(pricingRuleEngine, "availabilityIndex", availabilityIndex);
+        ReflectionTestUtils.setField(pricingRuleEngine, "horizonDays", PRICING_HORIZON_DAYS);
+        pricingRuleEngine.compile();
+
+        NightlyRateTable nightlyRateTable = new NightlyRateTable();
+        ReflectionTestUtils.setField(nightlyRateTable, "roomRepository", roomRepository);
+        ReflectionTestUtils.setField(nightlyRateTable, "pricingRuleEngine", pricingRuleEngine);
+        ReflectionTestUtils.setField(nightlyRateTable, "horizonDays", PRICING_HORIZON_DAYS);
+        nightlyRateTable.rebuild();
+
+        pricingService = new PricingService();
+        ReflectionTestUtils.setField(pricingService, "roomCache", roomCache);
+        ReflectionTestUtils.setField(pricingService, "nightlyRateTable", nightlyRateTable);
+
+        // no checkout in progress, so no hold is ever found and Redis is never called
+        RoomHoldService roomHoldService = new RoomHoldService();
+
+        roomService = new RoomService();
+        ReflectionTestUtils.setField(roomService, "roomRepository", roomRepository);
+        ReflectionTestUtils.setField(roomService, "pricingService", pricingService);
+        ReflectionTestUtils.setField(roomService, "availabilityIndex", availabilityIndex);
+        ReflectionTestUtils.setField(roomService, "nightlyRateTable", nightlyRateTable);
+        ReflectionTestUtils.setField(roomService, "roomHoldService", roomHoldService);
+        ReflectionTestUtils.setField(roomService, "roomCache", roomCache);
+
+        // loads the room cache before the first measurement
+        roomCache.findAll();
+    }
+
+    String roomNr(int index) {
+        return rooms.get(index).getRoomNr();
+    }
+
+    private List<Room> rooms(int roomCount) {
+        Random random = new Random(seed);
+        List<Room> rooms = new ArrayList<>(roomCount);
+        for (int i = 0; i < roomCount; i++) {
+            String roomType = ROOM_TYPES[random.nextInt(ROOM_TYPES.length)];
+            rooms.add(new Room(String.valueOf(100_000 + i), i / 100, 1 + random.nextInt(4), true,
+                    80L + random.nextInt(400), roomType, random.nextBoolean(), random.nextBoolean(), true, true,
+                    random.nextBoolean(), "Pool Access", 3.0 + random.nextInt(20) / 10.0, "Family"));
+        }
+        return rooms;
+    }
+
+    // back-to-back stays of 1 to 7 nights separated by gaps, spread over the availability horizon
+    private List<BookingSpan> bookings() {
+        Random random = new Random(seed + 1);
+        List<BookingSpan> spans = new ArrayList<>(rooms.size() * BOOKINGS_PER_ROOM);
+        int slot = HORIZON_DAYS / BOOKINGS_PER_ROOM;
+        for (Room room : rooms) {
+            for (int b = 0; b < BOOKINGS_PER_ROOM; b++) {
+                LocalDate startDate = today.plusDays((long) b * slot + random.nextInt(slot - 7));
+                spans.add(new Span(room.getRoomNr(), startDate, startDate.plusDays(1 + random.nextInt(7))));
+            }
+        }
+        return spans;
+    }
+
+    // one rule of every kind, so quotes go through seasonal, weekday, occupancy and length-of-stay pricing
+    private List<PricingRule> pricingRules() {
+        LocalDateTime now = LocalDateTime.now();
+        return List.of(
+                new PricingRule(1L, "Summer", PricingRuleType.SEASONAL, null, 1.3, true,
+                        today.plusDays(60), today.plusDays(150), null, null, null, now),
+                new PricingRule(2L, "Weekend", PricingRuleType.WEEKDAY, null, 1.15, true,
+                        null, null, "FRIDAY,SATURDAY", null, null, now),
+                new PricingRule(3L, "High occupancy", PricingRuleType.OCCUPANCY, null, 1.2, true,
+                        null, null, null, null, 0.5, now),
+                new PricingRule(4L, "Week stay", PricingRuleType.LENGTH_OF_STAY, "Suite", 0.9, true,
+                        null, null, null, 7, null, now));
+    }
+
+    private record Span(String roomNr, LocalDate startDate, LocalDate endDate) implements BookingSpan {
+
+        @Override
+        public String getRoomNr() {
+            return roomNr;
+        }
+
+        @Override
+        public LocalDate getStartDate() {
+            return startDate;
+        }
+
+        @Override
+        public LocalDate getEndDate() {
+            return endDate;
+        }
+    }
+}
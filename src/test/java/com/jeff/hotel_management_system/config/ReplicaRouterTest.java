@@ -0,0 +1,151 @@
+package com.jeff.hotel_management_system.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+// Two embedded H2 databases stand in for the Postgres primary and replica
+class ReplicaRouterTest {
+
+    private DataSource primary;
+
+    private DataSource replica;
+
+    private StringRedisTemplate redisTemplate;
+
+    private ValueOperations<String, String> valueOperations;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        given(redisTemplate.opsForValue()).willReturn(valueOperations);
+        given(redisTemplate.hasKey(anyString())).willReturn(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testReadOnly_ServedByReplica() {
+        ReplicaRouter router = router(List.of(replica), "SELECT 0");
+        router.probe();
+
+        assertThat(servedBy(router, true)).isEqualTo("replica");
+    }
+
+    @Test
+    void testReadWrite_ServedByPrimary() {
+        ReplicaRouter router = router(List.of(replica), "SELECT 0");
+        router.probe();
+
+        assertThat(servedBy(router, false)).isEqualTo("primary");
+    }
+
+    @Test
+    void testReadOnly_BeforeFirstProbe_ServedByPrimary() {
+        ReplicaRouter router = router(List.of(replica), "SELECT 0");
+
+        assertThat(servedBy(router, true)).isEqualTo("primary");
+    }
+
+    @Test
+    void testReadOnly_LaggingReplica_FallsBackToPrimary() {
+        ReplicaRouter router = router(List.of(replica), "SELECT 5000");
+        router.probe();
+
+        assertThat(servedBy(router, true)).isEqualTo("primary");
+    }
+
+    @Test
+    void testReadOnly_UnreachableReplica_FallsBackToPrimary() {
+        DataSource unreachable = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/missing", "sa", "");
+        ReplicaRouter router = router(List.of(unreachable), "SELECT 0");
+        router.probe();
+
+        assertThat(servedBy(router, true)).isEqualTo("primary");
+    }
+
+    @Test
+    void testReadYourWrites_PinsOnlyTheWriter() {
+        ReplicaRouter router = router(List.of(replica), "SELECT 0");
+        router.probe();
+        router.recordWrite("client@email.com");
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("client@email.com", null));
+        assertThat(servedBy(router, true)).isEqualTo("primary");
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("other@email.com", null));
+        assertThat(servedBy(router, true)).isEqualTo("replica");
+        verify(valueOperations).set(eq(ReplicaRouter.WRITES_KEY_PREFIX + "client@email.com"), anyString(),
+                eq(Duration.ofMillis(5000)));
+    }
+
+    @Test
+    void testReadYourWrites_WriteThroughOtherNode_PinsToPrimary() {
+        ReplicaRouter router = router(List.of(replica), "SELECT 0");
+        router.probe();
+        given(redisTemplate.hasKey(ReplicaRouter.WRITES_KEY_PREFIX + "client@email.com")).willReturn(true);
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("client@email.com", null));
+        assertThat(servedBy(router, true)).isEqualTo("primary");
+    }
+
+    @Test
+    void testReadYourWrites_RedisDown_FallsBackToPrimary() {
+        ReplicaRouter router = router(List.of(replica), "SELECT 0");
+        router.probe();
+        given(redisTemplate.hasKey(anyString())).willThrow(new RedisConnectionFailureException("down"));
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("client@email.com", null));
+        assertThat(servedBy(router, true)).isEqualTo("primary");
+
+        SecurityContextHolder.clearContext();
+        assertThat(servedBy(router, true)).isEqualTo("replica");
+    }
+
+    private ReplicaRouter router(List<DataSource> replicas, String lagQuery) {
+        return new ReplicaRouter(primary, replicas, 1000, 5000, lagQuery, redisTemplate);
+    }
+
+    private String servedBy(ReplicaRouter router, boolean readOnly) {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(router.dataSource());
+        return new JdbcTemplate(dataSource).queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS node (name varchar(20))");
+        jdbcTemplate.execute("DELETE FROM node");
+        jdbcTemplate.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,279 @@
+package com.jeff.hotel_management_system.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jeff.hotel_management_system.entity.Room;
+import com.stripe.Stripe;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end load test of the booking flow against Postgres and Redis in Testcontainers.
+ *
+ * Every virtual user searches for rooms, asks for a recommendation now and then, checks out a room,
+ * pays through FakeStripeServer, replays the signed webhook and lists its bookings until the booking
+ * shows up. The chat model is StubChatModel, so no request leaves the machine. Run with
+ * {@code ./mvnw test -Ploadtest}; needs Docker.
+ *
+ * Sizing is taken from system properties: loadtest.users (50), loadtest.iterations (10),
+ * loadtest.rooms (200), loadtest.stripe-latency-ms (150) and loadtest.chat-token-delay-ms (20).
+ * p50/p99 latency and throughput per endpoint are printed and written to
+ * target/loadtest-report-virtual-threads.json. PlatformThreadBookingFlowLoadTest runs the same scenario
+ * on the platform-thread Tomcat pool and writes target/loadtest-report-platform-threads.json.
+ */
+@Tag("loadtest")
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BookingFlowLoadTest {
+
+    private static final int USERS = Integer.getInteger("loadtest.users", 50);
+
+    private static final int ITERATIONS = Integer.getInteger("loadtest.iterations", 10);
+
+    private static final int ROOMS = Integer.getInteger("loadtest.rooms", 200);
+
+    private static final String WEBHOOK_SECRET = "whsec_loadtest";
+
+    private static final String PASSWORD = "password";
+
+    // stays are searched within the availability index's horizon
+    private static final int SEARCH_DAYS = 700;
+
+    private static final Duration BOOKING_VISIBLE_TIMEOUT = Duration.ofSeconds(30);
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Container
+    static final GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static FakeStripeServer stripe;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.data.redis.url", () -> "redis://" + redis.getHost() + ":" + redis.getMappedPort(6379));
+        registry.add("stripe.secretKey", () -> "sk_test_loadtest");
+        registry.add("stripe.secretWebHookKey", () -> WEBHOOK_SECRET);
+        registry.add("spring.ai.openai.api-key", () -> "sk-loadtest");
+        registry.add("security.jwt.secret-key", () -> Base64.getEncoder().encodeToString(new byte[32]));
+        registry.add("hotel.recommendations.stub-model.enabled", () -> "true");
+        registry.add("hotel.recommendations.stub-model.token-delay-ms", () -> Integer.getInteger("loadtest.chat-token-delay-ms", 20));
+    }
+
+    @BeforeAll
+    static void startStripe() throws Exception {
+        stripe = new FakeStripeServer(Duration.ofMillis(Integer.getInteger("loadtest.stripe-latency-ms", 150)), WEBHOOK_SECRET);
+        Stripe.overrideApiBase(stripe.apiBase());
+    }
+
+    @AfterAll
+    static void stopStripe() {
+        Stripe.overrideApiBase(Stripe.LIVE_API_BASE);
+        stripe.close();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled}")
+    private boolean virtualThreads;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final LatencyRecorder recorder = new LatencyRecorder();
+
+    private final AtomicInteger paid = new AtomicInteger();
+
+    private final AtomicInteger confirmed = new AtomicInteger();
+
+    private final AtomicInteger serverErrors = new AtomicInteger();
+
+    @Test
+    void searchCheckoutWebhookListBookings() throws Exception {
+        String adminToken = registerAndLogin("admin", "admin@loadtest.com");
+        for (int i = 0; i < ROOMS; i++) {
+            Room room = new Room(String.valueOf(1000 + i), i / 50, 1 + i % 4, true, 80L + i % 300,
+                    i % 3 == 0 ? "Suite" : "Double", i % 2 == 0, i % 5 == 0, true, true, i % 7 == 0,
+                    "Pool Access", 3.0 + i % 20 / 10.0, "Family");
+            HttpResponse<String> response = call("POST /api/rooms", adminToken, "POST", "/api/rooms", room, false);
+            assertThat(response.statusCode()).isLessThan(300);
+        }
+
+        List<String> tokens = new ArrayList<>(USERS);
+        for (int u = 0; u < USERS; u++) {
+            tokens.add(registerAndLogin("client", "client" + u + "@loadtest.com"));
+        }
+
+        long started = System.nanoTime();
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(USERS);
+            for (String token : tokens) {
+                futures.add(users.submit(() -> {
+                    runUser(token);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        String threads = virtualThreads ? "virtual" : "platform";
+        recorder.report(seconds, Path.of("target", "loadtest-report-" + threads + "-threads.json"));
+        System.out.printf("%s threads: %d users x %d iterations in %.1f s, %.1f req/s, %d checkouts paid, %d bookings confirmed%n",
+                threads, USERS, ITERATIONS, seconds, recorder.requests() / seconds, paid.get(), confirmed.get());
+
+        assertThat(serverErrors.get()).as("responses with a 5xx status").isZero();
+        assertThat(confirmed.get()).as("paid checkouts that became bookings").isEqualTo(paid.get());
+    }
+
+    private void runUser(String token) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            LocalDate startDate = LocalDate.now().plusDays(1 + random.nextInt(SEARCH_DAYS));
+            LocalDate endDate = startDate.plusDays(1 + random.nextInt(5));
+            String stay = "startDate=" + startDate + "&endDate=" + endDate + "&minOccupancy=1";
+
+            HttpResponse<String> search = call("GET /api/main/available-rooms", token, "GET",
+                    "/api/main/available-rooms?" + stay, null, false);
+            JsonNode available = objectMapper.readTree(search.body());
+            if (search.statusCode() != 200 || available.isEmpty()) {
+                continue;
+            }
+
+            if (iteration % 5 == 0) {
+                call("GET /api/recommendations", token, "GET", "/api/recommendations?" + stay + "&preferences=quiet", null, false);
+            }
+
+            // most guests pick from the top of the list, so some of them collide
+            String roomNr = available.get(random.nextInt(Math.min(20, available.size()))).get("room").get("roomNr").asText();
+            Map<String, Object> booking = Map.of(
+                    "id", Map.of("startDate", startDate.toString(), "roomNr", roomNr),
+                    "endDate", endDate.toString());
+            HttpResponse<String> checkout = call("POST /api/bookings", token, "POST", "/api/bookings", booking, true);
+            if (checkout.statusCode() != 200) {
+                continue;
+            }
+            String sessionId = objectMapper.readTree(checkout.body()).path("checkoutId").asText(null);
+            if (sessionId == null) {
+                continue;
+            }
+
+            String payload = stripe.completedEvent(sessionId);
+            HttpResponse<String> webhook = send("POST /api/stripe/webhook", HttpRequest.newBuilder(uri("/api/stripe/webhook"))
+                    .header("Content-Type", "application/json")
+                    .header("Stripe-Signature", stripe.signature(payload))
+                    .POST(HttpRequest.BodyPublishers.ofString(payload))
+                    .build(), false);
+            if (webhook.statusCode() != 200) {
+                continue;
+            }
+            paid.incrementAndGet();
+
+            // the inbox applies the event asynchronously, the guest keeps refreshing their bookings
+            long paidAt = System.nanoTime();
+            long deadline = paidAt + BOOKING_VISIBLE_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                HttpResponse<String> bookings = call("GET /api/bookings", token, "GET", "/api/bookings", null, false);
+                if (contains(objectMapper.readTree(bookings.body()), roomNr, startDate)) {
+                    recorder.record("booking confirmed after payment", System.nanoTime() - paidAt, false);
+                    confirmed.incrementAndGet();
+                    break;
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    private static boolean contains(JsonNode bookings, String roomNr, LocalDate startDate) {
+        for (JsonNode booking : bookings) {
+            if (roomNr.equals(booking.path("roomNr").asText()) && startDate.toString().equals(booking.path("startDate").asText())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String registerAndLogin(String role, String email) throws Exception {
+        Map<String, Object> user = role.equals("client")
+                ? Map.of("email", email, "password", PASSWORD, "name", email, "phone", "0123456789", "paymentType", "CREDIT_CARD")
+                : Map.of("email", email, "password", PASSWORD, "name", email, "phone", "0123456789");
+        call("POST /api/auth/register", null, "POST", "/api/auth/" + role + "/register", user, false);
+
+        HttpResponse<String> login = call("POST /api/auth/login", null, "POST", "/api/auth/login",
+                Map.of("email", email, "password", PASSWORD), false);
+        assertThat(login.statusCode()).isEqualTo(200);
+        return objectMapper.readTree(login.body()).get("accessToken").asText();
+    }
+
+    // conflictExpected: a 409 is a lost race for a room, part of the scenario rather than an error
+    private HttpResponse<String> call(String endpoint, String token, String method, String path, Object body,
+                                      boolean conflictExpected) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json");
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        request.method(method, body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+        return send(endpoint, request.build(), conflictExpected);
+    }
+
+    private HttpResponse<String> send(String endpoint, HttpRequest request, boolean conflictExpected) throws Exception {
+        long started = System.nanoTime();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        recorder.record(endpoint, System.nanoTime() - started, status >= 400 && !(conflictExpected && status == 409));
+        if (status >= 500) {
+            serverErrors.incrementAndGet();
+        }
+        return response;
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,163 @@
+package com.jeff.hotel_management_system.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.stripe.Stripe;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the Stripe API, for load tests.
+ *
+ * Point stripe-java at it with Stripe.overrideApiBase(apiBase()). It answers checkout session
+ * creation after a configurable latency, like the real API would, and keeps the sessions so that
+ * completing one yields the checkout.session.completed payload Stripe would send, signed with the
+ * webhook secret so it passes Webhook.constructEvent.
+ */
+class FakeStripeServer implements AutoCloseable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpServer server;
+
+    private final Duration latency;
+
+    private final String webhookSecret;
+
+    private final Map<String, ObjectNode> sessions = new ConcurrentHashMap<>();
+
+    private final AtomicLong ids = new AtomicLong();
+
+    FakeStripeServer(Duration latency, String webhookSecret) throws IOException {
+        this.latency = latency;
+        this.webhookSecret = webhookSecret;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v1/checkout/sessions", this::createSession);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    String apiBase() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * The checkout.session.completed event of a paid session, as Stripe would post it to the webhook.
+     */
+    String completedEvent(String sessionId) {
+        ObjectNode session = sessions.get(sessionId).deepCopy();
+        session.put("status", "complete");
+        session.put("payment_status", "paid");
+
+        ObjectNode event = objectMapper.createObjectNode();
+        event.put("id", "evt_load_" + ids.incrementAndGet());
+        event.put("object", "event");
+        // the processor only deserializes the session of events in the library's own API version
+        event.put("api_version", Stripe.API_VERSION);
+        event.put("created", System.currentTimeMillis() / 1000);
+        event.put("type", "checkout.session.completed");
+        event.putObject("data").set("object", session);
+        return event.toString();
+    }
+
+    /**
+     * Stripe-Signature header for a webhook payload.
+     */
+    String signature(String payload) {
+        long timestamp = System.currentTimeMillis() / 1000;
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] digest = mac.doFinal((timestamp + "." + payload).getBytes(StandardCharsets.UTF_8));
+            return "t=" + timestamp + ",v1=" + HexFormat.of().formatHex(digest);
+        } catch (GeneralSecurityException e) {
+            // every JVM ships HmacSHA256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void createSession(HttpExchange exchange) throws IOException {
+        Map<String, String> params = form(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        sleep(latency);
+
+        String id = "cs_test_load_" + ids.incrementAndGet();
+        ObjectNode session = objectMapper.createObjectNode();
+        session.put("id", id);
+        session.put("object", "checkout.session");
+        session.put("mode", "payment");
+        session.put("status", "open");
+        session.put("payment_status", "unpaid");
+        session.put("currency", "usd");
+        session.put("url", apiBase() + "/pay/" + id);
+        session.put("success_url", params.get("success_url"));
+        session.put("cancel_url", params.get("cancel_url"));
+        session.put("expires_at", Long.parseLong(params.getOrDefault("expires_at", "0")));
+        session.put("amount_total", amountTotal(params));
+        ObjectNode metadata = session.putObject("metadata");
+        params.forEach((key, value) -> {
+            if (key.startsWith("metadata[")) {
+                metadata.put(key.substring("metadata[".length(), key.length() - 1), value);
+            }
+        });
+        sessions.put(id, session);
+
+        byte[] body = session.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // sum of unit_amount * quantity over line_items[i]
+    private static long amountTotal(Map<String, String> params) {
+        long total = 0;
+        for (int i = 0; params.containsKey("line_items[" + i + "][quantity]"); i++) {
+            long quantity = Long.parseLong(params.get("line_items[" + i + "][quantity]"));
+            long unitAmount = Long.parseLong(params.get("line_items[" + i + "][price_data][unit_amount]"));
+            total += quantity * unitAmount;
+        }
+        return total;
+    }
+
+    private static Map<String, String> form(String body) {
+        Map<String, String> params = new HashMap<>();
+        for (String pair : body.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.jeff.hotel_management_system.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencies and error counts per endpoint, collected from all virtual users of a load test.
+ */
+class LatencyRecorder {
+
+    private final Map<String, ConcurrentLinkedQueue<Long>> latencies = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long nanos, boolean error) {
+        latencies.computeIfAbsent(endpoint, key -> new ConcurrentLinkedQueue<>()).add(nanos);
+        if (error) {
+            errors.computeIfAbsent(endpoint, key -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    long requests() {
+        return latencies.values().stream().mapToLong(ConcurrentLinkedQueue::size).sum();
+    }
+
+    long errors(String endpoint) {
+        AtomicLong count = errors.get(endpoint);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Prints p50, p99, max and throughput per endpoint over a run of the given length and writes
+     * the same figures as JSON to the report file.
+     */
+    void report(double seconds, Path file) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ArrayNode endpoints = objectMapper.createArrayNode();
+
+        System.out.printf("%-32s %8s %8s %10s %10s %10s %10s%n", "endpoint", "requests", "errors", "p50 ms", "p99 ms", "max ms", "req/s");
+        new TreeMap<>(latencies).forEach((endpoint, samples) -> {
+            long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+            double p50 = percentile(sorted, 0.50) / 1e6;
+            double p99 = percentile(sorted, 0.99) / 1e6;
+            double max = sorted[sorted.length - 1] / 1e6;
+            double throughput = sorted.length / seconds;
+            System.out.printf("%-32s %8d %8d %10.1f %10.1f %10.1f %10.1f%n",
+                    endpoint, sorted.length, errors(endpoint), p50, p99, max, throughput);
+
+            ObjectNode node = endpoints.addObject();
+            node.put("endpoint", endpoint);
+            node.put("requests", sorted.length);
+            node.put("errors", errors(endpoint));
+            node.put("p50Ms", p50);
+            node.put("p99Ms", p99);
+            node.put("maxMs", max);
+            node.put("requestsPerSecond", throughput);
+        });
+
+        ObjectNode report = objectMapper.createObjectNode();
+        report.put("durationSeconds", seconds);
+        report.set("endpoints", endpoints);
+        Files.createDirectories(file.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+    }
+
+    // nearest-rank percentile of sorted samples
+    static long percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+}
@@ -0,0 +1,13 @@
+package com.jeff.hotel_management_system.loadtest;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * BookingFlowLoadTest with requests served by the platform-thread Tomcat pool instead of virtual threads.
+ *
+ * Both run with {@code ./mvnw test -Ploadtest}; compare target/loadtest-report-virtual-threads.json
+ * with target/loadtest-report-platform-threads.json, or the req/s lines the two runs print.
+ */
+@TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+class PlatformThreadBookingFlowLoadTest extends BookingFlowLoadTest {
+}
@@ -0,0 +1,123 @@
+package com.jeff.hotel_management_system.repository;
+
+import com.jeff.hotel_management_system.entity.Booking;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the Flyway migrations against Postgres and exercises the partition functions and the
+ * booking constraints they rely on. Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class BookingPartitionMigrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbc;
+
+    private final LocalDate thisMonth = LocalDate.now().withDayOfMonth(1);
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+
+        jdbc.update("INSERT INTO client (email, password, name, role) VALUES ('client@email.com', 'password', 'John Doe', 'CLIENT')");
+        for (String roomNr : new String[]{"101", "102", "103", "104"}) {
+            jdbc.update("INSERT INTO room (room_nr, floor, max_occ, is_available, base_price, room_type, has_sea_view, "
+                    + "has_balcony, has_wifi, has_air_conditioning, is_pet_friendly, amenities) "
+                    + "VALUES (?, 1, 2, true, 100, 'Single', false, false, true, true, false, 'Gym Access')", roomNr);
+        }
+    }
+
+    @Test
+    void testCreatePartitions_MovesRowsOutOfDefaultPartition() {
+        LocalDate month = thisMonth.plusMonths(40);
+        book(month.plusDays(3), "101", month.plusDays(6));
+        assertThat(count("booking_default")).isEqualTo(1);
+
+        Integer created = jdbc.queryForObject("SELECT create_booking_partitions(?, ?)", Integer.class, month, month);
+
+        assertThat(created).isEqualTo(1);
+        assertThat(count("booking_default")).isZero();
+        assertThat(count("occupies_default")).isZero();
+        assertThat(count(partition("booking_p", month))).isEqualTo(1);
+        assertThat(count(partition("occupies_p", month))).isEqualTo(1);
+        // already there, nothing to do
+        assertThat(jdbc.queryForObject("SELECT create_booking_partitions(?, ?)", Integer.class, month, month)).isZero();
+    }
+
+    @Test
+    void testArchivePartitions_MovesFinishedMonthsIntoArchive() {
+        LocalDate month = LocalDate.of(2020, 1, 1);
+        jdbc.queryForObject("SELECT create_booking_partitions(?, ?)", Integer.class, month, month);
+        book(month.plusDays(4), "102", month.plusDays(7));
+        book(month.plusDays(10), "102", month.plusDays(12));
+
+        Integer archived = jdbc.queryForObject("SELECT archive_booking_partitions(?)", Integer.class, month.plusMonths(1));
+
+        assertThat(archived).isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT to_regclass(?) IS NULL", Boolean.class, partition("booking_p", month))).isTrue();
+        assertThat(jdbc.queryForObject("SELECT booking_count FROM booking_archive WHERE month = ?", Integer.class, month))
+                .isEqualTo(2);
+        assertThat(jdbc.queryForObject(
+                "SELECT jsonb_array_length(occupies) FROM booking_archive WHERE month = ?", Integer.class, month))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void testOverlapTrigger_RejectsOverlapAcrossPartitions() {
+        // starts in this month's partition and runs into the next one
+        LocalDate start = thisMonth.plusDays(20);
+        book(start, "103", start.plusDays(15));
+
+        assertThatThrownBy(() -> book(thisMonth.plusMonths(1).plusDays(1), "103", thisMonth.plusMonths(1).plusDays(3)))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .hasMessageContaining("booking_no_overlap");
+        // back to back is fine
+        book(start.plusDays(15), "103", start.plusDays(16));
+    }
+
+    @Test
+    void testMaxStayCheck() {
+        LocalDate start = thisMonth.plusMonths(2);
+        book(start, "104", start.plusDays(Booking.MAX_STAY_NIGHTS));
+
+        assertThatThrownBy(() -> book(start.plusYears(1).plusDays(5), "104", start.plusYears(2).plusDays(6)))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .hasMessageContaining("booking_max_stay");
+    }
+
+    private void book(LocalDate startDate, String roomNr, LocalDate endDate) {
+        jdbc.update("INSERT INTO booking (start_date, room_nr, price, client_email, end_date) VALUES (?, ?, 100, 'client@email.com', ?)",
+                startDate, roomNr, endDate);
+        jdbc.update("INSERT INTO occupies (client_email, booking_start_date, booking_room_nr) VALUES ('client@email.com', ?, ?)",
+                startDate, roomNr);
+    }
+
+    private int count(String table) {
+        return jdbc.queryForObject("SELECT count(*) FROM " + table, Integer.class);
+    }
+
+    private String partition(String prefix, LocalDate month) {
+        return prefix + month.getYear() + "_" + String.format("%02d", month.getMonthValue());
+    }
+}
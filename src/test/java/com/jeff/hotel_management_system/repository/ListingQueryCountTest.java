@@ -0,0 +1,138 @@
+package com.jeff.hotel_management_system.repository;
+
+import com.jeff.hotel_management_system.dto.BookingDto;
+import com.jeff.hotel_management_system.dto.OccupiesDto;
+import com.jeff.hotel_management_system.entity.*;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the SQL statements behind each listing endpoint, so a query that starts
+ * loading associations row by row fails the build.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database=H2",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ListingQueryCountTest {
+
+    private static final int CLIENTS = 3;
+
+    private static final int BOOKINGS_PER_CLIENT = 4;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private OccupiesRepository occupiesRepository;
+
+    private Statistics statistics;
+
+    private final LocalDate start = LocalDate.of(2025, 1, 1);
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        for (int c = 0; c < CLIENTS; c++) {
+            Client client = new Client();
+            client.setEmail("client" + c + "@email.com");
+            client.setPassword("password");
+            client.setName("Client " + c);
+            client.setRole("CLIENT");
+            client.setPaymentType(PaymentType.CREDIT_CARD);
+            entityManager.persist(client);
+
+            for (int b = 0; b < BOOKINGS_PER_CLIENT; b++) {
+                String roomNr = String.valueOf(100 + c * BOOKINGS_PER_CLIENT + b);
+                Room room = new Room(roomNr, 1, 2, true, 100L, "Single", true, true, true, true, true,
+                        "Pool Access", 4.5, "Family");
+                entityManager.persist(room);
+
+                BookingId bookingId = new BookingId(start.plusDays(b), roomNr);
+                Booking booking = new Booking(bookingId, 300L, client, room, start.plusDays(b + 3));
+                entityManager.persist(booking);
+                entityManager.persist(new Occupies(
+                        new OccupiesId(client.getEmail(), bookingId.getStartDate(), roomNr), client, booking));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testClientBookings_SingleStatement() {
+        long statements = statementsFor(() -> {
+            List<BookingDto> bookings = bookingRepository.findDtosByClientEmail("client1@email.com");
+            assertThat(bookings).hasSize(BOOKINGS_PER_CLIENT);
+            // the response serializes the room of every booking
+            bookings.forEach(booking -> assertThat(booking.getRoom().getRoomType()).isEqualTo("Single"));
+        });
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void testBookingById_SingleStatement() {
+        long statements = statementsFor(() -> {
+            Optional<Booking> booking = bookingRepository.findWithClientAndRoomById(new BookingId(start, "100"));
+            assertThat(booking).isPresent();
+            assertThat(Hibernate.isInitialized(booking.get().getClient())).isTrue();
+            assertThat(Hibernate.isInitialized(booking.get().getRoom())).isTrue();
+        });
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void testBookingsPage_SingleStatement() {
+        long statements = statementsFor(() ->
+                assertThat(bookingRepository.findFirstSummaries(Limit.of(100))).hasSize(CLIENTS * BOOKINGS_PER_CLIENT));
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void testAllOccupies_SingleStatement() {
+        long statements = statementsFor(() -> {
+            List<OccupiesDto> occupies = occupiesRepository.findAllDtos();
+            assertThat(occupies).hasSize(CLIENTS * BOOKINGS_PER_CLIENT);
+        });
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void testBookingEntities_AssociationsAreLazy() {
+        long statements = statementsFor(() ->
+                assertThat(bookingRepository.findAll()).hasSize(CLIENTS * BOOKINGS_PER_CLIENT));
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    private long statementsFor(Runnable query) {
+        statistics.clear();
+        query.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -5,6 +5,7 @@ import com.jeff.hotel_management_system.dto.AccountUpdateDto;
 import com.jeff.hotel_management_system.dto.PaymentDetailsDto;
 import com.jeff.hotel_management_system.entity.*;
 import com.jeff.hotel_management_system.repository.*;
+import com.jeff.hotel_management_system.utils.TokenWhitelistRedisCacheClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -32,6 +33,9 @@ class AccountServiceTest {
     @Mock
     private AdminRepository adminRepository;
 
+    @Mock
+    private TokenWhitelistRedisCacheClient tokenWhitelistRedisCacheClient;
+
     @InjectMocks
     private AccountService accountService;
 
@@ -167,6 +171,7 @@ class AccountServiceTest {
         verify(creditCardRepository, times(1)).deleteById("client@email.com");
         verify(bankAccountRepository, times(1)).deleteById("client@email.com");
         verify(clientRepository, times(1)).deleteById("client@email.com");
+        verify(tokenWhitelistRedisCacheClient, times(1)).delete("client@email.com");
     }
 
     @Test
@@ -0,0 +1,116 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.dto.BookingSpan;
+import com.jeff.hotel_management_system.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+class AvailabilityIndexTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @InjectMocks
+    private AvailabilityIndex availabilityIndex;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(availabilityIndex, "horizonDays", 365);
+    }
+
+    @Test
+    void testCovers_BeforeRebuild() {
+        assertThat(availabilityIndex.covers(today, today.plusDays(2))).isFalse();
+    }
+
+    @Test
+    void testCovers_InsideAndOutsideHorizon() {
+        given(bookingRepository.findSpansEndingAfter(any())).willReturn(Arrays.asList());
+        availabilityIndex.rebuild();
+
+        assertThat(availabilityIndex.covers(today, today.plusDays(365))).isTrue();
+        assertThat(availabilityIndex.covers(today.minusDays(1), today.plusDays(2))).isFalse();
+        assertThat(availabilityIndex.covers(today, today.plusDays(366))).isFalse();
+        assertThat(availabilityIndex.covers(today.plusDays(3), today.plusDays(3))).isFalse();
+    }
+
+    @Test
+    void testIsAvailable_AfterRebuild() {
+        // spans a word boundary so the multi-word path is exercised
+        given(bookingRepository.findSpansEndingAfter(today)).willReturn(Arrays.asList(
+                span("101", today.plusDays(60), today.plusDays(70)),
+                span("102", today.minusDays(3), today.plusDays(2))
+        ));
+        availabilityIndex.rebuild();
+
+        assertThat(availabilityIndex.isAvailable("101", today, today.plusDays(60))).isTrue();
+        assertThat(availabilityIndex.isAvailable("101", today.plusDays(59), today.plusDays(61))).isFalse();
+        assertThat(availabilityIndex.isAvailable("101", today.plusDays(69), today.plusDays(75))).isFalse();
+        assertThat(availabilityIndex.isAvailable("101", today.plusDays(70), today.plusDays(75))).isTrue();
+        assertThat(availabilityIndex.isAvailable("101", today, today.plusDays(200))).isFalse();
+        assertThat(availabilityIndex.isAvailable("102", today, today.plusDays(1))).isFalse();
+        assertThat(availabilityIndex.isAvailable("102", today.plusDays(2), today.plusDays(5))).isTrue();
+        assertThat(availabilityIndex.isAvailable("103", today, today.plusDays(30))).isTrue();
+    }
+
+    @Test
+    void testReserveAndRelease() {
+        given(bookingRepository.findSpansEndingAfter(any())).willReturn(Arrays.asList());
+        availabilityIndex.rebuild();
+
+        availabilityIndex.reserve("101", today.plusDays(10), today.plusDays(14));
+        assertThat(availabilityIndex.isAvailable("101", today.plusDays(12), today.plusDays(20))).isFalse();
+        assertThat(availabilityIndex.isAvailable("101", today.plusDays(14), today.plusDays(20))).isTrue();
+
+        availabilityIndex.release("101", today.plusDays(10), today.plusDays(14));
+        assertThat(availabilityIndex.isAvailable("101", today.plusDays(10), today.plusDays(14))).isTrue();
+    }
+
+    @Test
+    void testOnChangeEvent_AppliesOtherNodesOnly() {
+        given(bookingRepository.findSpansEndingAfter(any())).willReturn(Arrays.asList());
+        availabilityIndex.rebuild();
+
+        availabilityIndex.onChangeEvent("BOOKED|101|" + today.plusDays(5) + "|" + today.plusDays(8) + "|other-node");
+        availabilityIndex.onChangeEvent("BOOKED|102|" + today.plusDays(5) + "|" + today.plusDays(8) + "|"
+                + BookingIntervalIndex.NODE_ID);
+        assertThat(availabilityIndex.isAvailable("101", today.plusDays(7), today.plusDays(9))).isFalse();
+        assertThat(availabilityIndex.isAvailable("102", today.plusDays(5), today.plusDays(8))).isTrue();
+
+        availabilityIndex.onChangeEvent("RELEASED|101|" + today.plusDays(5) + "|" + today.plusDays(8) + "|other-node");
+        assertThat(availabilityIndex.isAvailable("101", today.plusDays(5), today.plusDays(8))).isTrue();
+    }
+
+    private BookingSpan span(String roomNr, LocalDate startDate, LocalDate endDate) {
+        return new BookingSpan() {
+            @Override
+            public String getRoomNr() {
+                return roomNr;
+            }
+
+            @Override
+            public LocalDate getStartDate() {
+                return startDate;
+            }
+
+            @Override
+            public LocalDate getEndDate() {
+                return endDate;
+            }
+        };
+    }
+}
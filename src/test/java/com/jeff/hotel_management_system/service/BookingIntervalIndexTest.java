@@ -0,0 +1,145 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.dto.BookingSpan;
+import com.jeff.hotel_management_system.dto.DateRange;
+import com.jeff.hotel_management_system.exception.BookingConflictException;
+import com.jeff.hotel_management_system.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+class BookingIntervalIndexTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @InjectMocks
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    private final LocalDate day = LocalDate.of(2025, 6, 1);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        bookingIntervalIndex.reserve("101", day, day.plusDays(3));
+        bookingIntervalIndex.reserve("101", day.plusDays(5), day.plusDays(8));
+    }
+
+    @Test
+    void testReserve_AdjacentStaysDoNotConflict() {
+        bookingIntervalIndex.reserve("101", day.plusDays(3), day.plusDays(5));
+
+        assertThat(bookingIntervalIndex.hasConflict("101", day.minusDays(2), day)).isFalse();
+        assertThat(bookingIntervalIndex.hasConflict("101", day.plusDays(8), day.plusDays(9))).isFalse();
+    }
+
+    @Test
+    void testReserve_OverlappingNonIdenticalRange() {
+        BookingConflictException exception = assertThrows(BookingConflictException.class, () ->
+                bookingIntervalIndex.reserve("101", day.plusDays(2), day.plusDays(4)));
+
+        assertThat(exception.getMessage()).isEqualTo("Room 101 is already booked from 2025-06-01 to 2025-06-04");
+        assertThat(bookingIntervalIndex.hasConflict("102", day.plusDays(2), day.plusDays(4))).isFalse();
+    }
+
+    @Test
+    void testReserve_EmptyRange() {
+        assertThrows(IllegalArgumentException.class, () ->
+                bookingIntervalIndex.reserve("101", day.plusDays(3), day.plusDays(3)));
+    }
+
+    @Test
+    void testFindConflicts() {
+        List<DateRange> conflicts = bookingIntervalIndex.findConflicts("101", new DateRange(day.plusDays(1), day.plusDays(6)));
+
+        assertThat(conflicts).hasSize(2);
+        assertThat(conflicts.get(0).getStartDate()).isEqualTo(day);
+        assertThat(conflicts.get(1).getStartDate()).isEqualTo(day.plusDays(5));
+        assertThat(bookingIntervalIndex.findConflicts("101", new DateRange(day.plusDays(3), day.plusDays(5)))).isEmpty();
+    }
+
+    @Test
+    void testResize() {
+        bookingIntervalIndex.resize("101", day, day.plusDays(5));
+        assertThat(bookingIntervalIndex.hasConflict("101", day.plusDays(4), day.plusDays(5))).isTrue();
+
+        assertThrows(BookingConflictException.class, () ->
+                bookingIntervalIndex.resize("101", day, day.plusDays(6)));
+
+        // the failed resize keeps the previous end date
+        assertThat(bookingIntervalIndex.hasConflict("101", day.plusDays(4), day.plusDays(5))).isTrue();
+    }
+
+    @Test
+    void testRelease() {
+        bookingIntervalIndex.release("101", day, day.plusDays(3));
+
+        assertThat(bookingIntervalIndex.hasConflict("101", day, day.plusDays(3))).isFalse();
+        assertThat(bookingIntervalIndex.hasConflict("101", day.plusDays(5), day.plusDays(6))).isTrue();
+        verify(redisTemplate).convertAndSend(BookingIntervalIndex.CHANGE_CHANNEL,
+                "RELEASED|101|2025-06-01|2025-06-04|" + BookingIntervalIndex.NODE_ID);
+    }
+
+    @Test
+    void testReserve_PublishesChange() {
+        verify(redisTemplate).convertAndSend(BookingIntervalIndex.CHANGE_CHANNEL,
+                "BOOKED|101|2025-06-01|2025-06-04|" + BookingIntervalIndex.NODE_ID);
+    }
+
+    @Test
+    void testOnChangeEvent_AppliesOtherNodesChanges() {
+        bookingIntervalIndex.onChangeEvent("RELEASED|101|2025-06-01|2025-06-04|other-node");
+        bookingIntervalIndex.onChangeEvent("BOOKED|102|2025-06-02|2025-06-05|other-node");
+        // this node's own messages were applied when they were sent
+        bookingIntervalIndex.onChangeEvent("RELEASED|101|2025-06-06|2025-06-09|" + BookingIntervalIndex.NODE_ID);
+
+        assertThat(bookingIntervalIndex.hasConflict("101", day, day.plusDays(3))).isFalse();
+        assertThat(bookingIntervalIndex.hasConflict("102", day.plusDays(4), day.plusDays(5))).isTrue();
+        assertThat(bookingIntervalIndex.hasConflict("101", day.plusDays(5), day.plusDays(6))).isTrue();
+    }
+
+    @Test
+    void testLoad_ReplacesStaysWithThoseNotEnded() {
+        BookingSpan running = span("103", LocalDate.now().minusDays(1), LocalDate.now().plusDays(2));
+        given(bookingRepository.findSpansEndingAfter(LocalDate.now())).willReturn(List.of(running));
+
+        bookingIntervalIndex.load();
+
+        // reserved before the load, which now only knows the stays in the database
+        assertThat(bookingIntervalIndex.hasConflict("101", day, day.plusDays(3))).isFalse();
+        assertThat(bookingIntervalIndex.hasConflict("103", LocalDate.now(), LocalDate.now().plusDays(1))).isTrue();
+    }
+
+    private BookingSpan span(String roomNr, LocalDate startDate, LocalDate endDate) {
+        return new BookingSpan() {
+            @Override
+            public String getRoomNr() {
+                return roomNr;
+            }
+
+            @Override
+            public LocalDate getStartDate() {
+                return startDate;
+            }
+
+            @Override
+            public LocalDate getEndDate() {
+                return endDate;
+            }
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+
+import static org.mockito.Mockito.*;
+
+class BookingPartitionServiceTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @InjectMocks
+    private BookingPartitionService bookingPartitionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(bookingPartitionService, "monthsAhead", 25);
+        ReflectionTestUtils.setField(bookingPartitionService, "archiveAfterMonths", 12);
+    }
+
+    @Test
+    void testMaintain_CreatesAheadAndArchivesOldMonths() {
+        LocalDate thisMonth = LocalDate.now().withDayOfMonth(1);
+
+        bookingPartitionService.maintain();
+
+        InOrder inOrder = inOrder(bookingRepository);
+        inOrder.verify(bookingRepository, times(1)).lockPartitionMaintenance();
+        inOrder.verify(bookingRepository, times(1)).createPartitions(thisMonth, thisMonth.plusMonths(25));
+        inOrder.verify(bookingRepository, times(1)).archivePartitionsBefore(thisMonth.minusMonths(12));
+    }
+}
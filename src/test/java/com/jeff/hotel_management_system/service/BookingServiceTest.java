@@ -1,15 +1,26 @@
 package com.jeff.hotel_management_system.service;
 
+import com.jeff.hotel_management_system.config.ReplicaRouter;
+import com.jeff.hotel_management_system.dto.BookingConflictDto;
 import com.jeff.hotel_management_system.dto.BookingDto;
+import com.jeff.hotel_management_system.dto.BookingPageDto;
+import com.jeff.hotel_management_system.dto.BookingSpan;
+import com.jeff.hotel_management_system.dto.BookingSummaryDto;
+import com.jeff.hotel_management_system.dto.DateRange;
+import com.jeff.hotel_management_system.dto.GroupBookingRequest;
 import com.jeff.hotel_management_system.entity.*;
+import com.jeff.hotel_management_system.exception.BookingConflictException;
 import com.jeff.hotel_management_system.repository.*;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
 import java.util.Arrays;
@@ -17,6 +28,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 
@@ -35,7 +47,22 @@ class BookingServiceTest {
     private PricingService pricingService;
 
     @Mock
-    private RoomRepository roomRepository;
+    private RoomCache roomCache;
+
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Mock
+    private OccupancyAnalytics occupancyAnalytics;
+
+    @Mock
+    private ReplicaRouter replicaRouter;
+
+    @Mock
+    private EntityManager entityManager;
 
     @InjectMocks
     private BookingService bookingService;
@@ -47,6 +74,9 @@ class BookingServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(bookingService, "maxGroupSize", 50);
+        ReflectionTestUtils.setField(bookingService, "partitionMonthsAhead", 25);
+        ReflectionTestUtils.setField(bookingService, "archiveAfterMonths", 12);
         client = new Client("1234567890", PaymentType.CREDIT_CARD);
         client.setName("John Doe");
         client.setEmail("client@email.com");
@@ -57,44 +87,63 @@ class BookingServiceTest {
     }
 
     @Test
-    void testGetAllBookings() {
-        Booking booking2 = new Booking(new BookingId(LocalDate.now().plusDays(1), "102"), 300L, client, room, LocalDate.now().plusDays(4));
-        given(bookingRepository.findAll()).willReturn(Arrays.asList(booking, booking2));
+    void testGetBookingsPage_FirstPage() {
+        BookingSummaryDto summary1 = new BookingSummaryDto(200L, LocalDate.now(), LocalDate.now().plusDays(3), "101", "client@email.com");
+        BookingSummaryDto summary2 = new BookingSummaryDto(300L, LocalDate.now().plusDays(1), LocalDate.now().plusDays(4), "102", "client@email.com");
+        given(bookingRepository.findFirstSummaries(Limit.of(2))).willReturn(Arrays.asList(summary1, summary2));
+
+        BookingPageDto page = bookingService.getBookingsPage(null, null, 2);
+
+        assertThat(page.getBookings()).hasSize(2);
+        assertThat(page.getBookings().get(0).getPrice()).isEqualTo(200L);
+        assertThat(page.getNextStartDate()).isEqualTo(LocalDate.now().plusDays(1));
+        assertThat(page.getNextRoomNr()).isEqualTo("102");
+        verify(bookingRepository, times(1)).findFirstSummaries(Limit.of(2));
+        verify(bookingRepository, never()).findAll();
+    }
 
-        List<BookingDto> bookings = bookingService.getAllBookings();
+    @Test
+    void testGetBookingsPage_LastPage() {
+        LocalDate after = LocalDate.now();
+        BookingSummaryDto summary = new BookingSummaryDto(300L, after.plusDays(1), after.plusDays(4), "102", "client@email.com");
+        given(bookingRepository.findSummariesAfter(after, "101", Limit.of(100))).willReturn(Arrays.asList(summary));
 
-        assertThat(bookings).hasSize(2);
-        assertThat(bookings.get(0).getPrice()).isEqualTo(200L);
-        assertThat(bookings.get(1).getPrice()).isEqualTo(300L);
-        verify(bookingRepository, times(1)).findAll();
+        BookingPageDto page = bookingService.getBookingsPage(after, "101", 100);
+
+        assertThat(page.getBookings()).hasSize(1);
+        assertThat(page.getNextStartDate()).isNull();
+        assertThat(page.getNextRoomNr()).isNull();
+        verify(bookingRepository, times(1)).findSummariesAfter(after, "101", Limit.of(100));
     }
 
     @Test
     void testGetBookingById() {
-        given(bookingRepository.findById(booking.getId())).willReturn(Optional.of(booking));
+        given(bookingRepository.findWithClientAndRoomById(booking.getId())).willReturn(Optional.of(booking));
 
         Optional<Booking> result = bookingService.getBookingById(booking.getId());
 
         assertThat(result).isPresent();
         assertThat(result.get().getPrice()).isEqualTo(200L);
-        verify(bookingRepository, times(1)).findById(booking.getId());
+        verify(bookingRepository, times(1)).findWithClientAndRoomById(booking.getId());
     }
 
     @Test
     void testFindByClientEmail() {
-        given(bookingRepository.findByClientEmail("client@email.com")).willReturn(Arrays.asList(booking));
+        BookingDto bookingDto = new BookingDto(200L, booking.getId().getStartDate(), booking.getEndDate(),
+                "101", "client@email.com", room);
+        given(bookingRepository.findDtosByClientEmail("client@email.com")).willReturn(Arrays.asList(bookingDto));
 
-        List<Booking> bookings = bookingService.findByClientEmail("client@email.com");
+        List<BookingDto> bookings = bookingService.findByClientEmail("client@email.com");
 
         assertThat(bookings).hasSize(1);
-        assertThat(bookings.get(0).getClient().getEmail()).isEqualTo("client@email.com");
-        verify(bookingRepository, times(1)).findByClientEmail("client@email.com");
+        assertThat(bookings.get(0).getClientEmail()).isEqualTo("client@email.com");
+        verify(bookingRepository, times(1)).findDtosByClientEmail("client@email.com");
     }
 
     @Test
     void testCreateBooking() {
         given(clientRepository.findByEmail("client@email.com")).willReturn(Optional.of(client));
-        given(roomRepository.findById("101")).willReturn(Optional.of(room));
+        given(roomCache.findById("101")).willReturn(Optional.of(room));
         given(bookingRepository.save(booking)).willReturn(booking);
         given(occupiesRepository.save(any(Occupies.class))).willReturn(new Occupies(new OccupiesId("client@email.com", booking.getId().getStartDate(), booking.getId().getRoomNr()), client, booking));
 
@@ -103,15 +152,34 @@ class BookingServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(booking.getId());
         verify(clientRepository, times(1)).findByEmail("client@email.com");
-        verify(roomRepository, times(1)).findById("101");
+        verify(roomCache, times(1)).findById("101");
         verify(bookingRepository, times(1)).save(booking);
         verify(occupiesRepository, times(1)).save(any());
+        verify(availabilityIndex, times(1)).reserve(booking);
+        verify(occupancyAnalytics, times(1)).record(booking);
+        verify(bookingIntervalIndex, times(1)).reserve("101", booking.getId().getStartDate(), booking.getEndDate());
+        verify(replicaRouter, times(1)).recordWrite("client@email.com");
+    }
+
+    @Test
+    void testCreateBooking_Overlapping() {
+        given(clientRepository.findByEmail("client@email.com")).willReturn(Optional.of(client));
+        given(roomCache.findById("101")).willReturn(Optional.of(room));
+        doThrow(new BookingConflictException("Room 101 is already booked"))
+                .when(bookingIntervalIndex).reserve("101", booking.getId().getStartDate(), booking.getEndDate());
+
+        assertThrows(BookingConflictException.class, () ->
+                bookingService.createBooking(booking, "client@email.com", "101"));
+
+        verify(bookingRepository, never()).save(any());
+        verify(occupiesRepository, never()).save(any());
+        verify(availabilityIndex, never()).reserve(any(Booking.class));
     }
 
     @Test
     void testCreateBookingAdmin() {
         BookingDto bookingDto = new BookingDto(200L, LocalDate.now(), LocalDate.now().plusDays(3), "101", "client@email.com", room);
-        given(roomRepository.findById("101")).willReturn(Optional.of(room));
+        given(roomCache.findById("101")).willReturn(Optional.of(room));
         given(clientRepository.findById("client@email.com")).willReturn(Optional.of(client));
         given(pricingService.calculatePrice("101", LocalDate.now(), LocalDate.now().plusDays(3))).willReturn(200L);
         given(bookingRepository.save(any(Booking.class))).willReturn(booking);
@@ -120,12 +188,82 @@ class BookingServiceTest {
 
         assertThat(result).isNotNull();
         assertThat(result.getPrice()).isEqualTo(200L);
-        verify(roomRepository, times(1)).findById("101");
+        verify(roomCache, times(1)).findById("101");
         verify(clientRepository, times(1)).findById("client@email.com");
         verify(pricingService, times(1)).calculatePrice("101", LocalDate.now(), LocalDate.now().plusDays(3));
         verify(bookingRepository, times(1)).save(any());
     }
 
+    @Test
+    void testCreateGroupBookingAdmin() {
+        Room room102 = new Room("102", 1, 2, true, 120L, "Single", true, true, true, true, true, "Pool Access", 4.5, "Family");
+        LocalDate startDate = LocalDate.now();
+        LocalDate endDate = startDate.plusDays(3);
+        GroupBookingRequest request = new GroupBookingRequest(List.of("101", "102"), startDate, endDate, "client@email.com");
+        given(clientRepository.findByEmail("client@email.com")).willReturn(Optional.of(client));
+        given(roomCache.findById("101")).willReturn(Optional.of(room));
+        given(roomCache.findById("102")).willReturn(Optional.of(room102));
+        given(pricingService.calculatePrices(List.of(room, room102), startDate, endDate)).willReturn(new long[]{300L, 360L});
+
+        List<Booking> result = bookingService.createGroupBookingAdmin(request);
+
+        assertThat(result).extracting(Booking::getPrice).containsExactly(300L, 360L);
+        assertThat(result).extracting(b -> b.getId().getRoomNr()).containsExactly("101", "102");
+        verify(bookingIntervalIndex, times(1)).reserve("101", startDate, endDate);
+        verify(bookingIntervalIndex, times(1)).reserve("102", startDate, endDate);
+        // one insert per Booking and Occupies row, without a select before each of them
+        verify(entityManager, times(2)).persist(any(Booking.class));
+        verify(entityManager, times(2)).persist(any(Occupies.class));
+        verify(bookingRepository, never()).save(any());
+        verify(availabilityIndex, times(2)).reserve(any(Booking.class));
+        verify(occupancyAnalytics, times(2)).record(any(Booking.class));
+        verify(replicaRouter, times(1)).recordWrite("client@email.com");
+    }
+
+    @Test
+    void testCreateGroupBooking_OneRoomTaken_BooksNone() {
+        Room room102 = new Room("102", 1, 2, true, 120L, "Single", true, true, true, true, true, "Pool Access", 4.5, "Family");
+        LocalDate startDate = LocalDate.now();
+        LocalDate endDate = startDate.plusDays(3);
+        given(clientRepository.findByEmail("client@email.com")).willReturn(Optional.of(client));
+        given(roomCache.findById("101")).willReturn(Optional.of(room));
+        given(roomCache.findById("102")).willReturn(Optional.of(room102));
+        doThrow(new BookingConflictException("Room 102 is already booked"))
+                .when(bookingIntervalIndex).reserve("102", startDate, endDate);
+
+        assertThrows(BookingConflictException.class, () -> bookingService.createGroupBooking(
+                "client@email.com", List.of("101", "102"), startDate, endDate, new long[]{300L, 360L}));
+
+        verify(entityManager, never()).persist(any());
+        verify(availabilityIndex, never()).reserve(any(Booking.class));
+        verify(pricingService, never()).calculatePrices(anyList(), any(), any());
+    }
+
+    @Test
+    void testCreateGroupBooking_SameRoomTwice() {
+        assertThrows(IllegalArgumentException.class, () -> bookingService.createGroupBooking(
+                "client@email.com", List.of("101", "101"), LocalDate.now(), LocalDate.now().plusDays(3), null));
+
+        verify(bookingIntervalIndex, never()).reserve(any(), any(), any());
+    }
+
+    @Test
+    void testCreateBookingAdmin_StayTooLong() {
+        LocalDate startDate = LocalDate.now();
+        BookingDto bookingDto = new BookingDto(200L, startDate, startDate.plusDays(Booking.MAX_STAY_NIGHTS + 1),
+                "101", "client@email.com", room);
+
+        assertThrows(IllegalArgumentException.class, () -> bookingService.createBookingAdmin(bookingDto));
+        assertThrows(IllegalArgumentException.class, () -> bookingService.validateStay(startDate, startDate));
+        bookingService.validateStay(startDate, startDate.plusDays(Booking.MAX_STAY_NIGHTS));
+        LocalDate beyondPartitions = startDate.withDayOfMonth(1).plusMonths(26);
+        assertThrows(IllegalArgumentException.class, () ->
+                bookingService.validateStay(beyondPartitions, beyondPartitions.plusDays(1)));
+
+        verify(bookingIntervalIndex, never()).reserve(any(), any(), any());
+        verify(bookingRepository, never()).save(any());
+    }
+
     @Test
     void testUpdateBooking() {
         BookingDto bookingDto = new BookingDto(200L, LocalDate.now(), LocalDate.now().plusDays(4), "101", "client@email.com", room);
@@ -140,6 +278,7 @@ class BookingServiceTest {
         assertThat(result.getPrice()).isEqualTo(250L);
         verify(bookingRepository, times(1)).findById(booking.getId());
         verify(pricingService, times(1)).calculatePrice("101", LocalDate.now(), LocalDate.now().plusDays(4));
+        verify(bookingIntervalIndex, times(1)).resize("101", LocalDate.now(), LocalDate.now().plusDays(4));
         verify(bookingRepository, times(1)).save(booking);
     }
 
@@ -167,28 +306,81 @@ class BookingServiceTest {
         verify(occupiesRepository, times(1)).findById(any());
         verify(occupiesRepository, times(1)).delete(occupies);
         verify(bookingRepository, times(1)).delete(booking);
+        verify(availabilityIndex, times(1)).release(booking);
+        verify(occupancyAnalytics, times(1)).retract(booking);
     }
 
 
     @Test
     void testDeleteBookingAdmin() {
-        given(bookingRepository.existsById(booking.getId())).willReturn(true);
+        given(bookingRepository.findById(booking.getId())).willReturn(Optional.of(booking));
 
         boolean result = bookingService.deleteBookingAdmin(booking.getId());
 
         assertThat(result).isTrue();
-        verify(bookingRepository, times(1)).existsById(booking.getId());
-        verify(bookingRepository, times(1)).deleteById(booking.getId());
+        verify(bookingRepository, times(1)).findById(booking.getId());
+        verify(bookingRepository, times(1)).delete(booking);
+        verify(availabilityIndex, times(1)).release(booking);
+        verify(occupancyAnalytics, times(1)).retract(booking);
+        verify(replicaRouter, times(1)).recordWrite("client@email.com");
     }
 
     @Test
     void testDeleteBookingAdmin_BookingNotFound() {
-        given(bookingRepository.existsById(booking.getId())).willReturn(false);
+        given(bookingRepository.findById(booking.getId())).willReturn(Optional.empty());
 
         boolean result = bookingService.deleteBookingAdmin(booking.getId());
 
         assertThat(result).isFalse();
-        verify(bookingRepository, times(1)).existsById(booking.getId());
-        verify(bookingRepository, never()).deleteById(any());
+        verify(bookingRepository, times(1)).findById(booking.getId());
+        verify(bookingRepository, never()).delete(any());
+        verify(availabilityIndex, never()).release(any(Booking.class));
+    }
+
+    @Test
+    void testFindConflicts_MissingDate_Rejected() {
+        List<BookingConflictDto> requests = List.of(new BookingConflictDto("101", LocalDate.now(), null, null));
+
+        assertThrows(IllegalArgumentException.class, () -> bookingService.findConflicts(requests));
+        verifyNoInteractions(bookingIntervalIndex);
+    }
+
+    @Test
+    void testFindConflicts_ArchivedMonth_Rejected() {
+        LocalDate start = LocalDate.now().withDayOfMonth(1).minusMonths(13);
+        List<BookingConflictDto> requests = List.of(new BookingConflictDto("101", start, start.plusDays(3), null));
+
+        assertThrows(IllegalArgumentException.class, () -> bookingService.findConflicts(requests));
+        verify(bookingRepository, never()).findSpansOverlapping(anyString(), any(), any());
+    }
+
+    @Test
+    void testFindConflicts_PastRange_ReadFromDatabase() {
+        LocalDate start = LocalDate.now().minusDays(10);
+        BookingSpan span = mock(BookingSpan.class);
+        given(span.getStartDate()).willReturn(start.plusDays(1));
+        given(span.getEndDate()).willReturn(start.plusDays(4));
+        given(bookingRepository.findSpansOverlapping("101", start, start.plusDays(5))).willReturn(List.of(span));
+
+        List<BookingConflictDto> result = bookingService.findConflicts(
+                List.of(new BookingConflictDto("101", start, start.plusDays(5), null)));
+
+        assertThat(result.get(0).getConflicts()).usingRecursiveFieldByFieldElementComparator()
+                .containsExactly(new DateRange(start.plusDays(1), start.plusDays(4)));
+        verifyNoInteractions(bookingIntervalIndex);
+    }
+
+    @Test
+    void testFindConflicts_FutureRange_ReadFromIndex() {
+        LocalDate start = LocalDate.now().plusDays(10);
+        given(bookingIntervalIndex.findConflicts(eq("101"), any(DateRange.class)))
+                .willReturn(List.of(new DateRange(start, start.plusDays(2))));
+
+        List<BookingConflictDto> result = bookingService.findConflicts(
+                List.of(new BookingConflictDto("101", start, start.plusDays(5), null)));
+
+        assertThat(result.get(0).getConflicts()).usingRecursiveFieldByFieldElementComparator()
+                .containsExactly(new DateRange(start, start.plusDays(2)));
+        verify(bookingRepository, never()).findSpansOverlapping(anyString(), any(), any());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,315 @@
+package com.jeff.hotel_management_system.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jeff.hotel_management_system.dto.ImportResultDto;
+import com.jeff.hotel_management_system.entity.Room;
+import com.jeff.hotel_management_system.exception.ImportRejectedException;
+import com.jeff.hotel_management_system.repository.BookingRepository;
+import com.jeff.hotel_management_system.repository.ClientRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.jdbc.ReturningWork;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.*;
+
+class BulkImportServiceTest {
+
+    @Mock
+    private ClientRepository clientRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    // validates stays for real
+    @Spy
+    private BookingService bookingService = new BookingService();
+
+    @Mock
+    private RoomCache roomCache;
+
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @Mock
+    private OccupancyAnalytics occupancyAnalytics;
+
+    @Mock
+    private NightlyRateTable nightlyRateTable;
+
+    @Mock
+    private PricingRuleEngine pricingRuleEngine;
+
+    @Mock
+    private RoomEmbeddingIndex roomEmbeddingIndex;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PGConnection pgConnection;
+
+    @Mock
+    private CopyManager copyManager;
+
+    @Mock
+    private CopyIn copyIn;
+
+    @Mock
+    private Statement statement;
+
+    // stored stays the staged ones overlap, none unless a test says so
+    @Mock
+    private ResultSet overlaps;
+
+    @InjectMocks
+    private BulkImportService bulkImportService;
+
+    // everything written to COPY
+    private final ByteArrayOutputStream copied = new ByteArrayOutputStream();
+
+    private final Room room101 = room("101");
+
+    private final Room room102 = room("102");
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(bulkImportService, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(bulkImportService, "importYearsBack", 10);
+        ReflectionTestUtils.setField(bookingService, "partitionMonthsAhead", 25);
+
+        given(entityManager.unwrap(Session.class)).willReturn(session);
+        given(session.doReturningWork(any())).willAnswer(invocation ->
+                invocation.<ReturningWork<?>>getArgument(0).execute(connection));
+        given(connection.createStatement()).willReturn(statement);
+        given(statement.executeQuery(anyString())).willReturn(overlaps);
+        given(connection.unwrap(PGConnection.class)).willReturn(pgConnection);
+        given(pgConnection.getCopyAPI()).willReturn(copyManager);
+        given(copyManager.copyIn(anyString())).willReturn(copyIn);
+        willAnswer(invocation -> {
+            copied.write(invocation.<byte[]>getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).given(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+
+        given(clientRepository.findAllEmails()).willReturn(List.of("client@email.com"));
+        given(bookingRepository.findArchivedMonths()).willReturn(List.of("2023-01"));
+        given(roomCache.findById(anyString())).willReturn(Optional.empty());
+        given(roomCache.findById("101")).willReturn(Optional.of(room101));
+        given(roomCache.findById("102")).willReturn(Optional.of(room102));
+    }
+
+    @Test
+    void testImportBookings_Csv_CopiesAndMerges() throws Exception {
+        given(nightlyRateTable.quote("102", LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 3))).willReturn(OptionalLong.of(90));
+
+        ImportResultDto result = bulkImportService.importBookings(input("""
+                roomNr,clientEmail,startDate,endDate,price
+                101,client@email.com,2024-03-01,2024-03-04,300
+
+                102,client@email.com,2024-03-02,2024-03-03,
+                101,client@email.com,2024-03-04,2024-03-06,200
+                """), BulkImportService.Format.CSV);
+
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getRejected()).isZero();
+        assertThat(copied.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                2024-03-01,"101",300,"client@email.com",2024-03-04,2
+                2024-03-02,"102",90,"client@email.com",2024-03-03,4
+                2024-03-04,"101",200,"client@email.com",2024-03-06,5
+                """);
+        verify(copyIn, times(1)).endCopy();
+        verify(statement, times(1)).execute(startsWith("INSERT INTO booking "));
+        verify(statement, times(1)).execute(startsWith("INSERT INTO occupies "));
+        verify(bookingIntervalIndex, times(1)).load();
+        verify(availabilityIndex, times(1)).rebuild();
+        verify(occupancyAnalytics, times(1)).rebuild();
+        verify(redisTemplate, times(1)).convertAndSend(BulkImportService.BOOKINGS_IMPORTED_CHANNEL, BookingIntervalIndex.NODE_ID);
+    }
+
+    @Test
+    void testImportBookings_OutsideRateTable_PricedByRules() throws Exception {
+        given(pricingRuleEngine.price("Single", 100L, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 4))).willReturn(330L);
+
+        bulkImportService.importBookings(input("""
+                roomNr,clientEmail,startDate,endDate
+                101,client@email.com,2024-03-01,2024-03-04
+                """), BulkImportService.Format.CSV);
+
+        assertThat(copied.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                2024-03-01,"101",330,"client@email.com",2024-03-04,2
+                """);
+    }
+
+    @Test
+    void testImportBookings_OverlapsStoredHistory_NothingImported() throws Exception {
+        // long finished, so not in BookingIntervalIndex
+        given(overlaps.next()).willReturn(true, false);
+        given(overlaps.getInt("line_nr")).willReturn(3);
+        given(overlaps.getString("room_nr")).willReturn("102");
+        given(overlaps.getObject("start_date", LocalDate.class)).willReturn(LocalDate.of(2019, 12, 30));
+        given(overlaps.getObject("end_date", LocalDate.class)).willReturn(LocalDate.of(2020, 1, 2));
+
+        assertThatThrownBy(() -> bulkImportService.importBookings(input("""
+                roomNr,clientEmail,startDate,endDate,price
+                101,client@email.com,2020-01-01,2020-01-03,200
+                102,client@email.com,2020-01-01,2020-01-03,200
+                """), BulkImportService.Format.CSV))
+                .isInstanceOfSatisfying(ImportRejectedException.class, e -> {
+                    assertThat(e.getResult().getRejected()).isEqualTo(1);
+                    assertThat(e.getResult().getErrors()).containsExactly(
+                            "line 3: Room 102 is already booked between 2019-12-30 and 2020-01-02");
+                });
+
+        verify(statement, never()).execute(startsWith("INSERT"));
+        verify(bookingIntervalIndex, never()).load();
+    }
+
+    @Test
+    void testImportBookings_ConcurrentOverlap_Rejected() throws Exception {
+        given(statement.execute(startsWith("INSERT INTO booking "))).willThrow(
+                new SQLException("ERROR: booking_no_overlap: room 101 is already booked"));
+
+        assertThatThrownBy(() -> bulkImportService.importBookings(input("""
+                roomNr,clientEmail,startDate,endDate,price
+                101,client@email.com,2024-03-01,2024-03-03,200
+                """), BulkImportService.Format.CSV))
+                .isInstanceOf(ImportRejectedException.class);
+    }
+
+    @Test
+    void testOnBookingsImported_ReloadsOnOtherNodesOnly() {
+        bulkImportService.onBookingsImported(BookingIntervalIndex.NODE_ID);
+        verify(bookingIntervalIndex, never()).load();
+
+        bulkImportService.onBookingsImported("other-node");
+        verify(bookingIntervalIndex, times(1)).load();
+        verify(availabilityIndex, times(1)).rebuild();
+        verify(occupancyAnalytics, times(1)).rebuild();
+    }
+
+    @Test
+    void testImportBookings_InvalidRows_NothingImported() throws Exception {
+        given(bookingIntervalIndex.hasConflict(eq("102"), eq(LocalDate.of(2024, 4, 1)), any())).willReturn(true);
+
+        assertThatThrownBy(() -> bulkImportService.importBookings(input("""
+                roomNr,clientEmail,startDate,endDate
+                101,client@email.com,2024-03-01,2024-03-04
+                101,client@email.com,2024-03-03,2024-03-05
+                102,other@email.com,2024-03-01,2024-03-02
+                102,client@email.com,2023-01-10,2023-01-12
+                102,client@email.com,2024-04-01,2024-04-02
+                999,client@email.com,2024-03-01,2024-03-02
+                102,client@email.com,2024-03-05,2024-03-01
+                102,client@email.com
+                102,client@email.com,2205-03-01,2205-03-02
+                102,client@email.com,1900-03-01,1900-03-02
+                """), BulkImportService.Format.CSV))
+                .isInstanceOfSatisfying(ImportRejectedException.class, e -> {
+                    assertThat(e.getResult().getImported()).isZero();
+                    assertThat(e.getResult().getRejected()).isEqualTo(9);
+                    assertThat(e.getResult().getErrors()).extracting(error -> error.substring(0, error.indexOf(':')))
+                            .containsExactly("line 3", "line 4", "line 5", "line 6", "line 7", "line 8", "line 9",
+                                    "line 10", "line 11");
+                    assertThat(e.getResult().getErrors().get(0)).contains("booked twice");
+                    assertThat(e.getResult().getErrors().get(3)).contains("already booked");
+                    assertThat(e.getResult().getErrors().get(7)).contains("Bookings can only start before");
+                    assertThat(e.getResult().getErrors().get(8)).contains("Bookings can only start on or after");
+                });
+
+        verify(copyIn, times(1)).cancelCopy();
+        verify(copyIn, never()).endCopy();
+        verify(statement, never()).execute(startsWith("INSERT"));
+        verify(availabilityIndex, never()).rebuild();
+    }
+
+    @Test
+    void testImportRooms_Ndjson_QuotesText() throws Exception {
+        ImportResultDto result = bulkImportService.importRooms(input("""
+                {"roomNr":"301","floor":3,"maxOccupancy":2,"available":true,"basePrice":150,"roomType":"Double","hasSeaView":true,"hasBalcony":false,"hasWifi":true,"hasAirConditioning":true,"petFriendly":false,"amenities":"Gym, \\"Spa\\"","rating":4.5,"preferredFor":null}
+                """), BulkImportService.Format.NDJSON);
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(copied.toString(StandardCharsets.UTF_8))
+                .isEqualTo("\"301\",3,2,true,150,\"Double\",true,false,true,true,false,\"Gym, \"\"Spa\"\"\",4.5,\n");
+        verify(statement, times(1)).execute(startsWith("INSERT INTO room "));
+        verify(roomCache, times(1)).invalidateAll();
+        verify(nightlyRateTable, times(1)).rebuild();
+    }
+
+    @Test
+    void testImportRooms_DuplicateAndInvalidRows() {
+        assertThatThrownBy(() -> bulkImportService.importRooms(input("""
+                roomNr,floor,maxOccupancy,basePrice,roomType,amenities
+                301,3,2,150,Double,Gym
+                301,3,2,150,Double,Gym
+                302,three,2,150,Double,Gym
+                303,3,0,150,Double,Gym
+                """), BulkImportService.Format.CSV))
+                .isInstanceOfSatisfying(ImportRejectedException.class, e ->
+                        assertThat(e.getResult().getRejected()).isEqualTo(3));
+
+        verify(roomCache, never()).invalidateAll();
+    }
+
+    @Test
+    void testParseCsv_QuotedValues() {
+        assertThat(BulkImportService.parseCsv("101,\"Pool, Gym\",\"say \"\"hi\"\"\",")).containsExactly(
+                "101", "Pool, Gym", "say \"hi\"", "");
+        assertThatThrownBy(() -> BulkImportService.parseCsv("101,\"open"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private InputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Room room(String roomNr) {
+        return new Room(roomNr, 1, 2, true, 100L, "Single", false, false, true, true, false,
+                "Gym Access", 4.0, "Business");
+    }
+}
@@ -0,0 +1,103 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.entity.Room;
+import com.jeff.hotel_management_system.repository.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+
+class NightlyRateTableTest {
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Mock
+    private PricingRuleEngine pricingRuleEngine;
+
+    @InjectMocks
+    private NightlyRateTable nightlyRateTable;
+
+    private final LocalDate today = LocalDate.now();
+
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(nightlyRateTable, "horizonDays", 30);
+        room = new Room("101", 1, 2, true, 100L, "Single", true, true, true, true, true, "Pool Access", 4.5, "Family");
+        given(roomRepository.findAll()).willReturn(Arrays.asList(room));
+        given(pricingRuleEngine.nightlyMultiplier(anyString(), anyLong())).willReturn(1.0);
+        given(pricingRuleEngine.stayMultiplier(anyString(), anyLong())).willReturn(1.0);
+        nightlyRateTable.rebuild();
+    }
+
+    @Test
+    void testQuote_InsideHorizon() {
+        assertThat(nightlyRateTable.quote("101", today, today.plusDays(4))).isEqualTo(OptionalLong.of(400L));
+        assertThat(nightlyRateTable.quote("101", today.plusDays(26), today.plusDays(30))).isEqualTo(OptionalLong.of(400L));
+    }
+
+    @Test
+    void testQuote_OutsideHorizonOrUnknownRoom() {
+        assertThat(nightlyRateTable.quote("101", today.minusDays(1), today.plusDays(2))).isEmpty();
+        assertThat(nightlyRateTable.quote("101", today.plusDays(28), today.plusDays(31))).isEmpty();
+        assertThat(nightlyRateTable.quote("101", today.plusDays(3), today.plusDays(3))).isEmpty();
+        assertThat(nightlyRateTable.quote("999", today, today.plusDays(2))).isEmpty();
+    }
+
+    @Test
+    void testRefresh_AfterBasePriceChange() {
+        room.setBasePrice(150L);
+        nightlyRateTable.refresh(room);
+
+        assertThat(nightlyRateTable.quote("101", today, today.plusDays(2))).isEqualTo(OptionalLong.of(300L));
+
+        nightlyRateTable.remove("101");
+        assertThat(nightlyRateTable.quote("101", today, today.plusDays(2))).isEmpty();
+    }
+
+    @Test
+    void testRefresh_DuringRebuild_IsNotLost() throws Exception {
+        Room updated = new Room("101", 1, 2, true, 150L, "Single", true, true, true, true, true, "Pool Access", 4.5, "Family");
+        Thread[] refresher = new Thread[1];
+        given(roomRepository.findAll()).willAnswer(invocation -> {
+            // a room change committing while the rebuild reads the rooms as they were before it
+            refresher[0] = Thread.ofPlatform().start(() -> nightlyRateTable.refresh(updated));
+            while (refresher[0].getState() != Thread.State.WAITING && refresher[0].getState() != Thread.State.TERMINATED) {
+                Thread.onSpinWait();
+            }
+            return Arrays.asList(room);
+        });
+
+        nightlyRateTable.rebuild();
+        refresher[0].join();
+
+        assertThat(nightlyRateTable.quote("101", today, today.plusDays(2))).isEqualTo(OptionalLong.of(300L));
+    }
+
+    @Test
+    void testQuote_AppliesCompiledMultipliers() {
+        long weekendDay = today.plusDays(2).toEpochDay();
+        given(pricingRuleEngine.nightlyMultiplier("Single", weekendDay)).willReturn(1.5);
+        given(pricingRuleEngine.stayMultiplier(eq("Single"), eq(3L))).willReturn(0.9);
+        nightlyRateTable.rebuild();
+
+        // (100 + 100 + 150) * 0.9
+        assertThat(nightlyRateTable.quote("101", today, today.plusDays(3))).isEqualTo(OptionalLong.of(315L));
+        assertThat(nightlyRateTable.quote("101", today, today.plusDays(2))).isEqualTo(OptionalLong.of(200L));
+    }
+}
@@ -0,0 +1,244 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.dto.BookingRevenueSpan;
+import com.jeff.hotel_management_system.dto.OccupancyReportDto;
+import com.jeff.hotel_management_system.dto.OccupancySeriesDto;
+import com.jeff.hotel_management_system.entity.Room;
+import com.jeff.hotel_management_system.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class OccupancyAnalyticsTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private RoomCache roomCache;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @InjectMocks
+    private OccupancyAnalytics occupancyAnalytics;
+
+    private final LocalDate jan1 = LocalDate.of(2024, 1, 1);
+
+    private final Room single101 = room("101", 1, "Single");
+
+    private final Room single201 = room("201", 2, "Single");
+
+    private final Room suite202 = room("202", 2, "Suite");
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(occupancyAnalytics, "maxReportDays", 3660);
+        given(roomCache.findAll()).willReturn(List.of(single101, single201, suite202));
+        given(roomCache.findById("101")).willReturn(Optional.of(single101));
+        given(roomCache.findById("202")).willReturn(Optional.of(suite202));
+    }
+
+    @Test
+    void testReport_DailyTotals_SplitsPriceOverNights() {
+        rebuild(List.of(span("101", jan1, jan1.plusDays(3), 100L)),
+                List.of(span("202", jan1.plusDays(1), jan1.plusDays(2), 50L)));
+
+        OccupancySeriesDto all = only(occupancyAnalytics.report(jan1, jan1.plusDays(4), "all", "day"));
+
+        assertThat(all.getKey()).isEqualTo("all");
+        assertThat(all.getRooms()).isEqualTo(3);
+        assertThat(all.getRoomNights()).isEqualTo(4);
+        assertThat(all.getRevenue()).isEqualTo(150);
+        assertThat(all.getOccupancy()).isEqualTo(4.0 / 12);
+        assertThat(all.getPoints()).extracting("roomNights").containsExactly(1L, 2L, 1L, 0L);
+        // 100 over three nights, the first night takes the remainder
+        assertThat(all.getPoints()).extracting("revenue").containsExactly(34L, 83L, 33L, 0L);
+    }
+
+    @Test
+    void testReport_MonthlyPerRoomType() {
+        rebuild(List.of(), List.of(
+                span("101", jan1.plusDays(30), jan1.plusDays(32), 200L),
+                span("201", jan1.plusDays(40), jan1.plusDays(41), 70L)));
+
+        OccupancyReportDto report = occupancyAnalytics.report(jan1, jan1.plusDays(60), "roomType", "month");
+
+        assertThat(report.getSeries()).extracting("key").containsExactly("Single", "Suite");
+        OccupancySeriesDto single = report.getSeries().get(0);
+        assertThat(single.getRooms()).isEqualTo(2);
+        assertThat(single.getPoints()).extracting("date").containsExactly(jan1, LocalDate.of(2024, 2, 1));
+        assertThat(single.getPoints()).extracting("roomNights").containsExactly(1L, 2L);
+        assertThat(single.getPoints()).extracting("revenue").containsExactly(100L, 170L);
+        // February has 29 days in the range, two Single rooms
+        assertThat(single.getPoints().get(1).getOccupancy()).isEqualTo(2.0 / 58);
+        assertThat(report.getSeries().get(1).getRoomNights()).isZero();
+    }
+
+    @Test
+    void testReport_PerFloor_NumericOrder() {
+        Room room10 = room("1001", 10, "Single");
+        given(roomCache.findAll()).willReturn(List.of(single101, single201, room10));
+        rebuild(List.of(), List.of(span("1001", jan1, jan1.plusDays(1), 10L)));
+
+        OccupancyReportDto report = occupancyAnalytics.report(jan1, jan1.plusDays(1), "floor", "day");
+
+        assertThat(report.getSeries()).extracting("key").containsExactly("1", "2", "10");
+        assertThat(report.getSeries().get(2).getRevenue()).isEqualTo(10);
+    }
+
+    @Test
+    void testRecordAndRetract_Incremental() {
+        rebuild(List.of(), List.of(span("101", jan1, jan1.plusDays(2), 20L)));
+
+        // before the columns start, so they grow backwards
+        occupancyAnalytics.record("202", jan1.minusDays(400), jan1.minusDays(398), 40L);
+        occupancyAnalytics.record("202", jan1.plusDays(1), jan1.plusDays(3), 60L);
+        occupancyAnalytics.retract("101", jan1, jan1.plusDays(2), 20L);
+
+        OccupancySeriesDto all = only(occupancyAnalytics.report(jan1.minusDays(400), jan1.plusDays(3), "all", "day"));
+        assertThat(all.getRoomNights()).isEqualTo(4);
+        assertThat(all.getRevenue()).isEqualTo(100);
+
+        OccupancyReportDto byType = occupancyAnalytics.report(jan1, jan1.plusDays(3), "roomType", "day");
+        assertThat(byType.getSeries().get(0).getRoomNights()).isZero();
+        assertThat(byType.getSeries().get(1).getPoints()).extracting("revenue").containsExactly(0L, 30L, 30L);
+    }
+
+    @Test
+    void testRecord_AlreadyInSnapshot_NotCountedTwice() {
+        // committed while the rebuild ran, so the snapshot already holds it when the increment arrives
+        rebuild(List.of(), List.of(span("101", jan1, jan1.plusDays(2), 20L)));
+
+        occupancyAnalytics.record("101", jan1, jan1.plusDays(2), 20L);
+        // deleted before the snapshot was read
+        occupancyAnalytics.retract("202", jan1, jan1.plusDays(1), 10L);
+
+        OccupancySeriesDto all = only(occupancyAnalytics.report(jan1, jan1.plusDays(2), "all", "day"));
+        assertThat(all.getRoomNights()).isEqualTo(2);
+        assertThat(all.getRevenue()).isEqualTo(20);
+        verify(redisTemplate, times(1)).convertAndSend(OccupancyAnalytics.CHANGE_CHANNEL,
+                "RECORDED|101|2024-01-01|2024-01-03|20|" + BookingIntervalIndex.NODE_ID);
+    }
+
+    @Test
+    void testOnChangeEvent_AppliesOtherNodesOnly() {
+        rebuild(List.of(), List.of());
+
+        occupancyAnalytics.onChangeEvent("RECORDED|202|2024-01-01|2024-01-03|60|other-node");
+        occupancyAnalytics.onChangeEvent("RECORDED|101|2024-01-01|2024-01-03|40|" + BookingIntervalIndex.NODE_ID);
+        occupancyAnalytics.onChangeEvent("RECORDED|202|2024-01-01|2024-01-03|60|other-node");
+
+        OccupancySeriesDto all = only(occupancyAnalytics.report(jan1, jan1.plusDays(2), "all", "day"));
+        assertThat(all.getRoomNights()).isEqualTo(2);
+        assertThat(all.getRevenue()).isEqualTo(60);
+
+        occupancyAnalytics.onChangeEvent("RETRACTED|202|2024-01-01|2024-01-03|60|other-node");
+        assertThat(only(occupancyAnalytics.report(jan1, jan1.plusDays(2), "all", "day")).getRoomNights()).isZero();
+    }
+
+    @Test
+    void testReport_InvalidArguments() {
+        assertThatThrownBy(() -> occupancyAnalytics.report(jan1, jan1, "all", "day"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> occupancyAnalytics.report(jan1, jan1.plusDays(3661), "all", "day"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> occupancyAnalytics.report(jan1, jan1.plusDays(1), "client", "day"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> occupancyAnalytics.report(jan1, jan1.plusDays(1), "all", "week"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void rebuild(List<BookingRevenueSpan> archived, List<BookingRevenueSpan> live) {
+        given(bookingRepository.streamArchivedRevenueSpans()).willReturn(archived.stream());
+        given(bookingRepository.streamRevenueSpans()).willReturn(live.stream());
+        occupancyAnalytics.rebuild();
+    }
+
+    private OccupancySeriesDto only(OccupancyReportDto report) {
+        assertThat(report.getSeries()).hasSize(1);
+        return report.getSeries().get(0);
+    }
+
+    private Room room(String roomNr, int floor, String roomType) {
+        return new Room(roomNr, floor, 2, true, 100L, roomType, false, false, true, true, false,
+                "Gym Access", 4.0, "Business");
+    }
+
+    private BookingRevenueSpan span(String roomNr, LocalDate startDate, LocalDate endDate, Long price) {
+        return new BookingRevenueSpan() {
+            @Override
+            public String getRoomNr() {
+                return roomNr;
+            }
+
+            @Override
+            public LocalDate getStartDate() {
+                return startDate;
+            }
+
+            @Override
+            public LocalDate getEndDate() {
+                return endDate;
+            }
+
+            @Override
+            public Long getPrice() {
+                return price;
+            }
+        };
+    }
+
+    @Test
+    void testLongSet_MatchesHashSet() {
+        OccupancyAnalytics.LongSet set = new OccupancyAnalytics.LongSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(42);
+
+        // a small key range, so adds and removes keep hitting the same probe runs
+        for (int i = 0; i < 100_000; i++) {
+            long key = 1 + random.nextInt(2_000);
+            if (random.nextBoolean()) {
+                assertThat(set.add(key)).isEqualTo(expected.add(key));
+            } else {
+                assertThat(set.remove(key)).isEqualTo(expected.remove(key));
+            }
+        }
+
+        assertThat(set.size()).isEqualTo(expected.size());
+        for (long key = 1; key <= 2_000; key++) {
+            assertThat(set.contains(key)).isEqualTo(expected.contains(key));
+        }
+    }
+
+    @Test
+    void testKey_DistinguishesBookings() {
+        LocalDate day = LocalDate.of(2025, 1, 1);
+        long key = OccupancyAnalytics.key("101", day, day.plusDays(2), 200L);
+
+        assertThat(OccupancyAnalytics.key("101", day, day.plusDays(2), 200L)).isEqualTo(key);
+        assertThat(OccupancyAnalytics.key("102", day, day.plusDays(2), 200L)).isNotEqualTo(key);
+        assertThat(OccupancyAnalytics.key("101", day.plusDays(1), day.plusDays(2), 200L)).isNotEqualTo(key);
+        assertThat(OccupancyAnalytics.key("101", day, day.plusDays(3), 200L)).isNotEqualTo(key);
+        assertThat(OccupancyAnalytics.key("101", day, day.plusDays(2), 201L)).isNotEqualTo(key);
+    }
+}
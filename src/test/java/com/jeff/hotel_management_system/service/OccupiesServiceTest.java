@@ -1,5 +1,6 @@
 package com.jeff.hotel_management_system.service;
 
+import com.jeff.hotel_management_system.dto.OccupiesDto;
 import com.jeff.hotel_management_system.entity.*;
 import com.jeff.hotel_management_system.repository.OccupiesRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -45,15 +46,15 @@ class OccupiesServiceTest {
 
     @Test
     void testGetAllOccupies() {
-        Occupies occupies1 = new Occupies(new OccupiesId("client1@email.com", LocalDate.now(), "101"), client, booking);
-        Occupies occupies2 = new Occupies(new OccupiesId("client2@email.com", LocalDate.now(), "102"), client, booking);
+        OccupiesDto occupies1 = new OccupiesDto("client1@email.com", LocalDate.now(), "101");
+        OccupiesDto occupies2 = new OccupiesDto("client2@email.com", LocalDate.now(), "102");
 
-        given(occupiesRepository.findAll()).willReturn(Arrays.asList(occupies1, occupies2));
+        given(occupiesRepository.findAllDtos()).willReturn(Arrays.asList(occupies1, occupies2));
 
-        List<Occupies> occupiesList = occupiesService.getAllOccupies();
+        List<OccupiesDto> occupiesList = occupiesService.getAllOccupies();
 
         assertThat(occupiesList).hasSize(2);
-        verify(occupiesRepository, times(1)).findAll();
+        verify(occupiesRepository, times(1)).findAllDtos();
     }
 
     @Test
@@ -0,0 +1,161 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.entity.PricingRule;
+import com.jeff.hotel_management_system.entity.PricingRuleType;
+import com.jeff.hotel_management_system.repository.PricingRuleRepository;
+import com.jeff.hotel_management_system.repository.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class PricingRuleEngineTest {
+
+    @Mock
+    private PricingRuleRepository pricingRuleRepository;
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @InjectMocks
+    private PricingRuleEngine pricingRuleEngine;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(pricingRuleEngine, "horizonDays", 60);
+    }
+
+    @Test
+    void testNoRules() {
+        given(pricingRuleRepository.findByActiveTrue()).willReturn(Arrays.asList());
+
+        pricingRuleEngine.compile();
+
+        assertThat(pricingRuleEngine.nightlyMultiplier("Single", today.toEpochDay())).isEqualTo(1.0);
+        assertThat(pricingRuleEngine.stayMultiplier("Single", 7)).isEqualTo(1.0);
+        assertThat(pricingRuleEngine.dependsOnOccupancy()).isFalse();
+        verify(availabilityIndex, never()).bookedRoomsPerNight(any(), anyInt());
+    }
+
+    @Test
+    void testSeasonalAndWeekdayRulesMultiply() {
+        LocalDate saturday = today.with(TemporalAdjusters.next(DayOfWeek.SATURDAY));
+        PricingRule season = rule(PricingRuleType.SEASONAL, null, 1.2);
+        season.setStartDate(saturday);
+        season.setEndDate(saturday.plusDays(2));
+        PricingRule weekend = rule(PricingRuleType.WEEKDAY, "Suite", 1.5);
+        weekend.setDaysOfWeek("SATURDAY, sunday");
+        given(pricingRuleRepository.findByActiveTrue()).willReturn(Arrays.asList(season, weekend));
+
+        pricingRuleEngine.compile();
+
+        assertThat(pricingRuleEngine.nightlyMultiplier("Suite", saturday.toEpochDay())).isCloseTo(1.8, within(1e-9));
+        assertThat(pricingRuleEngine.nightlyMultiplier("Single", saturday.toEpochDay())).isCloseTo(1.2, within(1e-9));
+        assertThat(pricingRuleEngine.nightlyMultiplier("Suite", saturday.plusDays(7).toEpochDay())).isEqualTo(1.5);
+        assertThat(pricingRuleEngine.nightlyMultiplier("Single", saturday.plusDays(2).toEpochDay())).isEqualTo(1.0);
+        // outside the horizon, and before it
+        assertThat(pricingRuleEngine.nightlyMultiplier("Suite", saturday.plusWeeks(60).toEpochDay())).isEqualTo(1.5);
+        assertThat(pricingRuleEngine.nightlyMultiplier("Suite", saturday.minusWeeks(1).toEpochDay())).isEqualTo(1.5);
+        assertThat(pricingRuleEngine.nightlyMultiplier("Suite", saturday.plusWeeks(60).plusDays(2).toEpochDay())).isEqualTo(1.0);
+    }
+
+    @Test
+    void testSeasonBeyondHorizon() {
+        // saved for a season that can already be booked, more than a year out
+        LocalDate start = today.plusMonths(20);
+        PricingRule season = rule(PricingRuleType.SEASONAL, null, 1.3);
+        season.setStartDate(start);
+        season.setEndDate(start.plusDays(10));
+        given(pricingRuleRepository.findByActiveTrue()).willReturn(Arrays.asList(season));
+
+        pricingRuleEngine.compile();
+
+        assertThat(pricingRuleEngine.nightlyMultiplier("Single", start.toEpochDay())).isEqualTo(1.3);
+        assertThat(pricingRuleEngine.nightlyMultiplier("Single", start.plusDays(9).toEpochDay())).isEqualTo(1.3);
+        assertThat(pricingRuleEngine.nightlyMultiplier("Single", start.plusDays(10).toEpochDay())).isEqualTo(1.0);
+    }
+
+    @Test
+    void testLengthOfStayHighestTierWins() {
+        PricingRule week = rule(PricingRuleType.LENGTH_OF_STAY, null, 0.9);
+        week.setMinNights(7);
+        PricingRule month = rule(PricingRuleType.LENGTH_OF_STAY, null, 0.75);
+        month.setMinNights(28);
+        given(pricingRuleRepository.findByActiveTrue()).willReturn(Arrays.asList(week, month));
+
+        pricingRuleEngine.compile();
+
+        assertThat(pricingRuleEngine.stayMultiplier("Double", 3)).isEqualTo(1.0);
+        assertThat(pricingRuleEngine.stayMultiplier("Double", 10)).isEqualTo(0.9);
+        assertThat(pricingRuleEngine.stayMultiplier("Double", 30)).isEqualTo(0.75);
+    }
+
+    @Test
+    void testOccupancyTiers() {
+        PricingRule busy = rule(PricingRuleType.OCCUPANCY, null, 1.1);
+        busy.setMinOccupancyRate(0.5);
+        PricingRule full = rule(PricingRuleType.OCCUPANCY, null, 1.3);
+        full.setMinOccupancyRate(0.9);
+        given(pricingRuleRepository.findByActiveTrue()).willReturn(Arrays.asList(busy, full));
+        given(roomRepository.count()).willReturn(10L);
+        int[] booked = new int[60];
+        booked[0] = 9;
+        booked[1] = 5;
+        booked[2] = 4;
+        given(availabilityIndex.bookedRoomsPerNight(today, 60)).willReturn(booked);
+
+        pricingRuleEngine.compile();
+
+        assertThat(pricingRuleEngine.nightlyMultiplier("Single", today.toEpochDay())).isEqualTo(1.3);
+        assertThat(pricingRuleEngine.nightlyMultiplier("Single", today.plusDays(1).toEpochDay())).isEqualTo(1.1);
+        assertThat(pricingRuleEngine.nightlyMultiplier("Single", today.plusDays(2).toEpochDay())).isEqualTo(1.0);
+        assertThat(pricingRuleEngine.dependsOnOccupancy()).isTrue();
+    }
+
+    @Test
+    void testInvalidRulesAreSkipped() {
+        LocalDate friday = today.with(TemporalAdjusters.next(DayOfWeek.FRIDAY));
+        PricingRule typo = rule(PricingRuleType.WEEKDAY, null, 1.5);
+        typo.setDaysOfWeek("FRIDAY,SATUDRAY");
+        PricingRule noType = rule(null, null, 2.0);
+        PricingRule noMultiplier = rule(PricingRuleType.WEEKDAY, null, 0.0);
+        noMultiplier.setDaysOfWeek("FRIDAY");
+        given(pricingRuleRepository.findByActiveTrue()).willReturn(Arrays.asList(typo, noType, noMultiplier));
+
+        pricingRuleEngine.compile();
+
+        assertThat(pricingRuleEngine.nightlyMultiplier("Single", friday.toEpochDay())).isEqualTo(1.5);
+        assertThat(pricingRuleEngine.nightlyMultiplier("Single", friday.plusDays(1).toEpochDay())).isEqualTo(1.0);
+    }
+
+    private PricingRule rule(PricingRuleType type, String roomType, double multiplier) {
+        PricingRule rule = new PricingRule();
+        rule.setName(String.valueOf(type));
+        rule.setRuleType(type);
+        rule.setRoomType(roomType);
+        rule.setMultiplier(multiplier);
+        rule.setActive(true);
+        return rule;
+    }
+}
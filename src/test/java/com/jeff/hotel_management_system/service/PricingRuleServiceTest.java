@@ -0,0 +1,88 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.entity.PricingRule;
+import com.jeff.hotel_management_system.entity.PricingRuleType;
+import com.jeff.hotel_management_system.repository.PricingRuleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+class PricingRuleServiceTest {
+
+    @Mock
+    private PricingRuleRepository pricingRuleRepository;
+
+    @Mock
+    private PricingRuleEngine pricingRuleEngine;
+
+    @Mock
+    private NightlyRateTable nightlyRateTable;
+
+    @InjectMocks
+    private PricingRuleService pricingRuleService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testCreateRule() {
+        PricingRule weekend = rule(PricingRuleType.WEEKDAY, 1.2);
+        weekend.setDaysOfWeek("Friday, SATURDAY");
+        given(pricingRuleRepository.save(weekend)).willReturn(weekend);
+
+        assertThat(pricingRuleService.createRule(weekend)).isSameAs(weekend);
+        verify(pricingRuleRepository, times(1)).save(weekend);
+    }
+
+    @Test
+    void testCreateRule_Invalid() {
+        PricingRule typo = rule(PricingRuleType.WEEKDAY, 1.2);
+        typo.setDaysOfWeek("FRIDAY,SATUDRAY");
+        PricingRule noType = rule(null, 1.2);
+        PricingRule noMultiplier = rule(PricingRuleType.LENGTH_OF_STAY, 0.0);
+        noMultiplier.setMinNights(7);
+        PricingRule emptySeason = rule(PricingRuleType.SEASONAL, 1.2);
+        emptySeason.setStartDate(LocalDate.of(2025, 7, 1));
+        emptySeason.setEndDate(LocalDate.of(2025, 7, 1));
+        PricingRule noThreshold = rule(PricingRuleType.OCCUPANCY, 1.2);
+
+        assertThatThrownBy(() -> pricingRuleService.createRule(typo))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("SATUDRAY");
+        for (PricingRule rule : new PricingRule[]{noType, noMultiplier, emptySeason, noThreshold}) {
+            assertThatThrownBy(() -> pricingRuleService.createRule(rule)).isInstanceOf(IllegalArgumentException.class);
+        }
+        verify(pricingRuleRepository, never()).save(any());
+    }
+
+    @Test
+    void testUpdateRule_Invalid() {
+        given(pricingRuleRepository.findById(1L)).willReturn(Optional.of(rule(PricingRuleType.WEEKDAY, 1.2)));
+
+        assertThatThrownBy(() -> pricingRuleService.updateRule(1L, rule(PricingRuleType.SEASONAL, 1.2)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(pricingRuleRepository, never()).save(any());
+    }
+
+    private PricingRule rule(PricingRuleType type, double multiplier) {
+        PricingRule rule = new PricingRule();
+        rule.setName("rule");
+        rule.setRuleType(type);
+        rule.setMultiplier(multiplier);
+        rule.setActive(true);
+        return rule;
+    }
+}
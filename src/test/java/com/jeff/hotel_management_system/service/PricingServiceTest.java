@@ -1,25 +1,39 @@
 package com.jeff.hotel_management_system.service;
 
+import com.jeff.hotel_management_system.dto.DateRange;
+import com.jeff.hotel_management_system.dto.PriceQuoteDto;
 import com.jeff.hotel_management_system.entity.Room;
-import com.jeff.hotel_management_system.repository.RoomRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 
 class PricingServiceTest {
 
     @Mock
-    private RoomRepository roomRepository;
+    private RoomCache roomCache;
+
+    @Mock
+    private NightlyRateTable nightlyRateTable;
+
+    // no rules compiled, so stays outside the rate table cost the base price
+    @Spy
+    private PricingRuleEngine pricingRuleEngine = new PricingRuleEngine();
 
     @InjectMocks
     private PricingService pricingService;
@@ -38,12 +52,12 @@ class PricingServiceTest {
         room.setRoomNr(roomNr);
         room.setBasePrice(100L);
 
-        given(roomRepository.findByRoomNr(roomNr)).willReturn(Optional.of(room));
+        given(roomCache.findById(roomNr)).willReturn(Optional.of(room));
 
         Long price = pricingService.calculatePrice(roomNr, startDate, endDate);
 
         assertThat(price).isEqualTo(400L); // (5 - 1) * 100
-        verify(roomRepository, times(1)).findByRoomNr(roomNr);
+        verify(roomCache, times(1)).findById(roomNr);
     }
 
     @Test
@@ -52,13 +66,13 @@ class PricingServiceTest {
         LocalDate startDate = LocalDate.of(2023, 1, 1);
         LocalDate endDate = LocalDate.of(2023, 1, 5);
 
-        given(roomRepository.findByRoomNr(roomNr)).willReturn(Optional.empty());
+        given(roomCache.findById(roomNr)).willReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(RuntimeException.class, () ->
                 pricingService.calculatePrice(roomNr, startDate, endDate));
 
         assertThat(exception.getMessage()).isEqualTo("Room not found");
-        verify(roomRepository, times(1)).findByRoomNr(roomNr);
+        verify(roomCache, times(1)).findById(roomNr);
     }
 
     @Test
@@ -95,9 +109,59 @@ class PricingServiceTest {
         room.setRoomNr("104");
         room.setBasePrice(100L);
 
-        // Assuming the method doesn't handle negative days and it's a caller responsibility
+        // BookingService.validateStay rejects these, pricing them costs nothing
+        Long price = pricingService.calculatePrice(room, startDate, endDate);
+
+        assertThat(price).isEqualTo(0L);
+    }
+
+    @Test
+    void testCalculatePrice_OutsideRateTable_AppliesRules() {
+        // e.g. a stay reaching past the rate table's horizon
+        LocalDate startDate = LocalDate.now().plusDays(900);
+        LocalDate endDate = startDate.plusDays(4);
+        Room room = new Room();
+        room.setRoomNr("105");
+        room.setRoomType("Suite");
+        room.setBasePrice(100L);
+        doReturn(1.5).when(pricingRuleEngine).nightlyMultiplier(eq("Suite"), anyLong());
+        doReturn(0.9).when(pricingRuleEngine).stayMultiplier("Suite", 4);
+
         Long price = pricingService.calculatePrice(room, startDate, endDate);
 
-        assertThat(price).isEqualTo(-400L); // (1 - 5) * 100
+        assertThat(price).isEqualTo(540L); // 4 * 150 * 0.9
+    }
+
+    @Test
+    void testCalculatePrice_FromRateTable() {
+        LocalDate startDate = LocalDate.of(2023, 1, 1);
+        LocalDate endDate = LocalDate.of(2023, 1, 5);
+
+        given(nightlyRateTable.quote("101", startDate, endDate)).willReturn(OptionalLong.of(420L));
+
+        Long price = pricingService.calculatePrice("101", startDate, endDate);
+
+        assertThat(price).isEqualTo(420L);
+        verify(roomCache, never()).findById(any());
+    }
+
+    @Test
+    void testQuote_RoomsTimesRanges() {
+        DateRange january = new DateRange(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 1, 3));
+        DateRange june = new DateRange(LocalDate.of(2023, 6, 1), LocalDate.of(2023, 6, 4));
+        Room room = new Room();
+        room.setRoomNr("102");
+        room.setBasePrice(200L);
+
+        given(nightlyRateTable.quote("101", january.getStartDate(), january.getEndDate())).willReturn(OptionalLong.of(200L));
+        given(nightlyRateTable.quote("101", june.getStartDate(), june.getEndDate())).willReturn(OptionalLong.of(300L));
+        given(roomCache.findById("102")).willReturn(Optional.of(room));
+
+        List<PriceQuoteDto> quotes = pricingService.quote(Arrays.asList("101", "102"), Arrays.asList(january, june));
+
+        assertThat(quotes).hasSize(4);
+        assertThat(quotes).extracting(PriceQuoteDto::getPrice).containsExactly(200L, 300L, 400L, 600L);
+        verify(roomCache, never()).findById("101");
+        verify(roomCache, times(1)).findById("102");
     }
 }
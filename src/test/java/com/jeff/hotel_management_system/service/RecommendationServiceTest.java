@@ -0,0 +1,236 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.entity.Room;
+import com.jeff.hotel_management_system.utils.StubChatModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+
+class RecommendationServiceTest {
+
+    @Mock
+    private RoomService roomService;
+
+    @Mock
+    private ChatClient.Builder chatClientBuilder;
+
+    private ChatClient chatClient;
+
+    private RecommendationService recommendationService;
+
+    private final LocalDate startDate = LocalDate.of(2025, 1, 1);
+    private final LocalDate endDate = LocalDate.of(2025, 1, 5);
+
+    private Room room1;
+    private Room room2;
+
+    private final AtomicInteger modelCalls = new AtomicInteger();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        chatClient = mock(ChatClient.class, RETURNS_DEEP_STUBS);
+        given(chatClientBuilder.build()).willReturn(chatClient);
+
+        recommendationService = new RecommendationService(chatClientBuilder, meterRegistry);
+        RoomEmbeddingIndex roomEmbeddingIndex = new RoomEmbeddingIndex();
+        ReflectionTestUtils.setField(roomEmbeddingIndex, "dimensions", 512);
+
+        ReflectionTestUtils.setField(recommendationService, "roomService", roomService);
+        ReflectionTestUtils.setField(recommendationService, "roomEmbeddingIndex", roomEmbeddingIndex);
+        ReflectionTestUtils.setField(recommendationService, "topK", 5);
+        ReflectionTestUtils.setField(recommendationService, "cacheTtlMinutes", 10L);
+        ReflectionTestUtils.setField(recommendationService, "cacheSize", 100);
+
+        room1 = new Room("101", 1, 2, true, 100L, "Single", true, true, true, true, true, "Pool Access", 4.5, "Family");
+        room2 = new Room("102", 2, 4, true, 200L, "Double", false, true, true, false, false, "Gym Access", 4.0, "Business");
+    }
+
+    @Test
+    void testRecommendRooms_IdenticalRequestsCallModelOnce() {
+        given(roomService.findAvailableRooms(startDate, endDate, 2)).willReturn(List.of(room2, room1));
+        given(chatClient.prompt().user(anyString()).call().content()).willAnswer(invocation -> {
+            modelCalls.incrementAndGet();
+            return "Room 101";
+        });
+
+        String first = recommendationService.recommendRooms(startDate, endDate, 2, "quiet");
+        String second = recommendationService.recommendRooms(startDate, endDate, 2, "  QUIET ");
+
+        assertThat(first).isEqualTo("Room 101");
+        assertThat(second).isEqualTo("Room 101");
+        assertThat(modelCalls).hasValue(1);
+    }
+
+    @Test
+    void testRecommendRooms_OnlyTopCandidatesReachTheModel() {
+        ReflectionTestUtils.setField(recommendationService, "topK", 1);
+        given(roomService.findAvailableRooms(startDate, endDate, 2)).willReturn(List.of(room1, room2));
+        ArgumentCaptor<String> prompt = ArgumentCaptor.forClass(String.class);
+        given(chatClient.prompt().user(prompt.capture()).call().content()).willReturn("Room 102");
+
+        recommendationService.recommendRooms(startDate, endDate, 2, "business trip with gym");
+
+        assertThat(prompt.getValue()).contains("Room 102").doesNotContain("Room 101");
+    }
+
+    @Test
+    void testRecommendRooms_DeterministicOnly() {
+        ReflectionTestUtils.setField(recommendationService, "deterministicOnly", true);
+        given(roomService.findAvailableRooms(startDate, endDate, 2)).willReturn(List.of(room1, room2));
+
+        String answer = recommendationService.recommendRooms(startDate, endDate, 2, "family pool");
+
+        assertThat(answer).contains("1. Room 101").contains("2. Room 102");
+        assertThat(modelCalls).hasValue(0);
+    }
+
+    @Test
+    void testRecommendRooms_ChangedRoomSetCallsModelAgain() {
+        given(roomService.findAvailableRooms(startDate, endDate, 2))
+                .willReturn(List.of(room1, room2))
+                .willReturn(List.of(room2));
+        given(chatClient.prompt().user(anyString()).call().content()).willReturn("Room 101", "Room 102");
+
+        String first = recommendationService.recommendRooms(startDate, endDate, 2, "quiet");
+        String second = recommendationService.recommendRooms(startDate, endDate, 2, "quiet");
+
+        assertThat(first).isEqualTo("Room 101");
+        assertThat(second).isEqualTo("Room 102");
+    }
+
+    @Test
+    void testRecommendRooms_FailureIsNotCached() {
+        given(roomService.findAvailableRooms(startDate, endDate, 2)).willReturn(List.of(room1));
+        given(chatClient.prompt().user(anyString()).call().content())
+                .willThrow(new IllegalStateException("rate limited"))
+                .willReturn("Room 101");
+
+        assertThatThrownBy(() -> recommendationService.recommendRooms(startDate, endDate, 2, "quiet"))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(recommendationService.recommendRooms(startDate, endDate, 2, "quiet")).isEqualTo("Room 101");
+    }
+
+    @Test
+    void testRecommendRooms_ConcurrentRequestsShareOneCall() throws Exception {
+        given(roomService.findAvailableRooms(startDate, endDate, 2)).willReturn(List.of(room1));
+        CountDownLatch modelCalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(chatClient.prompt().user(anyString()).call().content()).willAnswer(invocation -> {
+            modelCalls.incrementAndGet();
+            modelCalled.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "Room 101";
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> leader = executor.submit(() -> recommendationService.recommendRooms(startDate, endDate, 2, "quiet"));
+            assertThat(modelCalled.await(5, TimeUnit.SECONDS)).isTrue();
+            List<Future<String>> followers = List.of(
+                    executor.submit(() -> recommendationService.recommendRooms(startDate, endDate, 2, "quiet")),
+                    executor.submit(() -> recommendationService.recommendRooms(startDate, endDate, 2, "quiet")));
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("Room 101");
+            for (Future<String> follower : followers) {
+                assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("Room 101");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(modelCalls).hasValue(1);
+    }
+
+    private RecommendationService streamingService(StubChatModel model) {
+        RecommendationService service = new RecommendationService(ChatClient.builder(model), meterRegistry);
+        ReflectionTestUtils.setField(service, "roomService", roomService);
+        ReflectionTestUtils.setField(service, "roomEmbeddingIndex", ReflectionTestUtils.getField(recommendationService, "roomEmbeddingIndex"));
+        ReflectionTestUtils.setField(service, "topK", 5);
+        ReflectionTestUtils.setField(service, "cacheTtlMinutes", 10L);
+        ReflectionTestUtils.setField(service, "cacheSize", 100);
+        return service;
+    }
+
+    @Test
+    void testStreamRecommendations_StreamsTokensAndRecordsTimeToFirstToken() {
+        given(roomService.findAvailableRooms(startDate, endDate, 2)).willReturn(List.of(room1, room2));
+        RecommendationService service = streamingService(new StubChatModel(Duration.ZERO));
+
+        List<String> tokens = service.streamRecommendations(startDate, endDate, 2, "family pool").collectList().block();
+
+        assertThat(tokens).hasSizeGreaterThan(1);
+        assertThat(String.join("", tokens)).startsWith("Based on your preferences, I recommend Room 101");
+        assertThat(meterRegistry.get("hotel.recommendations.time-to-first-token").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("hotel.recommendations.stream-duration").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testStreamRecommendations_CompletedStreamIsCached() {
+        given(roomService.findAvailableRooms(startDate, endDate, 2)).willReturn(List.of(room1, room2));
+        RecommendationService service = streamingService(new StubChatModel(Duration.ZERO));
+
+        String streamed = String.join("", service.streamRecommendations(startDate, endDate, 2, "family pool").collectList().block());
+        List<String> cached = service.streamRecommendations(startDate, endDate, 2, "family pool").collectList().block();
+
+        assertThat(cached).containsExactly(streamed);
+        assertThat(service.recommendRooms(startDate, endDate, 2, "family pool")).isEqualTo(streamed);
+        assertThat(meterRegistry.get("hotel.recommendations.time-to-first-token").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testStreamRecommendations_CancelledStreamIsNotCached() {
+        given(roomService.findAvailableRooms(startDate, endDate, 2)).willReturn(List.of(room1, room2));
+        RecommendationService service = streamingService(new StubChatModel(Duration.ofMillis(20)));
+
+        String first = service.streamRecommendations(startDate, endDate, 2, "family pool").blockFirst();
+        List<String> again = service.streamRecommendations(startDate, endDate, 2, "family pool").collectList().block();
+
+        assertThat(first).isEqualTo("Based ");
+        assertThat(again).hasSizeGreaterThan(1);
+    }
+
+    @Test
+    void testStreamRecommendations_CancelledStreamStillAnswersWaitingRequests() throws Exception {
+        given(roomService.findAvailableRooms(startDate, endDate, 2)).willReturn(List.of(room1, room2));
+        RecommendationService service = streamingService(new StubChatModel(Duration.ofMillis(20)));
+
+        Disposable leader = service.streamRecommendations(startDate, endDate, 2, "family pool").subscribe();
+        CompletableFuture<List<String>> follower = service.streamRecommendations(startDate, endDate, 2, "family pool")
+                .collectList()
+                .toFuture();
+        leader.dispose();
+
+        List<String> answer = follower.get(5, TimeUnit.SECONDS);
+        assertThat(answer).hasSize(1);
+        assertThat(answer.get(0)).startsWith("Based on your preferences, I recommend Room 101");
+        assertThat(service.recommendRooms(startDate, endDate, 2, "family pool")).isEqualTo(answer.get(0));
+        assertThat(meterRegistry.get("hotel.recommendations.stream-duration").timer().count()).isEqualTo(1);
+    }
+}
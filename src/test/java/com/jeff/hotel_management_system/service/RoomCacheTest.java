@@ -0,0 +1,121 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.entity.Room;
+import com.jeff.hotel_management_system.repository.RoomRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+class RoomCacheTest {
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MeterRegistry meterRegistry;
+
+    private RoomCache roomCache;
+
+    private Room room1;
+
+    private Room room2;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        roomCache = new RoomCache(roomRepository, redisTemplate, meterRegistry, transactionManager);
+        room1 = new Room("101", 1, 2, true, 100L, "Single", true, true, true, true, true, "Pool Access", 4.5, "Family");
+        room2 = new Room("102", 2, 4, true, 200L, "Double", false, true, true, false, false, "Gym Access", 4.0, "Business");
+        given(roomRepository.findAll()).willReturn(Arrays.asList(room2, room1));
+    }
+
+    @Test
+    void testFindAll_LoadsOnce() {
+        List<Room> first = roomCache.findAll();
+        List<Room> second = roomCache.findAll();
+
+        assertThat(first).extracting(Room::getRoomNr).containsExactly("101", "102");
+        assertThat(second).extracting(Room::getRoomNr).containsExactly("101", "102");
+        verify(roomRepository, times(1)).findAll();
+        assertThat(count("hit")).isEqualTo(2.0);
+        assertThat(count("miss")).isEqualTo(1.0);
+    }
+
+    @Test
+    void testFindById_ServedFromCache() {
+        assertThat(roomCache.findById("101")).contains(room1);
+        assertThat(roomCache.findByMaxOccupancyGreaterThanEqual(3)).containsExactly(room2);
+
+        verify(roomRepository, never()).findById(any());
+    }
+
+    @Test
+    void testFindById_UnknownRoomReadThrough() {
+        Room room3 = new Room("103", 3, 2, true, 150L, "Single", true, false, true, true, false, "Spa Access", 4.2, "Couples");
+        given(roomRepository.findById("103")).willReturn(Optional.of(room3));
+
+        assertThat(roomCache.findById("103")).contains(room3);
+        assertThat(roomCache.findById("103")).contains(room3);
+
+        verify(roomRepository, times(1)).findById("103");
+    }
+
+    @Test
+    void testInvalidate_ReloadsAndPublishes() {
+        roomCache.findAll();
+        Room updated = new Room("101", 1, 3, true, 120L, "Single", true, true, true, true, true, "Pool Access", 4.5, "Family");
+        given(roomRepository.findById("101")).willReturn(Optional.of(updated));
+
+        roomCache.invalidate("101");
+
+        assertThat(roomCache.findById("101")).contains(updated);
+        verify(redisTemplate, times(1)).convertAndSend(RoomCache.INVALIDATION_CHANNEL, "101");
+    }
+
+    @Test
+    void testReload_DeletedRoomIsDropped() {
+        roomCache.findAll();
+        given(roomRepository.findById("102")).willReturn(Optional.empty());
+
+        roomCache.reload("102");
+
+        assertThat(roomCache.findAll()).containsExactly(room1);
+        verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    void testInvalidateAll_ReloadsTableAndPublishes() {
+        roomCache.findAll();
+        Room room3 = new Room("103", 3, 2, true, 150L, "Single", true, false, true, true, false, "Spa Access", 4.2, "Couples");
+        given(roomRepository.findAll()).willReturn(Arrays.asList(room1, room2, room3));
+
+        roomCache.invalidateAll();
+
+        assertThat(roomCache.findAll()).containsExactly(room1, room2, room3);
+        verify(roomRepository, never()).findById(any());
+        verify(redisTemplate, times(1)).convertAndSend(RoomCache.INVALIDATION_CHANNEL, RoomCache.ALL_ROOMS);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("hotel.rooms.cache").tag("result", result).counter().count();
+    }
+}
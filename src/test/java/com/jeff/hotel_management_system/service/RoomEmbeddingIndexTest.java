@@ -0,0 +1,79 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.entity.Room;
+import com.jeff.hotel_management_system.repository.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+class RoomEmbeddingIndexTest {
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @InjectMocks
+    private RoomEmbeddingIndex roomEmbeddingIndex;
+
+    private Room familyRoom;
+    private Room businessRoom;
+    private Room seaViewSuite;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(roomEmbeddingIndex, "dimensions", 512);
+
+        familyRoom = new Room("101", 1, 4, true, 100L, "Double", false, false, true, true, true, "Pool Access, Kids Club", 4.0, "Family");
+        businessRoom = new Room("102", 2, 2, true, 150L, "Single", false, false, true, true, false, "Gym Access, Desk", 4.2, "Business");
+        seaViewSuite = new Room("201", 5, 2, true, 300L, "Suite", true, true, true, true, false, "Jacuzzi, Free Breakfast", 4.8, "Honeymoon");
+
+        given(roomRepository.findAll()).willReturn(List.of(familyRoom, businessRoom, seaViewSuite));
+        roomEmbeddingIndex.rebuild();
+    }
+
+    private List<String> ranking(String preferences, int k) {
+        return roomEmbeddingIndex.topK(List.of(familyRoom, businessRoom, seaViewSuite), preferences, k).stream()
+                .map(Room::getRoomNr)
+                .toList();
+    }
+
+    @Test
+    void testTopK_BestMatchFirst() {
+        assertThat(ranking("honeymoon with a sea view", 3).get(0)).isEqualTo("201");
+        assertThat(ranking("traveling with kids and a dog, need a pool", 3).get(0)).isEqualTo("101");
+        assertThat(ranking("business trip, gym", 3).get(0)).isEqualTo("102");
+    }
+
+    @Test
+    void testTopK_LimitsCandidates() {
+        assertThat(ranking("sea view", 1)).containsExactly("201");
+        assertThat(ranking("sea view", 0)).isEmpty();
+    }
+
+    @Test
+    void testTopK_NoMatchFallsBackToRating() {
+        assertThat(ranking("", 3)).containsExactly("201", "102", "101");
+    }
+
+    @Test
+    void testTopK_IsDeterministic() {
+        assertThat(ranking("quiet room with balcony", 3)).isEqualTo(ranking("quiet room with balcony", 3));
+    }
+
+    @Test
+    void testTopK_RoomAddedAfterRebuild() {
+        Room newRoom = new Room("301", 3, 2, true, 120L, "Single", false, false, true, false, true, "Dog Park", 3.5, "Pets");
+
+        List<Room> ranked = roomEmbeddingIndex.topK(List.of(familyRoom, newRoom), "dog park", 1);
+
+        assertThat(ranked).extracting(Room::getRoomNr).containsExactly("301");
+    }
+}
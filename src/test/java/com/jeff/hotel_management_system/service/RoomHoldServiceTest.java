@@ -0,0 +1,144 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.exception.BookingConflictException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+class RoomHoldServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @InjectMocks
+    private RoomHoldService roomHoldService;
+
+    private final LocalDate startDate = LocalDate.of(2025, 1, 1);
+    private final LocalDate endDate = LocalDate.of(2025, 1, 4);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(roomHoldService, "ttlMinutes", 35L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenRedisAcquires(long result) {
+        given(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).willReturn(result);
+    }
+
+    @Test
+    void testHold_ClaimsEveryNightAtOnce() {
+        givenRedisAcquires(1L);
+
+        String holdId = roomHoldService.hold("101", startDate, endDate);
+
+        assertThat(holdId).isNotBlank();
+        assertThat(roomHoldService.isHeld("101", startDate, endDate)).isTrue();
+        assertThat(roomHoldService.isHeld("101", endDate, endDate.plusDays(1))).isFalse();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        verify(redisTemplate).execute(any(RedisScript.class), keys.capture(), eq(holdId), eq("2100000"));
+        assertThat(keys.getValue()).hasSize(3).allMatch(key -> key.startsWith("room_hold:{101}:"));
+        verify(redisTemplate).convertAndSend(eq(RoomHoldService.HOLD_CHANNEL), startsWith("HOLD|101|2025-01-01|2025-01-04|" + holdId));
+    }
+
+    @Test
+    void testHold_HeldOnAnotherNode() {
+        givenRedisAcquires(0L);
+
+        assertThatThrownBy(() -> roomHoldService.hold("101", startDate, endDate))
+                .isInstanceOf(BookingConflictException.class);
+        assertThat(roomHoldService.isHeld("101", startDate, endDate)).isFalse();
+    }
+
+    @Test
+    void testHold_HeldLocallySkipsRedis() {
+        roomHoldService.onHoldEvent("HOLD|101|2025-01-02|2025-01-03|other|" + (System.currentTimeMillis() + 60000));
+
+        assertThatThrownBy(() -> roomHoldService.hold("101", startDate, endDate))
+                .isInstanceOf(BookingConflictException.class);
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void testHold_AlreadyBooked() {
+        given(bookingIntervalIndex.hasConflict("101", startDate, endDate)).willReturn(true);
+
+        assertThatThrownBy(() -> roomHoldService.hold("101", startDate, endDate))
+                .isInstanceOf(BookingConflictException.class)
+                .hasMessageContaining("already booked");
+    }
+
+    @Test
+    void testRelease_FreesTheNights() {
+        givenRedisAcquires(1L);
+        String holdId = roomHoldService.hold("101", startDate, endDate);
+
+        roomHoldService.release("101", startDate, endDate, holdId);
+
+        assertThat(roomHoldService.isHeld("101", startDate, endDate)).isFalse();
+    }
+
+    @Test
+    void testHoldGroup_OneRoomTaken_ReleasesTheOthers() {
+        // 101 is acquired, 102 is held on another node, then 101 is released again
+        given(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).willReturn(1L, 0L, 3L);
+
+        assertThatThrownBy(() -> roomHoldService.hold(List.of("101", "102"), startDate, endDate))
+                .isInstanceOf(BookingConflictException.class)
+                .hasMessageContaining("102");
+
+        assertThat(roomHoldService.isHeld("101", startDate, endDate)).isFalse();
+        assertThat(roomHoldService.isHeld("102", startDate, endDate)).isFalse();
+        verify(redisTemplate).convertAndSend(eq(RoomHoldService.HOLD_CHANNEL), startsWith("RELEASE|101|"));
+    }
+
+    @Test
+    void testHoldGroup_SharesOneHoldId() {
+        givenRedisAcquires(1L);
+
+        String holdId = roomHoldService.hold(List.of("101", "102"), startDate, endDate);
+
+        assertThat(roomHoldService.isHeld("101", startDate, endDate)).isTrue();
+        assertThat(roomHoldService.isHeld("102", startDate, endDate)).isTrue();
+        verify(redisTemplate).convertAndSend(eq(RoomHoldService.HOLD_CHANNEL), startsWith("HOLD|101|2025-01-01|2025-01-04|" + holdId));
+        verify(redisTemplate).convertAndSend(eq(RoomHoldService.HOLD_CHANNEL), startsWith("HOLD|102|2025-01-01|2025-01-04|" + holdId));
+    }
+
+    @Test
+    void testOnHoldEvent_ExpiredHoldIsIgnored() {
+        roomHoldService.onHoldEvent("HOLD|101|2025-01-01|2025-01-04|other|" + (System.currentTimeMillis() - 1));
+
+        assertThat(roomHoldService.isHeld("101", startDate, endDate)).isFalse();
+    }
+
+    @Test
+    void testOnHoldEvent_ReleaseKeepsNewerHold() {
+        long expiresAt = System.currentTimeMillis() + 60000;
+        roomHoldService.onHoldEvent("HOLD|101|2025-01-01|2025-01-04|newer|" + expiresAt);
+
+        roomHoldService.onHoldEvent("RELEASE|101|2025-01-01|2025-01-04|older|0");
+
+        assertThat(roomHoldService.isHeld("101", startDate, endDate)).isTrue();
+    }
+}
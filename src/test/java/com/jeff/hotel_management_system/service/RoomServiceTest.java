@@ -27,6 +27,21 @@ class RoomServiceTest {
     @Mock
     private PricingService pricingService;
 
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @Mock
+    private NightlyRateTable nightlyRateTable;
+
+    @Mock
+    private RoomHoldService roomHoldService;
+
+    @Mock
+    private RoomEmbeddingIndex roomEmbeddingIndex;
+
+    @Mock
+    private RoomCache roomCache;
+
     @InjectMocks
     private RoomService roomService;
 
@@ -40,27 +55,27 @@ class RoomServiceTest {
         Room room1 = new Room("101", 1, 2, true, 100L, "Single", true, true, true, true, true, "Pool Access", 4.5, "Family");
         Room room2 = new Room("102", 2, 4, false, 200L, "Double", false, true, true, false, false, "Gym Access", 4.0, "Business");
 
-        given(roomRepository.findAll()).willReturn(Arrays.asList(room1, room2));
+        given(roomCache.findAll()).willReturn(Arrays.asList(room1, room2));
 
         List<RoomResponseDto> rooms = roomService.getAllRooms();
 
         assertThat(rooms).hasSize(2);
         assertThat(rooms.get(0).getRoomNr()).isEqualTo("101");
         assertThat(rooms.get(1).getRoomNr()).isEqualTo("102");
-        verify(roomRepository, times(1)).findAll();
+        verify(roomRepository, never()).findAll();
     }
 
     @Test
     void testGetRoomByRoomNr() {
         Room room = new Room("101", 1, 2, true, 100L, "Single", true, true, true, true, true, "Pool Access", 4.5, "Family");
 
-        given(roomRepository.findById("101")).willReturn(Optional.of(room));
+        given(roomCache.findById("101")).willReturn(Optional.of(room));
 
         Optional<Room> result = roomService.getRoomByRoomNr("101");
 
         assertThat(result).isPresent();
         assertThat(result.get().getRoomNr()).isEqualTo("101");
-        verify(roomRepository, times(1)).findById("101");
+        verify(roomCache, times(1)).findById("101");
     }
 
     @Test
@@ -73,6 +88,7 @@ class RoomServiceTest {
 
         assertThat(result.getRoomNr()).isEqualTo("101");
         verify(roomRepository, times(1)).save(room);
+        verify(roomCache, times(1)).invalidate("101");
     }
 
     @Test
@@ -90,6 +106,21 @@ class RoomServiceTest {
         assertThat(result.get().isAvailable()).isFalse();
         verify(roomRepository, times(1)).findById("101");
         verify(roomRepository, times(1)).save(updatedRoom);
+        verify(nightlyRateTable, times(1)).refresh(updatedRoom);
+        verify(roomCache, times(1)).invalidate("101");
+    }
+
+    @Test
+    void testUpdateRoom_SameBasePrice() {
+        Room existingRoom = new Room("101", 1, 2, true, 100L, "Single", true, true, true, true, true, "Pool Access", 4.5, "Family");
+        Room updatedRoom = new Room("101", 1, 3, true, 100L, "Single", true, true, true, true, true, "Pool Access", 4.8, "Family");
+
+        given(roomRepository.findById("101")).willReturn(Optional.of(existingRoom));
+        given(roomRepository.save(updatedRoom)).willReturn(updatedRoom);
+
+        roomService.updateRoom("101", updatedRoom);
+
+        verify(nightlyRateTable, never()).refresh(any());
     }
 
     @Test
@@ -103,6 +134,24 @@ class RoomServiceTest {
         assertThat(result).isTrue();
         verify(roomRepository, times(1)).findById("101");
         verify(roomRepository, times(1)).delete(room);
+        verify(roomCache, times(1)).invalidate("101");
+    }
+
+    @Test
+    void testOnRoomInvalidated_RefreshesRatesAndEmbeddings() {
+        Room room = new Room("101", 1, 2, true, 150L, "Single", true, true, true, true, true, "Pool Access", 4.5, "Family");
+        given(roomCache.findById("101")).willReturn(Optional.of(room));
+        given(roomCache.findById("102")).willReturn(Optional.empty());
+
+        roomService.onRoomInvalidated("101");
+        roomService.onRoomInvalidated("102");
+        roomService.onRoomInvalidated(RoomCache.ALL_ROOMS);
+
+        verify(roomCache, times(1)).reload("101");
+        verify(nightlyRateTable, times(1)).refresh(room);
+        verify(nightlyRateTable, times(1)).remove("102");
+        verify(nightlyRateTable, times(1)).rebuild();
+        verify(roomEmbeddingIndex, times(3)).rebuild();
     }
 
     @Test
@@ -114,6 +163,24 @@ class RoomServiceTest {
         assertThat(result).isFalse();
         verify(roomRepository, times(1)).findById("999");
         verify(roomRepository, never()).delete(any());
+        verify(roomCache, never()).invalidate(any());
+    }
+
+    @Test
+    void testAvailableRooms_SkipsHeldRooms() {
+        LocalDate startDate = LocalDate.of(2025, 1, 1);
+        LocalDate endDate = LocalDate.of(2025, 1, 5);
+        Room room1 = new Room("101", 1, 2, true, 100L, "Single", true, true, true, true, true, "Pool Access", 4.5, "Family");
+        Room room2 = new Room("102", 2, 4, true, 200L, "Double", false, true, true, false, false, "Gym Access", 4.0, "Business");
+
+        given(roomRepository.findAvailableRooms(startDate, endDate, 2)).willReturn(Arrays.asList(room1, room2));
+        given(roomHoldService.isHeld("101", startDate, endDate)).willReturn(true);
+        given(pricingService.calculatePrices(List.of(room2), startDate, endDate)).willReturn(new long[]{800L});
+
+        List<RoomDto> result = roomService.availableRooms(startDate, endDate, 2);
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getRoom().getRoomNr()).isEqualTo("102");
     }
 
     @Test
@@ -124,8 +191,7 @@ class RoomServiceTest {
         Room room2 = new Room("102", 2, 4, true, 200L, "Double", false, true, true, false, false, "Gym Access", 4.0, "Business");
 
         given(roomRepository.findAvailableRooms(startDate, endDate, 2)).willReturn(Arrays.asList(room1, room2));
-        given(pricingService.calculatePrice(room1, startDate, endDate)).willReturn((long) 400.0);
-        given(pricingService.calculatePrice(room2, startDate, endDate)).willReturn((long) 800.0);
+        given(pricingService.calculatePrices(Arrays.asList(room1, room2), startDate, endDate)).willReturn(new long[]{400L, 800L});
 
         List<RoomDto> result = roomService.availableRooms(startDate, endDate, 2);
 
@@ -135,6 +201,28 @@ class RoomServiceTest {
         assertThat(result.get(1).getRoom().getRoomNr()).isEqualTo("102");
         assertThat(result.get(1).getPrice()).isEqualTo(800.0);
         verify(roomRepository, times(1)).findAvailableRooms(startDate, endDate, 2);
-        verify(pricingService, times(2)).calculatePrice(any(Room.class), eq(startDate), eq(endDate));
+        verify(pricingService, times(1)).calculatePrices(anyList(), eq(startDate), eq(endDate));
+        verify(pricingService, never()).calculatePrice(any(Room.class), any(), any());
+    }
+
+    @Test
+    void testAvailableRooms_FromAvailabilityIndex() {
+        LocalDate startDate = LocalDate.of(2025, 1, 1);
+        LocalDate endDate = LocalDate.of(2025, 1, 5);
+        Room room1 = new Room("101", 1, 2, true, 100L, "Single", true, true, true, true, true, "Pool Access", 4.5, "Family");
+        Room room2 = new Room("102", 2, 4, true, 200L, "Double", false, true, true, false, false, "Gym Access", 4.0, "Business");
+
+        given(availabilityIndex.covers(startDate, endDate)).willReturn(true);
+        given(roomCache.findByMaxOccupancyGreaterThanEqual(2)).willReturn(Arrays.asList(room1, room2));
+        given(availabilityIndex.isAvailable("101", startDate, endDate)).willReturn(false);
+        given(availabilityIndex.isAvailable("102", startDate, endDate)).willReturn(true);
+        given(pricingService.calculatePrices(Arrays.asList(room2), startDate, endDate)).willReturn(new long[]{800L});
+
+        List<RoomDto> result = roomService.availableRooms(startDate, endDate, 2);
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getRoom().getRoomNr()).isEqualTo("102");
+        assertThat(result.get(0).getPrice()).isEqualTo(800.0);
+        verify(roomRepository, never()).findAvailableRooms(any(), any(), anyInt());
     }
 }
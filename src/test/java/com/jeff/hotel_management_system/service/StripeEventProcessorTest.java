@@ -0,0 +1,222 @@
+package com.jeff.hotel_management_system.service;
+
+import com.jeff.hotel_management_system.entity.Booking;
+import com.jeff.hotel_management_system.entity.GroupCheckout;
+import com.jeff.hotel_management_system.entity.StripeEvent;
+import com.jeff.hotel_management_system.entity.StripeEventStatus;
+import com.jeff.hotel_management_system.exception.BookingConflictException;
+import com.jeff.hotel_management_system.repository.GroupCheckoutRepository;
+import com.jeff.hotel_management_system.repository.StripeEventRepository;
+import com.stripe.Stripe;
+import com.stripe.exception.ApiConnectionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+class StripeEventProcessorTest {
+
+    @Mock
+    private StripeEventRepository stripeEventRepository;
+
+    @Mock
+    private GroupCheckoutRepository groupCheckoutRepository;
+
+    @Mock
+    private BookingService bookingService;
+
+    @Mock
+    private RoomHoldService roomHoldService;
+
+    @Mock
+    private StripeService stripeService;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private StripeEventProcessor stripeEventProcessor;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(stripeEventProcessor, "maxAttempts", 2);
+        ReflectionTestUtils.setField(stripeEventProcessor, "meterRegistry", meterRegistry);
+    }
+
+    private StripeEvent pendingEvent(String type) {
+        String payload = """
+                {"id": "evt_1", "object": "event", "api_version": "%s", "type": "%s",
+                 "data": {"object": {"id": "cs_1", "object": "checkout.session", "amount_total": 30000,
+                   "payment_intent": "pi_1",
+                   "metadata": {"roomNr": "101", "startDate": "2025-01-01", "endDate": "2025-01-03",
+                                "emailUser": "client@email.com"}}}}
+                """.formatted(Stripe.API_VERSION, type);
+        return new StripeEvent("evt_1", type, payload, StripeEventStatus.PENDING, 0, LocalDateTime.now(), null, null);
+    }
+
+    @Test
+    void testProcess_CheckoutSessionCompleted() {
+        StripeEvent event = pendingEvent("checkout.session.completed");
+        given(stripeEventRepository.lockByIdAndStatus("evt_1", StripeEventStatus.PENDING)).willReturn(Optional.of(event));
+
+        boolean processed = stripeEventProcessor.process("evt_1");
+
+        assertThat(processed).isTrue();
+        assertThat(event.getStatus()).isEqualTo(StripeEventStatus.PROCESSED);
+        assertThat(event.getProcessedAt()).isNotNull();
+
+        ArgumentCaptor<Booking> booking = ArgumentCaptor.forClass(Booking.class);
+        verify(bookingService, times(1)).createBooking(booking.capture(), eq("client@email.com"), eq("101"));
+        assertThat(booking.getValue().getId().getStartDate()).isEqualTo(LocalDate.of(2025, 1, 1));
+        assertThat(booking.getValue().getEndDate()).isEqualTo(LocalDate.of(2025, 1, 3));
+        assertThat(booking.getValue().getPrice()).isEqualTo(300L);
+    }
+
+    @Test
+    void testProcess_GroupCheckoutCompleted_BooksStoredGroup() {
+        String payload = """
+                {"id": "evt_1", "object": "event", "api_version": "%s", "type": "checkout.session.completed",
+                 "data": {"object": {"id": "cs_1", "object": "checkout.session", "amount_total": 50000,
+                   "payment_intent": "pi_1",
+                   "metadata": {"groupId": "grp_1", "holdId": "hold_1", "startDate": "2025-01-01",
+                                "endDate": "2025-01-03", "emailUser": "client@email.com"}}}}
+                """.formatted(Stripe.API_VERSION);
+        StripeEvent event = new StripeEvent("evt_1", "checkout.session.completed", payload, StripeEventStatus.PENDING,
+                0, LocalDateTime.now(), null, null);
+        given(stripeEventRepository.lockByIdAndStatus("evt_1", StripeEventStatus.PENDING)).willReturn(Optional.of(event));
+        GroupCheckout groupCheckout = new GroupCheckout("grp_1", "client@email.com", "101,102", "300,200",
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 3), LocalDateTime.now());
+        given(groupCheckoutRepository.findById("grp_1")).willReturn(Optional.of(groupCheckout));
+
+        boolean processed = stripeEventProcessor.process("evt_1");
+
+        assertThat(processed).isTrue();
+        assertThat(event.getStatus()).isEqualTo(StripeEventStatus.PROCESSED);
+        verify(bookingService, times(1)).createGroupBooking("client@email.com", List.of("101", "102"),
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 3), new long[]{300, 200});
+        verify(roomHoldService, times(1)).release(List.of("101", "102"), LocalDate.of(2025, 1, 1),
+                LocalDate.of(2025, 1, 3), "hold_1");
+        verify(groupCheckoutRepository, times(1)).delete(groupCheckout);
+    }
+
+    @Test
+    void testProcess_GroupCheckoutExpired_ReleasesHoldAndDeletesGroup() {
+        String payload = """
+                {"id": "evt_1", "object": "event", "api_version": "%s", "type": "checkout.session.expired",
+                 "data": {"object": {"id": "cs_1", "object": "checkout.session",
+                   "metadata": {"groupId": "grp_1", "holdId": "hold_1", "startDate": "2025-01-01",
+                                "endDate": "2025-01-03", "emailUser": "client@email.com"}}}}
+                """.formatted(Stripe.API_VERSION);
+        StripeEvent event = new StripeEvent("evt_1", "checkout.session.expired", payload, StripeEventStatus.PENDING,
+                0, LocalDateTime.now(), null, null);
+        given(stripeEventRepository.lockByIdAndStatus("evt_1", StripeEventStatus.PENDING)).willReturn(Optional.of(event));
+        GroupCheckout groupCheckout = new GroupCheckout("grp_1", "client@email.com", "101,102", "300,200",
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 3), LocalDateTime.now());
+        given(groupCheckoutRepository.findById("grp_1")).willReturn(Optional.of(groupCheckout));
+
+        boolean processed = stripeEventProcessor.process("evt_1");
+
+        assertThat(processed).isTrue();
+        verify(bookingService, never()).createGroupBooking(anyString(), any(), any(), any(), any());
+        verify(roomHoldService, times(1)).release(List.of("101", "102"), LocalDate.of(2025, 1, 1),
+                LocalDate.of(2025, 1, 3), "hold_1");
+        verify(groupCheckoutRepository, times(1)).delete(groupCheckout);
+    }
+
+    @Test
+    void testProcess_AlreadyProcessed() {
+        given(stripeEventRepository.lockByIdAndStatus("evt_1", StripeEventStatus.PENDING)).willReturn(Optional.empty());
+
+        boolean processed = stripeEventProcessor.process("evt_1");
+
+        assertThat(processed).isFalse();
+        verify(bookingService, never()).createBooking(any(), anyString(), anyString());
+    }
+
+    @Test
+    void testProcess_IgnoredEventType() {
+        StripeEvent event = pendingEvent("payment_intent.created");
+        given(stripeEventRepository.lockByIdAndStatus("evt_1", StripeEventStatus.PENDING)).willReturn(Optional.of(event));
+
+        boolean processed = stripeEventProcessor.process("evt_1");
+
+        assertThat(processed).isTrue();
+        assertThat(event.getStatus()).isEqualTo(StripeEventStatus.PROCESSED);
+        verify(bookingService, never()).createBooking(any(), anyString(), anyString());
+    }
+
+    @Test
+    void testRecordFailure_GivesUpAfterMaxAttempts() {
+        StripeEvent event = pendingEvent("checkout.session.completed");
+        given(stripeEventRepository.lockByIdAndStatus("evt_1", StripeEventStatus.PENDING)).willReturn(Optional.of(event));
+
+        stripeEventProcessor.recordFailure("evt_1", new IllegalArgumentException("Client not found"));
+
+        assertThat(event.getAttempts()).isEqualTo(1);
+        assertThat(event.getStatus()).isEqualTo(StripeEventStatus.PENDING);
+        assertThat(event.getLastError()).isEqualTo("Client not found");
+
+        stripeEventProcessor.recordFailure("evt_1", new IllegalArgumentException("Client not found"));
+
+        assertThat(event.getAttempts()).isEqualTo(2);
+        assertThat(event.getStatus()).isEqualTo(StripeEventStatus.FAILED);
+        verify(stripeService, never()).refund(anyString());
+    }
+
+    @Test
+    void testRecordFailure_PaidCheckoutGivenUp_Refunds() throws Exception {
+        StripeEvent event = pendingEvent("checkout.session.completed");
+        given(stripeEventRepository.lockByIdAndStatus("evt_1", StripeEventStatus.PENDING)).willReturn(Optional.of(event));
+
+        stripeEventProcessor.recordFailure("evt_1", new IllegalArgumentException("Client not found"));
+        verify(stripeService, never()).refund(anyString());
+
+        stripeEventProcessor.recordFailure("evt_1", new IllegalArgumentException("Client not found"));
+
+        assertThat(event.getStatus()).isEqualTo(StripeEventStatus.REFUNDED);
+        verify(stripeService, times(1)).refund("pi_1");
+    }
+
+    @Test
+    void testRecordFailure_Conflict_RefundsWithoutRetrying() throws Exception {
+        StripeEvent event = pendingEvent("checkout.session.completed");
+        given(stripeEventRepository.lockByIdAndStatus("evt_1", StripeEventStatus.PENDING)).willReturn(Optional.of(event));
+
+        stripeEventProcessor.recordFailure("evt_1", new BookingConflictException("Room 101 is already booked"));
+
+        assertThat(event.getAttempts()).isEqualTo(1);
+        assertThat(event.getStatus()).isEqualTo(StripeEventStatus.REFUNDED);
+        assertThat(event.getProcessedAt()).isNotNull();
+        verify(stripeService, times(1)).refund("pi_1");
+        assertThat(meterRegistry.counter("hotel.stripe.refunds", "outcome", "refunded").count()).isEqualTo(1);
+    }
+
+    @Test
+    void testRecordFailure_RefundFails_FlagsEvent() throws Exception {
+        StripeEvent event = pendingEvent("checkout.session.completed");
+        given(stripeEventRepository.lockByIdAndStatus("evt_1", StripeEventStatus.PENDING)).willReturn(Optional.of(event));
+        given(stripeService.refund("pi_1")).willThrow(new ApiConnectionException("Stripe is down"));
+
+        stripeEventProcessor.recordFailure("evt_1", new BookingConflictException("Room 101 is already booked"));
+
+        assertThat(event.getStatus()).isEqualTo(StripeEventStatus.REFUND_REQUIRED);
+        assertThat(event.getLastError()).contains("Stripe is down").contains("Room 101 is already booked");
+        assertThat(meterRegistry.counter("hotel.stripe.refunds", "outcome", "failed").count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,100 @@
+package com.jeff.hotel_management_system.utils;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilsTest {
+
+    private static final String SECRET = "c2VjcmV0LWtleS1mb3ItdGVzdHMtdGhhdC1pcy1sb25nLWVub3VnaC1mb3ItaHMyNTY=";
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = newJwtUtils(3600000L);
+    }
+
+    private JwtUtils newJwtUtils(long expirationMs) {
+        JwtUtils utils = new JwtUtils();
+        ReflectionTestUtils.setField(utils, "jwtSecretKey", SECRET);
+        ReflectionTestUtils.setField(utils, "jwtExpirationMs", expirationMs);
+        ReflectionTestUtils.setField(utils, "verifiedCacheSize", 2);
+        utils.init();
+        return utils;
+    }
+
+    private String token(JwtUtils utils, String email) {
+        return utils.generateToken(new UsernamePasswordAuthenticationToken(email, null));
+    }
+
+    @Test
+    void testVerify_ValidToken() {
+        String token = token(jwtUtils, "client@email.com");
+
+        Claims claims = jwtUtils.verify(token);
+
+        assertThat(claims).isNotNull();
+        assertThat(claims.getSubject()).isEqualTo("client@email.com");
+        assertThat(jwtUtils.validateToken(token)).isTrue();
+        assertThat(jwtUtils.getUsername(token)).isEqualTo("client@email.com");
+        assertThat(jwtUtils.getTokenExpirationTime(token)).isEqualTo(claims.getExpiration().getTime());
+    }
+
+    @Test
+    void testGenerateToken_CarriesRoleClaim() {
+        String token = jwtUtils.generateToken(new UsernamePasswordAuthenticationToken(
+                "admin@email.com", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+
+        Claims claims = jwtUtils.verify(token);
+
+        assertThat(claims.get(JwtUtils.ROLE_CLAIM, String.class)).isEqualTo("ROLE_ADMIN");
+    }
+
+    @Test
+    void testVerify_SecondCallServedFromCache() {
+        String token = token(jwtUtils, "client@email.com");
+
+        Claims first = jwtUtils.verify(token);
+        Claims second = jwtUtils.verify(token);
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void testVerify_TamperedToken() {
+        String token = token(jwtUtils, "client@email.com");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThat(jwtUtils.verify(tampered)).isNull();
+        assertThat(jwtUtils.validateToken(tampered)).isFalse();
+        assertThatThrownBy(() -> jwtUtils.getUsername(tampered)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testVerify_ExpiredToken() {
+        JwtUtils expiring = newJwtUtils(-1000L);
+        String token = token(expiring, "client@email.com");
+
+        assertThat(expiring.verify(token)).isNull();
+    }
+
+    @Test
+    void testVerify_CacheStaysBounded() {
+        jwtUtils.verify(token(jwtUtils, "a@email.com"));
+        jwtUtils.verify(token(jwtUtils, "b@email.com"));
+        jwtUtils.verify(token(jwtUtils, "c@email.com"));
+
+        Map<?, ?> verifiedTokens = (Map<?, ?>) ReflectionTestUtils.getField(jwtUtils, "verifiedTokens");
+        assertThat(verifiedTokens).hasSize(2);
+    }
+}
@@ -0,0 +1,111 @@
+package com.jeff.hotel_management_system.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+class TokenWhitelistRedisCacheClientTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private TokenWhitelistRedisCacheClient client;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        given(redisTemplate.opsForValue()).willReturn(valueOperations);
+        meterRegistry = new SimpleMeterRegistry();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        client = new TokenWhitelistRedisCacheClient(redisTemplate, observationRegistry);
+        ReflectionTestUtils.setField(client, "nearCacheTtlMs", 60000L);
+        ReflectionTestUtils.setField(client, "nearCacheSize", 2);
+    }
+
+    @Test
+    void testIsTokenWhitelisted_SecondCheckServedLocally() {
+        given(valueOperations.get("jwt_whitelist:client@email.com")).willReturn("token");
+
+        assertThat(client.isTokenWhitelisted("client@email.com", "token")).isTrue();
+        assertThat(client.isTokenWhitelisted("client@email.com", "token")).isTrue();
+        assertThat(client.isTokenWhitelisted("client@email.com", "other")).isFalse();
+
+        verify(valueOperations, times(1)).get("jwt_whitelist:client@email.com");
+    }
+
+    @Test
+    void testIsTokenWhitelisted_OnlyRedisCallsAreTimed() {
+        given(valueOperations.get("jwt_whitelist:client@email.com")).willReturn("token");
+
+        client.isTokenWhitelisted("client@email.com", "token");
+        client.isTokenWhitelisted("client@email.com", "token");
+
+        assertThat(meterRegistry.get("hotel.external.requests")
+                .tag("dependency", "redis")
+                .tag("operation", "whitelist.get")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testIsTokenWhitelisted_MissIsNotCached() {
+        given(valueOperations.get("jwt_whitelist:client@email.com")).willReturn(null);
+
+        assertThat(client.isTokenWhitelisted("client@email.com", "token")).isFalse();
+        assertThat(client.isTokenWhitelisted("client@email.com", "token")).isFalse();
+
+        verify(valueOperations, times(2)).get("jwt_whitelist:client@email.com");
+    }
+
+    @Test
+    void testDelete_EvictsAndPublishes() {
+        given(valueOperations.get("jwt_whitelist:client@email.com")).willReturn("token", (String) null);
+        assertThat(client.isTokenWhitelisted("client@email.com", "token")).isTrue();
+
+        client.delete("client@email.com");
+
+        assertThat(client.isTokenWhitelisted("client@email.com", "token")).isFalse();
+        verify(redisTemplate, times(1)).delete("jwt_whitelist:client@email.com");
+        verify(redisTemplate, times(1)).convertAndSend(TokenWhitelistRedisCacheClient.INVALIDATION_CHANNEL, "client@email.com");
+    }
+
+    @Test
+    void testEvictLocal_FromOtherNode() {
+        given(valueOperations.get("jwt_whitelist:client@email.com")).willReturn("token", "newToken");
+        assertThat(client.isTokenWhitelisted("client@email.com", "token")).isTrue();
+
+        client.evictLocal("client@email.com");
+
+        assertThat(client.isTokenWhitelisted("client@email.com", "token")).isFalse();
+        assertThat(client.isTokenWhitelisted("client@email.com", "newToken")).isTrue();
+    }
+
+    @Test
+    void testNearCacheStaysBounded() {
+        given(valueOperations.get(anyString())).willReturn("token");
+
+        client.isTokenWhitelisted("a@email.com", "token");
+        client.isTokenWhitelisted("b@email.com", "token");
+        client.isTokenWhitelisted("c@email.com", "token");
+
+        Object nearCache = ReflectionTestUtils.getField(client, "nearCache");
+        assertThat((java.util.Map<?, ?>) nearCache).hasSize(2);
+    }
+}